@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.benchmarks;
+
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.execution.DeciderService;
+import com.netflix.conductor.core.execution.DeciderService.DeciderOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link DeciderService#decide(Workflow)}, including the task mappers and the resolution
+ * of the task inputs, on the workflow shapes of {@link WorkflowFixtures.Shape}.
+ * Run with <code>-prof gc</code> (the default of the jmh task) to report the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeciderBenchmark {
+
+    @Param({"LINEAR", "STATIC_FORK", "DYNAMIC_FORK", "SUB_WORKFLOW"})
+    public WorkflowFixtures.Shape shape;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private WorkflowFixtures fixtures;
+    private DeciderService deciderService;
+    private Workflow workflow;
+
+    @Setup
+    public void setup() {
+        fixtures = new WorkflowFixtures();
+        deciderService = fixtures.getDeciderService();
+        workflow = fixtures.createWorkflow(shape, size);
+    }
+
+    @Benchmark
+    public DeciderOutcome decide() throws Exception {
+        fixtures.reset(workflow);
+        return deciderService.decide(workflow);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.benchmarks;
+
+import com.netflix.conductor.metrics.MeterFamily;
+import com.netflix.conductor.metrics.Monitors;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Spectator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of the metrics recorded by every request of the Redis execution DAO: a dao_requests counter and
+ * a dao_payload_size gauge. Run with <code>-prof gc</code> to compare the allocation per call of the lookup keyed by
+ * a map of the tags, used by {@link Monitors} before meter families, with {@link Monitors} as it is and with a meter
+ * resolved up front.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonitorsBenchmark {
+
+    private static final String DAO = "redis";
+    private static final String ACTION = "getTask";
+    private static final String TASK_TYPE = "benchmark_task";
+    private static final String WORKFLOW_TYPE = "benchmark_workflow";
+
+    private final Registry registry = Spectator.globalRegistry();
+    private final Map<String, Map<Map<String, String>, Counter>> counters = new ConcurrentHashMap<>();
+    private final Map<String, Map<Map<String, String>, AtomicLong>> gauges = new ConcurrentHashMap<>();
+
+    private Counter resolvedCounter;
+    private AtomicLong resolvedGauge;
+
+    @Setup
+    public void setup() {
+        MeterFamily<Counter> requests = Monitors.counterFamily("dao_requests", "dao", "action", "taskType", "workflowType");
+        MeterFamily<AtomicLong> payloadSizes = Monitors.gaugeFamily("dao_payload_size", "dao", "action", "taskType", "workflowType");
+        resolvedCounter = requests.get(DAO, ACTION, TASK_TYPE, WORKFLOW_TYPE);
+        resolvedGauge = payloadSizes.get(DAO, ACTION, TASK_TYPE, WORKFLOW_TYPE);
+    }
+
+    @Benchmark
+    public void mapKeyedLookup() {
+        legacyCounter("dao_requests", "dao", DAO, "action", ACTION, "taskType", TASK_TYPE, "workflowType", WORKFLOW_TYPE).increment();
+        legacyGauge("dao_payload_size", "dao", DAO, "action", ACTION, "taskType", TASK_TYPE, "workflowType", WORKFLOW_TYPE).getAndSet(1024);
+    }
+
+    @Benchmark
+    public void monitors() {
+        Monitors.recordDaoRequests(DAO, ACTION, TASK_TYPE, WORKFLOW_TYPE);
+        Monitors.recordDaoPayloadSize(DAO, ACTION, TASK_TYPE, WORKFLOW_TYPE, 1024);
+    }
+
+    @Benchmark
+    public void resolvedMeters() {
+        resolvedCounter.increment();
+        resolvedGauge.getAndSet(1024);
+    }
+
+    private Counter legacyCounter(String name, String... tags) {
+        Map<String, String> key = toMap(tags);
+        return counters.computeIfAbsent(name, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, t -> registry.counter(registry.createId(name, key)));
+    }
+
+    private AtomicLong legacyGauge(String name, String... tags) {
+        Map<String, String> key = toMap(tags);
+        return gauges.computeIfAbsent(name, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, t -> {
+                    Id id = registry.createId(name, key).withTag("benchmark", "legacy");
+                    return registry.gauge(id, new AtomicLong(0));
+                });
+    }
+
+    private static Map<String, String> toMap(String... tags) {
+        Map<String, String> map = new HashMap<>();
+        map.put("class", Monitors.classQualifier);
+        for (int i = 0; i < tags.length - 1; i += 2) {
+            String value = "" + tags[i + 1];
+            if (!value.isEmpty()) {
+                map.put(tags[i], value);
+            }
+        }
+        return map;
+    }
+}
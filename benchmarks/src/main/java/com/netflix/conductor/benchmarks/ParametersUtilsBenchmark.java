@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.benchmarks;
+
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.execution.ParametersUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of resolving the input of a task in a workflow with the given number of completed tasks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParametersUtilsBenchmark {
+
+    @Param({"10", "200", "1000"})
+    public int completedTasks;
+
+    private ParametersUtils parametersUtils;
+    private Workflow workflow;
+    private Map<String, Object> inputTemplate;
+
+    @Setup
+    public void setup() {
+        WorkflowFixtures fixtures = new WorkflowFixtures();
+        parametersUtils = fixtures.getParametersUtils();
+        workflow = fixtures.createCompletedTasks(completedTasks);
+
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("first", "${t0.output.payload.items}");
+        nested.put("last", "${t" + (completedTasks - 1) + ".output.value}");
+        nested.put("list", Arrays.asList("${workflow.input.requestId}", "${t1.status}", 42));
+
+        inputTemplate = new HashMap<>();
+        inputTemplate.put("requestId", "${workflow.input.requestId}");
+        inputTemplate.put("summary", "workflow ${workflow.workflowId} of type ${workflow.workflowType}");
+        inputTemplate.put("constant", "no expressions here");
+        inputTemplate.put("nested", nested);
+    }
+
+    @Benchmark
+    public Map<String, Object> getTaskInput() {
+        return parametersUtils.getTaskInputV2(inputTemplate, workflow, null, null);
+    }
+}
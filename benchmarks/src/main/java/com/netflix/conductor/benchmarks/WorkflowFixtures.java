@@ -0,0 +1,321 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.common.metadata.workflow.SubWorkflowParams;
+import com.netflix.conductor.common.metadata.workflow.TaskType;
+import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
+import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.common.utils.JsonMapperProvider;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.config.SystemPropertiesConfiguration;
+import com.netflix.conductor.core.execution.DeciderService;
+import com.netflix.conductor.core.execution.ParametersUtils;
+import com.netflix.conductor.core.execution.mapper.DecisionTaskMapper;
+import com.netflix.conductor.core.execution.mapper.DynamicTaskMapper;
+import com.netflix.conductor.core.execution.mapper.EventTaskMapper;
+import com.netflix.conductor.core.execution.mapper.ForkJoinDynamicTaskMapper;
+import com.netflix.conductor.core.execution.mapper.ForkJoinTaskMapper;
+import com.netflix.conductor.core.execution.mapper.HTTPTaskMapper;
+import com.netflix.conductor.core.execution.mapper.JoinTaskMapper;
+import com.netflix.conductor.core.execution.mapper.LambdaTaskMapper;
+import com.netflix.conductor.core.execution.mapper.SimpleTaskMapper;
+import com.netflix.conductor.core.execution.mapper.SubWorkflowTaskMapper;
+import com.netflix.conductor.core.execution.mapper.TaskMapper;
+import com.netflix.conductor.core.execution.mapper.UserDefinedTaskMapper;
+import com.netflix.conductor.core.execution.mapper.WaitTaskMapper;
+import com.netflix.conductor.core.utils.DummyPayloadStorage;
+import com.netflix.conductor.core.utils.ExternalPayloadStorageUtils;
+import com.netflix.conductor.core.utils.IDGenerator;
+import com.netflix.conductor.dao.MetadataDAO;
+import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.dao.dynomite.RedisMetadataDAO;
+import com.netflix.conductor.dao.dynomite.queue.DynoQueueDAO;
+import com.netflix.conductor.dyno.DynoProxy;
+import com.netflix.conductor.jedis.JedisMock;
+import com.netflix.dyno.queues.ShardSupplier;
+import redis.clients.jedis.JedisCommands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the {@link DeciderService} against the in-memory DAOs, and synthetic workflows of the shapes to benchmark.
+ */
+public class WorkflowFixtures {
+
+    static final String TASK_NAME = "benchmark_task";
+    static final String WORKFLOW_NAME = "benchmark_workflow";
+    static final String SUB_WORKFLOW_NAME = "benchmark_sub_workflow";
+
+    public enum Shape {
+        /** A chain of simple tasks, half of which have completed. */
+        LINEAR,
+        /** A fork of as many single task branches as the size, followed by a join; not started. */
+        STATIC_FORK,
+        /** A task whose output forks as many tasks as the size through a dynamic fork, followed by a join. */
+        DYNAMIC_FORK,
+        /** A chain of sub workflow tasks, half of which have completed. */
+        SUB_WORKFLOW
+    }
+
+    private final ObjectMapper objectMapper = new JsonMapperProvider().get();
+    private final ParametersUtils parametersUtils = new ParametersUtils();
+    private final MetadataDAO metadataDAO;
+    private final DeciderService deciderService;
+    private final TaskDef taskDef;
+
+    public WorkflowFixtures() {
+        Configuration config = new SystemPropertiesConfiguration();
+        JedisCommands jedis = new JedisMock();
+        metadataDAO = new RedisMetadataDAO(new DynoProxy(jedis), objectMapper, config);
+        QueueDAO queueDAO = new DynoQueueDAO(jedis, jedis, new ShardSupplier() {
+            @Override
+            public Set<String> getQueueShards() {
+                return new HashSet<>(Collections.singletonList("a"));
+            }
+
+            @Override
+            public String getCurrentShard() {
+                return "a";
+            }
+        }, config);
+
+        taskDef = new TaskDef(TASK_NAME);
+        taskDef.setResponseTimeoutSeconds(3600);
+        metadataDAO.createTaskDef(taskDef);
+
+        WorkflowDef subWorkflowDef = new WorkflowDef();
+        subWorkflowDef.setName(SUB_WORKFLOW_NAME);
+        subWorkflowDef.setVersion(1);
+        subWorkflowDef.setTasks(Collections.singletonList(simpleTask("sub_task")));
+        metadataDAO.create(subWorkflowDef);
+
+        Map<String, TaskMapper> taskMappers = new HashMap<>();
+        taskMappers.put("DECISION", new DecisionTaskMapper());
+        taskMappers.put("DYNAMIC", new DynamicTaskMapper(parametersUtils, metadataDAO));
+        taskMappers.put("FORK_JOIN", new ForkJoinTaskMapper());
+        taskMappers.put("JOIN", new JoinTaskMapper());
+        taskMappers.put("FORK_JOIN_DYNAMIC", new ForkJoinDynamicTaskMapper(parametersUtils, objectMapper, metadataDAO));
+        taskMappers.put("USER_DEFINED", new UserDefinedTaskMapper(parametersUtils, metadataDAO));
+        taskMappers.put("SIMPLE", new SimpleTaskMapper(parametersUtils));
+        taskMappers.put("SUB_WORKFLOW", new SubWorkflowTaskMapper(parametersUtils, metadataDAO));
+        taskMappers.put("EVENT", new EventTaskMapper(parametersUtils));
+        taskMappers.put("WAIT", new WaitTaskMapper(parametersUtils));
+        taskMappers.put("HTTP", new HTTPTaskMapper(parametersUtils, metadataDAO));
+        taskMappers.put("LAMBDA", new LambdaTaskMapper(parametersUtils));
+
+        ExternalPayloadStorageUtils externalPayloadStorageUtils = new ExternalPayloadStorageUtils(new DummyPayloadStorage(), config);
+        deciderService = new DeciderService(parametersUtils, queueDAO, metadataDAO, externalPayloadStorageUtils, taskMappers);
+    }
+
+    public DeciderService getDeciderService() {
+        return deciderService;
+    }
+
+    public ParametersUtils getParametersUtils() {
+        return parametersUtils;
+    }
+
+    /**
+     * @return a running workflow of the given shape and size, to be evaluated by the decider
+     */
+    public Workflow createWorkflow(Shape shape, int size) {
+        switch (shape) {
+            case LINEAR:
+                return createChain(size, false);
+            case STATIC_FORK:
+                return createWorkflow(staticFork(size));
+            case DYNAMIC_FORK:
+                return createDynamicFork(size);
+            case SUB_WORKFLOW:
+                return createChain(size, true);
+            default:
+                throw new IllegalArgumentException("Unsupported shape: " + shape);
+        }
+    }
+
+    /**
+     * Marks the last task of the workflow as not yet processed by the decider, so that every evaluation schedules
+     * the same tasks.
+     */
+    public void reset(Workflow workflow) {
+        List<Task> tasks = workflow.getTasks();
+        if (!tasks.isEmpty()) {
+            tasks.get(tasks.size() - 1).setExecuted(false);
+        }
+    }
+
+    /**
+     * @return a workflow with the given number of completed tasks, each of which has an output
+     */
+    public Workflow createCompletedTasks(int size) {
+        Workflow workflow = createChain(size * 2, false);
+        workflow.getTasks().forEach(task -> task.setExecuted(true));
+        return workflow;
+    }
+
+    private Workflow createChain(int size, boolean subWorkflows) {
+        List<WorkflowTask> workflowTasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            WorkflowTask workflowTask = subWorkflows ? subWorkflowTask("t" + i) : simpleTask("t" + i);
+            Map<String, Object> inputParameters = new HashMap<>();
+            inputParameters.put("requestId", "${workflow.input.requestId}");
+            inputParameters.put("previous", i == 0 ? "${workflow.input.value}" : "${t" + (i - 1) + ".output.value}");
+            inputParameters.put("summary", "task " + i + " of ${workflow.workflowId}");
+            inputParameters.put("constant", Arrays.asList("a", "b", Collections.singletonMap("c", 1)));
+            workflowTask.setInputParameters(inputParameters);
+            workflowTasks.add(workflowTask);
+        }
+
+        Workflow workflow = createWorkflow(workflowTasks);
+        for (int i = 0; i < size / 2; i++) {
+            Task task = createTask(workflow, workflowTasks.get(i));
+            task.setStatus(Task.Status.COMPLETED);
+            task.setExecuted(true);
+            task.getOutputData().put("value", i);
+            task.getOutputData().put("payload", Collections.singletonMap("items", Arrays.asList(i, i + 1, i + 2)));
+            workflow.getTasks().add(task);
+        }
+        reset(workflow);
+        return workflow;
+    }
+
+    private Workflow createDynamicFork(int size) {
+        WorkflowTask prepare = simpleTask("prepare");
+
+        WorkflowTask fork = new WorkflowTask();
+        fork.setName("dynamic_fork");
+        fork.setTaskReferenceName("dynamic_fork");
+        fork.setWorkflowTaskType(TaskType.FORK_JOIN_DYNAMIC);
+        fork.setDynamicForkTasksParam("forkedTasks");
+        fork.setDynamicForkTasksInputParamName("forkedTasksInput");
+        Map<String, Object> forkInput = new HashMap<>();
+        forkInput.put("forkedTasks", "${prepare.output.forkedTasks}");
+        forkInput.put("forkedTasksInput", "${prepare.output.forkedTasksInput}");
+        fork.setInputParameters(forkInput);
+
+        WorkflowTask join = new WorkflowTask();
+        join.setName("join");
+        join.setTaskReferenceName("join");
+        join.setWorkflowTaskType(TaskType.JOIN);
+
+        Workflow workflow = createWorkflow(Arrays.asList(prepare, fork, join));
+
+        List<Map<String, Object>> forkedTasks = new ArrayList<>(size);
+        Map<String, Object> forkedTasksInput = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> forkedTask = new HashMap<>();
+            forkedTask.put("name", TASK_NAME);
+            forkedTask.put("taskReferenceName", "forked_" + i);
+            forkedTask.put("type", TaskType.SIMPLE.name());
+            forkedTasks.add(forkedTask);
+            forkedTasksInput.put("forked_" + i, Collections.singletonMap("index", i));
+        }
+        Task prepareTask = createTask(workflow, prepare);
+        prepareTask.setStatus(Task.Status.COMPLETED);
+        prepareTask.getOutputData().put("forkedTasks", forkedTasks);
+        prepareTask.getOutputData().put("forkedTasksInput", forkedTasksInput);
+        workflow.getTasks().add(prepareTask);
+        return workflow;
+    }
+
+    private List<WorkflowTask> staticFork(int size) {
+        List<List<WorkflowTask>> branches = new ArrayList<>(size);
+        List<String> joinOn = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            WorkflowTask branchTask = simpleTask("branch_" + i);
+            branchTask.setInputParameters(Collections.singletonMap("requestId", "${workflow.input.requestId}"));
+            branches.add(Collections.singletonList(branchTask));
+            joinOn.add(branchTask.getTaskReferenceName());
+        }
+        WorkflowTask fork = new WorkflowTask();
+        fork.setName("fork");
+        fork.setTaskReferenceName("fork");
+        fork.setWorkflowTaskType(TaskType.FORK_JOIN);
+        fork.setForkTasks(branches);
+
+        WorkflowTask join = new WorkflowTask();
+        join.setName("join");
+        join.setTaskReferenceName("join");
+        join.setWorkflowTaskType(TaskType.JOIN);
+        join.setJoinOn(joinOn);
+        return Arrays.asList(fork, join);
+    }
+
+    private WorkflowTask simpleTask(String refName) {
+        WorkflowTask workflowTask = new WorkflowTask();
+        workflowTask.setName(TASK_NAME);
+        workflowTask.setTaskReferenceName(refName);
+        workflowTask.setWorkflowTaskType(TaskType.SIMPLE);
+        workflowTask.setTaskDefinition(taskDef);
+        return workflowTask;
+    }
+
+    private WorkflowTask subWorkflowTask(String refName) {
+        SubWorkflowParams subWorkflowParams = new SubWorkflowParams();
+        subWorkflowParams.setName(SUB_WORKFLOW_NAME);
+        subWorkflowParams.setVersion(1);
+
+        WorkflowTask workflowTask = new WorkflowTask();
+        workflowTask.setName(refName);
+        workflowTask.setTaskReferenceName(refName);
+        workflowTask.setWorkflowTaskType(TaskType.SUB_WORKFLOW);
+        workflowTask.setSubWorkflowParam(subWorkflowParams);
+        return workflowTask;
+    }
+
+    private Workflow createWorkflow(List<WorkflowTask> workflowTasks) {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName(WORKFLOW_NAME);
+        workflowDef.setVersion(1);
+        workflowDef.setTasks(workflowTasks);
+
+        Map<String, Object> input = new HashMap<>();
+        input.put("requestId", "request_1");
+        input.put("value", 0);
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId(IDGenerator.generate());
+        workflow.setWorkflowDefinition(workflowDef);
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        workflow.setInput(input);
+        workflow.setCreateTime(System.currentTimeMillis());
+        return workflow;
+    }
+
+    private Task createTask(Workflow workflow, WorkflowTask workflowTask) {
+        Task task = new Task();
+        task.setTaskId(IDGenerator.generate());
+        task.setTaskType(workflowTask.getType());
+        task.setTaskDefName(workflowTask.getName());
+        task.setReferenceTaskName(workflowTask.getTaskReferenceName());
+        task.setWorkflowInstanceId(workflow.getWorkflowId());
+        task.setWorkflowType(workflow.getWorkflowName());
+        task.setScheduledTime(System.currentTimeMillis());
+        task.setStartTime(System.currentTimeMillis());
+        task.setEndTime(System.currentTimeMillis());
+        task.setSeq(workflow.getTasks().size() + 1);
+        return task;
+    }
+}
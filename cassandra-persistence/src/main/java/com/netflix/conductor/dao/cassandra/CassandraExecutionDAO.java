@@ -27,6 +27,7 @@ import com.netflix.conductor.common.metadata.tasks.PollData;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.core.utils.PayloadCodec;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.metrics.Monitors;
 import com.netflix.conductor.util.Statements;
@@ -42,6 +43,7 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static com.netflix.conductor.util.Constants.DAO_NAME;
 import static com.netflix.conductor.util.Constants.DEFAULT_SHARD_ID;
 import static com.netflix.conductor.util.Constants.DEFAULT_TOTAL_PARTITIONS;
 import static com.netflix.conductor.util.Constants.ENTITY_KEY;
@@ -75,9 +77,12 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
     private final PreparedStatement deleteTaskStatement;
     private final PreparedStatement deleteTaskLookupStatement;
 
+    private final PayloadCodec payloadCodec;
+
     @Inject
     public CassandraExecutionDAO(Session session, ObjectMapper objectMapper, CassandraConfiguration config, Statements statements) {
         super(session, objectMapper, config);
+        this.payloadCodec = new PayloadCodec(objectMapper, config, DAO_NAME);
 
         this.insertWorkflowStatement = session.prepare(statements.getInsertWorkflowStatement()).setConsistencyLevel(config.getWriteConsistencyLevel());
         this.insertTaskStatement = session.prepare(statements.getInsertTaskStatement()).setConsistencyLevel(config.getWriteConsistencyLevel());
@@ -142,7 +147,7 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
             // update all the tasks in the workflow using batch
             BatchStatement batchStatement = new BatchStatement();
             tasks.forEach(task -> {
-                String taskPayload = toJson(task);
+                String taskPayload = payloadCodec.encode(task);
                 batchStatement.add(insertTaskStatement.bind(UUID.fromString(workflowId), DEFAULT_SHARD_ID, task.getTaskId(), taskPayload));
                 recordCassandraDaoRequests("createTask", task.getTaskType(), task.getWorkflowType());
                 recordCassandraDaoPayloadSize("createTask", taskPayload.length(), task.getTaskType(), task.getWorkflowType());
@@ -172,7 +177,7 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
                 task.setEndTime(System.currentTimeMillis());
             }
             // TODO: calculate the shard number the task belongs to
-            String taskPayload = toJson(task);
+            String taskPayload = payloadCodec.encode(task);
             recordCassandraDaoRequests("updateTask", task.getTaskType(), task.getWorkflowType());
             recordCassandraDaoPayloadSize("updateTask", taskPayload.length(), task.getTaskType(), task.getWorkflowType());
             session.execute(insertTaskStatement.bind(UUID.fromString(task.getWorkflowInstanceId()), DEFAULT_SHARD_ID, task.getTaskId(), taskPayload));
@@ -229,9 +234,10 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
             ResultSet resultSet = session.execute(selectTaskStatement.bind(UUID.fromString(workflowId), DEFAULT_SHARD_ID, taskId));
             return Optional.ofNullable(resultSet.one())
                     .map(row -> {
-                        Task task = readValue(row.getString(PAYLOAD_KEY), Task.class);
+                        String payload = row.getString(PAYLOAD_KEY);
+                        Task task = payloadCodec.decode(payload, Task.class);
                         recordCassandraDaoRequests("getTask", task.getTaskType(), task.getWorkflowType());
-                        recordCassandraDaoPayloadSize("getTask", toJson(task).length(), task.getTaskType(), task.getWorkflowType());
+                        recordCassandraDaoPayloadSize("getTask", payload.length(), task.getTaskType(), task.getWorkflowType());
                         return task;
                     })
                     .orElse(null);
@@ -276,7 +282,7 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
             workflow.setCreateTime(System.currentTimeMillis());
             List<Task> tasks = workflow.getTasks();
             workflow.setTasks(new LinkedList<>());
-            String payload = toJson(workflow);
+            String payload = payloadCodec.encode(workflow);
 
             recordCassandraDaoRequests("createWorkflow", "n/a", workflow.getWorkflowName());
             recordCassandraDaoPayloadSize("createWorkflow", payload.length(), "n/a", workflow.getWorkflowName());
@@ -301,7 +307,7 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
             }
             List<Task> tasks = workflow.getTasks();
             workflow.setTasks(new LinkedList<>());
-            String payload = toJson(workflow);
+            String payload = payloadCodec.encode(workflow);
             recordCassandraDaoRequests("createWorkflow", "n/a", workflow.getWorkflowName());
             recordCassandraDaoPayloadSize("createWorkflow", payload.length(), "n/a", workflow.getWorkflowName());
             session.execute(updateWorkflowStatement.bind(payload, UUID.fromString(workflow.getWorkflowId())));
@@ -369,9 +375,9 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
                 for (Row row : rows) {
                     String entityKey = row.getString(ENTITY_KEY);
                     if (ENTITY_TYPE_WORKFLOW.equals(entityKey)) {
-                        workflow = readValue(row.getString(PAYLOAD_KEY), Workflow.class);
+                        workflow = payloadCodec.decode(row.getString(PAYLOAD_KEY), Workflow.class);
                     } else if (ENTITY_TYPE_TASK.equals(entityKey)) {
-                        Task task = readValue(row.getString(PAYLOAD_KEY), Task.class);
+                        Task task = payloadCodec.decode(row.getString(PAYLOAD_KEY), Task.class);
                         tasks.add(task);
                     } else {
                         throw new ApplicationException(ApplicationException.Code.INTERNAL_ERROR, String.format("Invalid row with entityKey: %s found in datastore for workflow: %s", entityKey, workflowId));
@@ -387,7 +393,7 @@ public class CassandraExecutionDAO extends CassandraBaseDAO implements Execution
                 resultSet = session.execute(selectWorkflowStatement.bind(UUID.fromString(workflowId)));
                 workflow = Optional.ofNullable(resultSet.one())
                         .map(row -> {
-                            Workflow wf = readValue(row.getString(PAYLOAD_KEY), Workflow.class);
+                            Workflow wf = payloadCodec.decode(row.getString(PAYLOAD_KEY), Workflow.class);
                             recordCassandraDaoRequests("getWorkflow", "n/a", wf.getWorkflowName());
                             return wf;
                         })
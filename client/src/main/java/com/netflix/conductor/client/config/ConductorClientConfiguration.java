@@ -49,4 +49,18 @@ public interface ConductorClientConfiguration {
      * If it is set to false, the payload is rejected and the task/workflow execution fails.
      */
     boolean isExternalPayloadStorageEnabled();
+
+    /**
+     * @return the max number of task results sent to the server in a single request by the asynchronous task update.
+     */
+    default int getTaskUpdateBatchSize() {
+        return 100;
+    }
+
+    /**
+     * @return the max time in milliseconds a task result waits to be sent to the server by the asynchronous task update.
+     */
+    default int getTaskUpdateBatchIntervalMs() {
+        return 100;
+    }
 }
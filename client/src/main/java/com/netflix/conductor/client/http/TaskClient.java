@@ -40,6 +40,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author visingh
@@ -64,8 +65,13 @@ public class TaskClient extends ClientBase {
     private static GenericType<Map<String, Integer>> queueSizeMap = new GenericType<Map<String, Integer>>() {
     };
 
+    private static GenericType<Map<String, String>> failedTasksMap = new GenericType<Map<String, String>>() {
+    };
+
     private static final Logger logger = LoggerFactory.getLogger(TaskClient.class);
 
+    private TaskUpdateBatcher taskUpdateBatcher;
+
     /**
      * Creates a default task client
      */
@@ -221,6 +227,74 @@ public class TaskClient extends ClientBase {
      * @param taskType   the type of the task
      */
     public void updateTask(TaskResult taskResult, String taskType) {
+        prepareTaskResult(taskResult, taskType);
+        postForEntityWithRequestOnly("tasks", taskResult);
+    }
+
+    /**
+     * Updates the results of a batch of task executions in a single request, the results are applied per workflow on the server.
+     * The output payload of each result is processed as in {@link #updateTask(TaskResult, String)}.
+     *
+     * @param taskResults the {@link TaskResult}s of the executed tasks to be updated.
+     * @param taskType    the type of the tasks
+     * @return the ids of the tasks which could not be updated, mapped to the reason
+     */
+    public Map<String, String> updateTasks(List<TaskResult> taskResults, String taskType) {
+        Preconditions.checkArgument(taskResults != null && !taskResults.isEmpty(), "Task results cannot be null or empty");
+        taskResults.forEach(taskResult -> prepareTaskResult(taskResult, taskType));
+        return postTaskResults(taskResults);
+    }
+
+    /**
+     * Updates the result of a task execution asynchronously. The results are buffered and sent to the server in batches,
+     * when {@link ConductorClientConfiguration#getTaskUpdateBatchSize()} results are pending or
+     * {@link ConductorClientConfiguration#getTaskUpdateBatchIntervalMs()} has elapsed.
+     * The output payload is processed as in {@link #updateTask(TaskResult, String)}, in the calling thread.
+     *
+     * @param taskResult the {@link TaskResult} of the executed task to be updated.
+     * @param taskType   the type of the task
+     * @return a future completed once the result has been applied, or completed exceptionally with a
+     * {@link ConductorClientException} if the update failed.
+     */
+    public CompletableFuture<Void> updateTaskAsync(TaskResult taskResult, String taskType) {
+        try {
+            prepareTaskResult(taskResult, taskType);
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return getTaskUpdateBatcher().submit(taskResult);
+    }
+
+    /**
+     * Sends the pending asynchronous task updates to the server and stops the background sender.
+     */
+    public void shutdown() {
+        TaskUpdateBatcher batcher;
+        synchronized (this) {
+            batcher = taskUpdateBatcher;
+            taskUpdateBatcher = null;
+        }
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private synchronized TaskUpdateBatcher getTaskUpdateBatcher() {
+        if (taskUpdateBatcher == null) {
+            taskUpdateBatcher = new TaskUpdateBatcher(this::postTaskResults,
+                    conductorClientConfiguration.getTaskUpdateBatchSize(),
+                    conductorClientConfiguration.getTaskUpdateBatchIntervalMs());
+        }
+        return taskUpdateBatcher;
+    }
+
+    private Map<String, String> postTaskResults(List<TaskResult> taskResults) {
+        return postForEntity("tasks/batch", taskResults, null, failedTasksMap);
+    }
+
+    private void prepareTaskResult(TaskResult taskResult, String taskType) {
         Preconditions.checkNotNull(taskResult, "Task result cannot be null");
         Preconditions.checkArgument(StringUtils.isBlank(taskResult.getExternalOutputPayloadStoragePath()), "External Storage Path must not be set");
 
@@ -249,7 +323,6 @@ public class TaskClient extends ClientBase {
             logger.error(errorMsg, e);
             throw new ConductorClientException(errorMsg, e);
         }
-        postForEntityWithRequestOnly("tasks", taskResult);
     }
 
     /**
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.client.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.client.exceptions.ConductorClientException;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Buffers task results and sends them to the server in batches, either when a batch is full or when the batch
+ * interval elapses.
+ */
+class TaskUpdateBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskUpdateBatcher.class);
+
+    private final Function<List<TaskResult>, Map<String, String>> updater;
+    private final int batchSize;
+    private final BlockingQueue<PendingUpdate> pendingUpdates = new LinkedBlockingQueue<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    TaskUpdateBatcher(Function<List<TaskResult>, Map<String, String>> updater, int batchSize, int batchIntervalMs) {
+        this.updater = updater;
+        this.batchSize = Math.max(1, batchSize);
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("task-update-batcher-%d").setDaemon(true).build());
+        this.executor.scheduleWithFixedDelay(this::flush, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    CompletableFuture<Void> submit(TaskResult taskResult) {
+        PendingUpdate pendingUpdate = new PendingUpdate(taskResult);
+        pendingUpdates.add(pendingUpdate);
+        if (pendingUpdates.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+        return pendingUpdate.future;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        List<PendingUpdate> batch = new ArrayList<>(batchSize);
+        while (pendingUpdates.drainTo(batch, batchSize) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<PendingUpdate> batch) {
+        List<TaskResult> taskResults = new ArrayList<>(batch.size());
+        batch.forEach(pendingUpdate -> taskResults.add(pendingUpdate.taskResult));
+        try {
+            Map<String, String> failedTasks = updater.apply(taskResults);
+            for (PendingUpdate pendingUpdate : batch) {
+                String reason = failedTasks == null ? null : failedTasks.get(pendingUpdate.taskResult.getTaskId());
+                if (reason == null) {
+                    pendingUpdate.future.complete(null);
+                } else {
+                    pendingUpdate.future.completeExceptionally(new ConductorClientException(reason));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Unable to update a batch of {} tasks", batch.size(), e);
+            batch.forEach(pendingUpdate -> pendingUpdate.future.completeExceptionally(e));
+        }
+    }
+
+    private static class PendingUpdate {
+        private final TaskResult taskResult;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingUpdate(TaskResult taskResult) {
+            this.taskResult = taskResult;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.github.vmg.protogen.annotations.ProtoMessage;
 import com.google.protobuf.Any;
 import com.netflix.conductor.common.metadata.workflow.TaskType;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
+import com.netflix.conductor.common.utils.DeepCopyUtils;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -187,6 +188,9 @@ public class Task {
     @ProtoField(id = 35)
     private String externalOutputPayloadStoragePath;
 
+    // state of the task when it was last read from or written to the execution data store
+    private transient Task persistedState;
+
     public Task() {
     }
 
@@ -666,6 +670,51 @@ public class Task {
         this.externalOutputPayloadStoragePath = externalOutputPayloadStoragePath;
     }
 
+    /**
+     * Records the current state of the task as the state held by the execution data store.
+     * Invoked when the task is read from or written to the execution data store.
+     */
+    public void markPersisted() {
+        persistedState = deepCopy();
+    }
+
+    /**
+     * @return true if the task was read from or written to the execution data store by this instance
+     */
+    public boolean wasPersisted() {
+        return persistedState != null;
+    }
+
+    /**
+     * Changes are detected by comparing every field of the task with the copy recorded by {@link #markPersisted()}.
+     * The input and output data are copied deeply, so in place changes of them are detected as well.
+     *
+     * @return true if the task was never persisted by this instance, or changed since it was last persisted
+     */
+    public boolean hasChangesToPersist() {
+        return persistedState == null || !equals(persistedState);
+    }
+
+    /**
+     * @return a copy of every field of the task, which does not share the input and output data with the task
+     */
+    public Task deepCopy() {
+        Task snapshot = copy();
+        snapshot.setInputData(DeepCopyUtils.copy(inputData));
+        snapshot.setOutputData(DeepCopyUtils.copy(outputData));
+        snapshot.setSeq(seq);
+        snapshot.setScheduledTime(scheduledTime);
+        snapshot.setStartTime(startTime);
+        snapshot.setEndTime(endTime);
+        snapshot.setUpdateTime(updateTime);
+        snapshot.setRetriedTaskId(retriedTaskId);
+        snapshot.setRetried(retried);
+        snapshot.setExecuted(executed);
+        snapshot.setReasonForIncompletion(reasonForIncompletion);
+        snapshot.setWorkerId(workerId);
+        return snapshot;
+    }
+
     public Task copy() {
         Task copy = new Task();
         copy.setCallbackAfterSeconds(callbackAfterSeconds);
@@ -18,10 +18,12 @@ import com.github.vmg.protogen.annotations.ProtoMessage;
 import com.netflix.conductor.common.metadata.Auditable;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
+import com.netflix.conductor.common.utils.DeepCopyUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -68,7 +70,7 @@ public class Workflow extends Auditable{
     private String parentWorkflowTaskId;
 
     @ProtoField(id = 6)
-    private List<Task> tasks = new LinkedList<>();
+    private List<Task> tasks = new TaskList();
 
     @ProtoField(id = 8)
     private Map<String, Object> input = new HashMap<>();
@@ -115,6 +117,9 @@ public class Workflow extends Auditable{
     @ProtoField(id = 21)
 	private String externalOutputPayloadStoragePath;
 
+	// state of the workflow, excluding its tasks, when it was last read from or written to the execution data store
+	private transient Workflow persistedState;
+
 	public Workflow(){
 
 	}
@@ -179,10 +184,10 @@ public class Workflow extends Auditable{
 		return tasks;
 	}
 	/**
-	 * @param tasks the tasks to set
+	 * @param tasks the tasks to set, copied into a list that keeps the lookup index by reference name
 	 */
 	public void setTasks(List<Task> tasks) {
-		this.tasks = tasks;
+		this.tasks = tasks == null || tasks instanceof TaskList ? tasks : new TaskList(tasks);
 	}
 
 	/**
@@ -418,19 +423,28 @@ public class Workflow extends Auditable{
 		if (refName == null) {
 			throw new RuntimeException("refName passed is null.  Check the workflow execution.  For dynamic tasks, make sure referenceTaskName is set to a not null value");
 		}
-		LinkedList<Task> found = new LinkedList<>();
-		for (Task t : tasks) {
-			if (t.getReferenceTaskName() == null) {
-				throw new RuntimeException("Task " + t.getTaskDefName() + ", seq=" + t.getSeq() + " does not have reference name specified.");
-			}
-			if (t.getReferenceTaskName().equals(refName)) {
-				found.add(t);
-			}
+		TaskList taskList = taskList();
+		Task missingRefName = taskList.missingRefName();
+		if (missingRefName != null) {
+			throw new RuntimeException("Task " + missingRefName.getTaskDefName() + ", seq=" + missingRefName.getSeq() + " does not have reference name specified.");
 		}
-		if (found.isEmpty()) {
-			return null;
+		return taskList.latestByRefName().get(refName);
+	}
+
+	/**
+	 * @param refName the reference name of the task
+	 * @param retryCount the retry count of the task
+	 * @return the task with the given reference name and retry count, or null if there is no such task
+	 */
+	public Task getTaskByRefNameAndRetryCount(String refName, int retryCount) {
+		return taskList().byRefNameAndRetryCount().get(TaskList.retryKey(refName, retryCount));
+	}
+
+	private TaskList taskList() {
+		if (!(tasks instanceof TaskList)) {
+			tasks = new TaskList(tasks);
 		}
-		return found.getLast();
+		return (TaskList) tasks;
 	}
 
 	/**
@@ -464,11 +478,177 @@ public class Workflow extends Auditable{
 		return copy;
 	}
 
+	/**
+	 * List of the tasks of a workflow which maintains an index of the tasks by reference name (and retry count).
+	 * The index is built lazily and rebuilt after any structural change of the list. Changing the reference name or
+	 * the retry count of a task already in the list does not invalidate it.
+	 */
+	private static class TaskList extends ArrayList<Task> {
+
+		private static final long serialVersionUID = 1L;
+
+		private transient int indexedModCount = -1;
+		private transient Map<String, Task> latestByRefName;
+		private transient Map<String, Task> byRefNameAndRetryCount;
+		private transient Task missingRefName;
+
+		TaskList() {
+		}
+
+		TaskList(Collection<Task> tasks) {
+			super(tasks);
+		}
+
+		static String retryKey(String refName, int retryCount) {
+			return refName + "_" + retryCount;
+		}
+
+		@Override
+		public Task set(int index, Task task) {
+			// ArrayList does not count replacements as modifications
+			modCount++;
+			return super.set(index, task);
+		}
+
+		Map<String, Task> latestByRefName() {
+			index();
+			return latestByRefName;
+		}
+
+		Map<String, Task> byRefNameAndRetryCount() {
+			index();
+			return byRefNameAndRetryCount;
+		}
+
+		Task missingRefName() {
+			index();
+			return missingRefName;
+		}
+
+		private void index() {
+			if (indexedModCount == modCount) {
+				return;
+			}
+			Map<String, Task> latest = new HashMap<>(size() * 4 / 3 + 1);
+			Map<String, Task> byRetry = new HashMap<>(size() * 4 / 3 + 1);
+			Task missing = null;
+			for (Task task : this) {
+				String refName = task.getReferenceTaskName();
+				if (refName == null) {
+					if (missing == null) {
+						missing = task;
+					}
+					continue;
+				}
+				latest.put(refName, task);
+				byRetry.put(retryKey(refName, task.getRetryCount()), task);
+			}
+			latestByRefName = latest;
+			byRefNameAndRetryCount = byRetry;
+			missingRefName = missing;
+			indexedModCount = modCount;
+		}
+	}
+
 	@Override
 	public String toString() {
         return getWorkflowName() + "." + getWorkflowVersion() + "/" + workflowId + "." + status;
 	}
 
+	/**
+	 * Records the current state of the workflow, excluding its tasks, as the state held by the execution data store.
+	 * Invoked when the workflow is read from or written to the execution data store.
+	 */
+	public void markPersisted() {
+		persistedState = deepCopyWithoutTasks();
+	}
+
+	/**
+	 * @return true if the workflow was read from or written to the execution data store by this instance
+	 */
+	public boolean wasPersisted() {
+		return persistedState != null;
+	}
+
+	/**
+	 * Changes are detected by comparing every field of the workflow, other than the tasks, with the copy recorded by
+	 * {@link #markPersisted()}. The input, output and other maps are copied deeply, so in place changes of them are
+	 * detected as well.
+	 *
+	 * @return true if the workflow was never persisted by this instance, or if its fields other than the tasks
+	 * changed since it was last persisted
+	 */
+	public boolean hasChangesToPersist() {
+		return persistedState == null || !headerEquals(persistedState);
+	}
+
+	/**
+	 * @return true if the workflow was persisted by this instance and its status changed since it was last persisted
+	 */
+	public boolean hasStatusChangedSincePersisted() {
+		return persistedState != null && status != persistedState.status;
+	}
+
+	/**
+	 * @return a copy of every field of the workflow other than the tasks, which does not share the input, output and
+	 * other maps with the workflow
+	 */
+	public Workflow deepCopyWithoutTasks() {
+		Workflow snapshot = new Workflow();
+		snapshot.status = status;
+		snapshot.endTime = endTime;
+		snapshot.workflowId = workflowId;
+		snapshot.parentWorkflowId = parentWorkflowId;
+		snapshot.parentWorkflowTaskId = parentWorkflowTaskId;
+		snapshot.input = DeepCopyUtils.copy(input);
+		snapshot.output = DeepCopyUtils.copy(output);
+		snapshot.workflowType = workflowType;
+		snapshot.version = version;
+		snapshot.correlationId = correlationId;
+		snapshot.reRunFromWorkflowId = reRunFromWorkflowId;
+		snapshot.reasonForIncompletion = reasonForIncompletion;
+		snapshot.schemaVersion = schemaVersion;
+		snapshot.event = event;
+		snapshot.taskToDomain = DeepCopyUtils.copy(taskToDomain);
+		snapshot.failedReferenceTaskNames = DeepCopyUtils.copy(failedReferenceTaskNames);
+		snapshot.workflowDefinition = workflowDefinition;
+		snapshot.externalInputPayloadStoragePath = externalInputPayloadStoragePath;
+		snapshot.externalOutputPayloadStoragePath = externalOutputPayloadStoragePath;
+		snapshot.setOwnerApp(getOwnerApp());
+		snapshot.setCreateTime(getCreateTime());
+		snapshot.setUpdateTime(getUpdateTime());
+		snapshot.setCreatedBy(getCreatedBy());
+		snapshot.setUpdatedBy(getUpdatedBy());
+		return snapshot;
+	}
+
+	private boolean headerEquals(Workflow other) {
+		return status == other.status &&
+				endTime == other.endTime &&
+				version == other.version &&
+				schemaVersion == other.schemaVersion &&
+				Objects.equals(workflowId, other.workflowId) &&
+				Objects.equals(parentWorkflowId, other.parentWorkflowId) &&
+				Objects.equals(parentWorkflowTaskId, other.parentWorkflowTaskId) &&
+				Objects.equals(input, other.input) &&
+				Objects.equals(output, other.output) &&
+				Objects.equals(workflowType, other.workflowType) &&
+				Objects.equals(correlationId, other.correlationId) &&
+				Objects.equals(reRunFromWorkflowId, other.reRunFromWorkflowId) &&
+				Objects.equals(reasonForIncompletion, other.reasonForIncompletion) &&
+				Objects.equals(event, other.event) &&
+				Objects.equals(taskToDomain, other.taskToDomain) &&
+				Objects.equals(failedReferenceTaskNames, other.failedReferenceTaskNames) &&
+				Objects.equals(workflowDefinition, other.workflowDefinition) &&
+				Objects.equals(externalInputPayloadStoragePath, other.externalInputPayloadStoragePath) &&
+				Objects.equals(externalOutputPayloadStoragePath, other.externalOutputPayloadStoragePath) &&
+				Objects.equals(getOwnerApp(), other.getOwnerApp()) &&
+				Objects.equals(getCreateTime(), other.getCreateTime()) &&
+				Objects.equals(getUpdateTime(), other.getUpdateTime()) &&
+				Objects.equals(getCreatedBy(), other.getCreatedBy()) &&
+				Objects.equals(getUpdatedBy(), other.getUpdatedBy());
+	}
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
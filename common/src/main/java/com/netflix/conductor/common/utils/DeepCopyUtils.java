@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies of the JSON-like structures (maps, lists and sets of values) held by the tasks and workflows, which do not
+ * share any map or collection with the original, so that in place changes of the original are not reflected in the
+ * copy. Other values are not copied.
+ */
+public class DeepCopyUtils {
+
+    private DeepCopyUtils() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> copy(Map<K, V> map) {
+        if (map == null) {
+            return null;
+        }
+        Map<K, V> copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        map.forEach((key, value) -> copy.put(key, (V) copyValue(value)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Set<T> copy(Set<T> set) {
+        if (set == null) {
+            return null;
+        }
+        Set<T> copy = new LinkedHashSet<>(set.size() * 4 / 3 + 1);
+        set.forEach(value -> copy.add((T) copyValue(value)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copy((Map<Object, Object>) value);
+        }
+        if (value instanceof Set) {
+            return copy((Set<Object>) value);
+        }
+        if (value instanceof Collection) {
+            List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+            ((Collection<?>) value).forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,89 @@
+package com.netflix.conductor.common.run;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WorkflowTest {
+
+    @Test
+    public void testGetTaskByRefName() throws Exception {
+        Task first = createTask("t1", 0);
+        Task retried = createTask("t1", 1);
+        Task other = createTask("t2", 0);
+
+        Workflow workflow = new Workflow();
+        workflow.setTasks(Arrays.asList(first, other));
+        assertSame(first, workflow.getTaskByRefName("t1"));
+        assertNull(workflow.getTaskByRefName("t3"));
+
+        workflow.getTasks().add(retried);
+        assertSame(retried, workflow.getTaskByRefName("t1"));
+        assertSame(first, workflow.getTaskByRefNameAndRetryCount("t1", 0));
+        assertSame(retried, workflow.getTaskByRefNameAndRetryCount("t1", 1));
+
+        workflow.getTasks().remove(retried);
+        assertSame(first, workflow.getTaskByRefName("t1"));
+        assertNull(workflow.getTaskByRefNameAndRetryCount("t1", 1));
+
+        workflow.getTasks().set(0, retried);
+        assertSame(retried, workflow.getTaskByRefName("t1"));
+
+        ObjectMapper om = new ObjectMapper();
+        Workflow read = om.readValue(om.writeValueAsString(workflow), Workflow.class);
+        assertEquals(2, read.getTasks().size());
+        assertEquals("t2", read.getTaskByRefName("t2").getReferenceTaskName());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testGetTaskByRefNameWithoutReferenceName() {
+        Workflow workflow = new Workflow();
+        workflow.getTasks().add(createTask(null, 0));
+        workflow.getTaskByRefName("t1");
+    }
+
+    @Test
+    public void testChangesToPersist() {
+        Workflow workflow = new Workflow();
+        workflow.getTasks().add(createTask("t1", 0));
+        workflow.getInput().put("list", new ArrayList<>(Arrays.asList("a", "b")));
+        workflow.markPersisted();
+        assertTrue(workflow.wasPersisted());
+        assertFalse(workflow.hasChangesToPersist());
+
+        // the tasks are persisted separately
+        workflow.getTasks().get(0).setStatus(Task.Status.COMPLETED);
+        assertFalse(workflow.hasChangesToPersist());
+
+        ((List<Object>) workflow.getInput().get("list")).add("c");
+        assertTrue(workflow.hasChangesToPersist());
+        workflow.markPersisted();
+
+        workflow.setOwnerApp("app");
+        assertTrue(workflow.hasChangesToPersist());
+        assertFalse(workflow.hasStatusChangedSincePersisted());
+        workflow.markPersisted();
+
+        workflow.setStatus(Workflow.WorkflowStatus.COMPLETED);
+        assertTrue(workflow.hasChangesToPersist());
+        assertTrue(workflow.hasStatusChangedSincePersisted());
+    }
+
+    private Task createTask(String refName, int retryCount) {
+        Task task = new Task();
+        task.setReferenceTaskName(refName);
+        task.setRetryCount(retryCount);
+        task.setStatus(Task.Status.SCHEDULED);
+        return task;
+    }
+}
@@ -24,6 +24,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -82,4 +84,27 @@ public class TaskTest {
         assertTrue(task.getTaskDefinition().isPresent());
         assertEquals(taskDefinition, task.getTaskDefinition().get());
     }
+
+    @Test
+    public void testChangesToPersist() {
+        Task task = new Task();
+        task.setStatus(Status.IN_PROGRESS);
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("key", "value");
+        task.getOutputData().put("nested", nested);
+        assertTrue(task.hasChangesToPersist());
+
+        task.markPersisted();
+        assertTrue(task.wasPersisted());
+        assertFalse(task.hasChangesToPersist());
+
+        // in place change of a nested value
+        nested.put("key", "other value");
+        assertTrue(task.hasChangesToPersist());
+        task.markPersisted();
+        assertFalse(task.hasChangesToPersist());
+
+        task.setUpdateTime(1L);
+        assertTrue(task.hasChangesToPersist());
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.contribs.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.core.config.Configuration;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provider of the non-blocking HTTP client used by the {@link HttpTask} in async mode.
+ * <p>
+ * Connections are pooled per host, with at most <code>http.task.async.max.connections.per.host</code> connections
+ * and <code>http.task.async.max.queued.per.host</code> queued requests for each host. At most
+ * <code>http.task.async.max.in.flight</code> requests are in flight on this node, and responses are buffered up to
+ * <code>http.task.async.max.response.bytes</code>, which bounds the memory used by in-flight tasks.
+ * <p>
+ * A task whose request was sent by another node is considered lost
+ * <code>http.task.async.lost.request.margin.ms</code> after the request timed out, see
+ * {@link HttpTask#execute(com.netflix.conductor.common.run.Workflow, com.netflix.conductor.common.metadata.tasks.Task, com.netflix.conductor.core.execution.WorkflowExecutor)}.
+ */
+public class AsyncRestClientManager {
+
+	static final String HTTP_TASK_ASYNC_ENABLED = "http.task.async.enabled";
+	static final String HTTP_TASK_ASYNC_MAX_CONNECTIONS_PER_HOST = "http.task.async.max.connections.per.host";
+	static final String HTTP_TASK_ASYNC_MAX_QUEUED_PER_HOST = "http.task.async.max.queued.per.host";
+	static final String HTTP_TASK_ASYNC_MAX_IN_FLIGHT = "http.task.async.max.in.flight";
+	static final String HTTP_TASK_ASYNC_MAX_RESPONSE_BYTES = "http.task.async.max.response.bytes";
+	static final String HTTP_TASK_ASYNC_CLIENT_THREADS = "http.task.async.client.threads";
+	static final String HTTP_TASK_ASYNC_COMPLETION_THREADS = "http.task.async.completion.threads";
+	static final String HTTP_TASK_ASYNC_LOST_REQUEST_MARGIN = "http.task.async.lost.request.margin.ms";
+
+	private final HttpClient httpClient;
+	private final Semaphore inFlightPermits;
+	private final ExecutorService completionExecutor;
+	private final int defaultReadTimeout;
+	private final int maxResponseBytes;
+	private final long lostRequestMargin;
+
+	public AsyncRestClientManager(Configuration config) {
+		this.defaultReadTimeout = config.getIntProperty(RestClientManager.HTTP_TASK_READ_TIMEOUT, RestClientManager.DEFAULT_READ_TIMEOUT);
+		this.maxResponseBytes = config.getIntProperty(HTTP_TASK_ASYNC_MAX_RESPONSE_BYTES, 2 * 1024 * 1024);
+		this.lostRequestMargin = config.getLongProperty(HTTP_TASK_ASYNC_LOST_REQUEST_MARGIN, 60000);
+		this.inFlightPermits = new Semaphore(config.getIntProperty(HTTP_TASK_ASYNC_MAX_IN_FLIGHT, 5000));
+
+		QueuedThreadPool clientThreads = new QueuedThreadPool(config.getIntProperty(HTTP_TASK_ASYNC_CLIENT_THREADS, 16));
+		clientThreads.setName("http-task-client");
+		clientThreads.setDaemon(true);
+
+		this.httpClient = new HttpClient();
+		this.httpClient.setExecutor(clientThreads);
+		this.httpClient.setConnectTimeout(config.getIntProperty(RestClientManager.HTTP_TASK_CONNECT_TIMEOUT, RestClientManager.DEFAULT_CONNECT_TIMEOUT));
+		this.httpClient.setMaxConnectionsPerDestination(config.getIntProperty(HTTP_TASK_ASYNC_MAX_CONNECTIONS_PER_HOST, 64));
+		this.httpClient.setMaxRequestsQueuedPerDestination(config.getIntProperty(HTTP_TASK_ASYNC_MAX_QUEUED_PER_HOST, 1024));
+		try {
+			this.httpClient.start();
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to start the async http client", e);
+		}
+
+		// task updates block on the data stores, they are kept off the threads of the http client
+		int completionThreads = config.getIntProperty(HTTP_TASK_ASYNC_COMPLETION_THREADS, 4);
+		this.completionExecutor = new ThreadPoolExecutor(completionThreads, completionThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(),
+				new ThreadFactoryBuilder().setNameFormat("http-task-completion-%d").setDaemon(true).build());
+	}
+
+	public HttpClient getClient() {
+		return httpClient;
+	}
+
+	/**
+	 * @return true if a request can be sent, in which case {@link #release()} must be called once it completes
+	 */
+	public boolean tryAcquire() {
+		return inFlightPermits.tryAcquire();
+	}
+
+	public void release() {
+		inFlightPermits.release();
+	}
+
+	public ExecutorService getCompletionExecutor() {
+		return completionExecutor;
+	}
+
+	public int getDefaultReadTimeout() {
+		return defaultReadTimeout;
+	}
+
+	public int getMaxResponseBytes() {
+		return maxResponseBytes;
+	}
+
+	public long getLostRequestMargin() {
+		return lostRequestMargin;
+	}
+}
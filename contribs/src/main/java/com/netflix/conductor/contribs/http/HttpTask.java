@@ -26,6 +26,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
@@ -34,9 +35,17 @@ import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource.Builder;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
 import com.sun.jersey.oauth.client.OAuthClientFilter;
 import com.sun.jersey.oauth.signature.OAuthParameters;
 import com.sun.jersey.oauth.signature.OAuthSecrets;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +54,13 @@ import javax.inject.Singleton;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Viren
@@ -75,6 +88,14 @@ public class HttpTask extends WorkflowSystemTask {
 	protected Configuration config;
 	
 	private String requestParameter;
+
+	private final AsyncRestClientManager asyncRcm;
+
+	// ids of the tasks with a request in flight on this node
+	private final Set<String> inFlightTasks = ConcurrentHashMap.newKeySet();
+
+	// responses of the requests sent by this node, until they are applied to their task
+	private final Map<String, TaskResult> pendingResults = new ConcurrentHashMap<>();
 	
 	@Inject
 	public HttpTask(RestClientManager rcm, Configuration config) {
@@ -82,11 +103,20 @@ public class HttpTask extends WorkflowSystemTask {
 	}
 	
 	public HttpTask(String name, RestClientManager rcm, Configuration config) {
+		this(name, rcm, config.getBooleanProperty(AsyncRestClientManager.HTTP_TASK_ASYNC_ENABLED, false) ? new AsyncRestClientManager(config) : null, config);
+	}
+
+	/**
+	 * @param asyncRcm the client used to send requests without blocking the system task workers, null to send them
+	 *                 synchronously
+	 */
+	public HttpTask(String name, RestClientManager rcm, AsyncRestClientManager asyncRcm, Configuration config) {
 		super(name);
 		this.rcm = rcm;
+		this.asyncRcm = asyncRcm;
 		this.config = config;
 		this.requestParameter = REQUEST_PARAMETER_NAME;
-		logger.info("HttpTask initialized...");
+		logger.info("HttpTask initialized{}...", asyncRcm == null ? "" : " in async mode");
 	}
 	
 	@Override
@@ -113,6 +143,12 @@ public class HttpTask extends WorkflowSystemTask {
 			task.setStatus(Status.FAILED);
 			return;
 		}
+
+		// the OAuth signature is computed by a Jersey filter, these requests are always sent synchronously
+		if(asyncRcm != null && input.getOauthConsumerKey() == null) {
+			startAsync(task, input, executor);
+			return;
+		}
 		
 		try {
 			HttpResponse response = httpCall(input);
@@ -201,8 +237,10 @@ public class HttpTask extends WorkflowSystemTask {
 	}
 
 	private Object extractBody(ClientResponse cr) {
+		return extractBody(cr.getEntity(String.class));
+	}
 
-		String json = cr.getEntity(String.class);
+	private Object extractBody(String json) {
 		logger.info(json);
 		
 		try {
@@ -224,11 +262,156 @@ public class HttpTask extends WorkflowSystemTask {
 		}
 	}
 
+	/**
+	 * Sends the request without waiting for the response: the task is put in progress and updated through the
+	 * {@link WorkflowExecutor} once the response is received. The task stays scheduled when the maximum number of
+	 * in-flight requests is reached, and is started again after its callback interval.
+	 */
+	private void startAsync(Task task, Input input, WorkflowExecutor executor) {
+		if(!asyncRcm.tryAcquire()) {
+			logger.warn("Too many http requests in flight, task {} will be retried", task.getTaskId());
+			return;
+		}
+
+		TaskResult result = new TaskResult(task);
+		result.setOutputData(new HashMap<>(task.getOutputData()));
+		task.setStatus(Status.IN_PROGRESS);
+		inFlightTasks.add(task.getTaskId());
+
+		try {
+			Request request = asyncRcm.getClient().newRequest(input.getUri())
+					.method(input.getMethod())
+					.header(HttpHeader.ACCEPT, input.getAccept())
+					.idleTimeout(getReadTimeout(input), TimeUnit.MILLISECONDS)
+					.timeout(getRequestTimeout(input), TimeUnit.MILLISECONDS);
+			input.getHeaders().forEach((name, value) -> request.header(name, String.valueOf(value)));
+			if(input.getBody() != null) {
+				String body = input.getBody() instanceof String ? (String) input.getBody() : om.writeValueAsString(input.getBody());
+				request.content(new StringContentProvider(input.getContentType(), body, StandardCharsets.UTF_8));
+			}
+			request.send(new BufferingResponseListener(asyncRcm.getMaxResponseBytes()) {
+				@Override
+				public void onComplete(Result requestResult) {
+					asyncRcm.release();
+					if(requestResult.isFailed()) {
+						logger.error(String.format("Failed to invoke http task - uri: %s", input.getUri()), requestResult.getFailure());
+						result.setStatus(TaskResult.Status.FAILED);
+						result.setReasonForIncompletion("Failed to invoke http task due to: " + requestResult.getFailure().toString());
+						result.getOutputData().put("response", requestResult.getFailure().toString());
+					} else {
+						applyResponse(result, toHttpResponse(requestResult.getResponse(), getContentAsString()));
+					}
+					pendingResults.put(result.getTaskId(), result);
+					inFlightTasks.remove(result.getTaskId());
+					asyncRcm.getCompletionExecutor().execute(() -> report(result, executor));
+				}
+			});
+		} catch(Exception e) {
+			asyncRcm.release();
+			inFlightTasks.remove(task.getTaskId());
+			logger.error(String.format("Failed to invoke http task - uri: %s", input.getUri()), e);
+			task.setStatus(Status.FAILED);
+			task.setReasonForIncompletion("Failed to invoke http task due to: " + e.toString());
+			task.getOutputData().put("response", e.toString());
+		}
+	}
+
+	private HttpResponse toHttpResponse(Response response, String content) {
+		HttpResponse httpResponse = new HttpResponse();
+		httpResponse.statusCode = response.getStatus();
+		httpResponse.reasonPhrase = response.getReason();
+		MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+		for(HttpField field : response.getHeaders()) {
+			headers.add(field.getName(), field.getValue());
+		}
+		httpResponse.headers = headers;
+		if(response.getStatus() != 204 && content != null && !content.isEmpty()) {
+			httpResponse.body = extractBody(content);
+		}
+		return httpResponse;
+	}
+
+	private void applyResponse(TaskResult result, HttpResponse response) {
+		logger.info("response {}, {}", response.statusCode, response.body);
+		if(response.statusCode > 199 && response.statusCode < 300) {
+			result.setStatus(TaskResult.Status.COMPLETED);
+		} else {
+			if(response.body != null) {
+				result.setReasonForIncompletion(response.body.toString());
+			} else {
+				result.setReasonForIncompletion("No response from the remote service");
+			}
+			result.setStatus(TaskResult.Status.FAILED);
+		}
+		result.getOutputData().put("response", response.asMap());
+	}
+
+	private void report(TaskResult result, WorkflowExecutor executor) {
+		try {
+			executor.updateTask(result);
+			pendingResults.remove(result.getTaskId());
+		} catch(Exception e) {
+			// the result is applied when the task is executed again
+			logger.error("Unable to update http task {}, it will be updated with its next execution", result.getTaskId(), e);
+		}
+	}
+
+	private int getReadTimeout(Input input) {
+		return input.getReadTimeOut() != null ? input.getReadTimeOut() : asyncRcm.getDefaultReadTimeout();
+	}
+
+	/**
+	 * @return the total timeout of a request sent in async mode
+	 */
+	private long getRequestTimeout(Input input) {
+		return asyncRcm.getClient().getConnectTimeout() + getReadTimeout(input);
+	}
+
+	/**
+	 * Applies the response of a request sent by this node in async mode, if it was received but could not be reported.
+	 * A task that is still in progress on this node without a request in flight lost its request with a restart, and
+	 * is failed so that it can be retried. A task whose request was sent by another node is failed once the request
+	 * would have timed out, with a margin for its response to be reported, in case that node is gone.
+	 */
 	@Override
 	public boolean execute(Workflow workflow, Task task, WorkflowExecutor executor) {
+		if(asyncRcm == null) {
+			return false;
+		}
+		if(!config.getServerId().equals(task.getWorkerId())) {
+			return failIfLost(task);
+		}
+		TaskResult result = pendingResults.remove(task.getTaskId());
+		if(result != null) {
+			task.setStatus(Status.valueOf(result.getStatus().name()));
+			task.setReasonForIncompletion(result.getReasonForIncompletion());
+			task.setOutputData(result.getOutputData());
+			return true;
+		}
+		if(!inFlightTasks.contains(task.getTaskId())) {
+			task.setStatus(Status.FAILED);
+			task.setReasonForIncompletion("The http request was interrupted before its response was received");
+			return true;
+		}
 		return false;
 	}
 	
+	private boolean failIfLost(Task task) {
+		Object request = task.getInputData().get(requestParameter);
+		if(request == null) {
+			return false;
+		}
+		long lastUpdate = Math.max(task.getUpdateTime(), task.getStartTime());
+		long lostAfter = getRequestTimeout(om.convertValue(request, Input.class)) + asyncRcm.getLostRequestMargin();
+		if(System.currentTimeMillis() - lastUpdate <= lostAfter) {
+			return false;
+		}
+		logger.warn("No response to the http request of task {} sent by {} within {} ms", task.getTaskId(), task.getWorkerId(), lostAfter);
+		task.setStatus(Status.FAILED);
+		task.setReasonForIncompletion("No response was reported for the http request sent by " + task.getWorkerId());
+		return true;
+	}
+
 	@Override
 	public void cancel(Workflow workflow, Task task, WorkflowExecutor executor) {
 		task.setStatus(Status.CANCELED);
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.metadata.workflow.TaskType;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
@@ -50,13 +51,19 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -357,6 +364,62 @@ public class TestHttpTask {
         assertEquals("Task output: " + task.getOutputData(), Status.COMPLETED, task.getStatus());
     }
 
+    @Test
+    public void testAsyncPost() {
+        Configuration asyncConfig = mock(Configuration.class);
+        when(asyncConfig.getServerId()).thenReturn("test_server_id");
+        when(asyncConfig.getIntProperty(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        HttpTask asyncHttpTask = new HttpTask("ASYNC_HTTP", new RestClientManager(asyncConfig), new AsyncRestClientManager(asyncConfig), asyncConfig);
+
+        Task task = new Task();
+        task.setTaskId("async_task");
+        Input input = new Input();
+        input.setUri("http://localhost:7009/post");
+        Map<String, Object> body = new HashMap<>();
+        body.put("input_key1", "value1");
+        input.setBody(body);
+        input.setMethod("POST");
+        task.getInputData().put(HttpTask.REQUEST_PARAMETER_NAME, input);
+
+        asyncHttpTask.start(workflow, task, workflowExecutor);
+        assertEquals(Task.Status.IN_PROGRESS, task.getStatus());
+
+        ArgumentCaptor<TaskResult> captor = ArgumentCaptor.forClass(TaskResult.class);
+        verify(workflowExecutor, timeout(5000)).updateTask(captor.capture());
+        TaskResult result = captor.getValue();
+        assertEquals(result.getReasonForIncompletion(), TaskResult.Status.COMPLETED, result.getStatus());
+        Map<String, Object> hr = (Map<String, Object>) result.getOutputData().get("response");
+        assertEquals(200, hr.get("statusCode"));
+        assertEquals(body, hr.get("body"));
+    }
+
+    @Test
+    public void testAsyncRequestSentByAnotherNodeIsFailedWhenLost() {
+        Configuration asyncConfig = mock(Configuration.class);
+        when(asyncConfig.getServerId()).thenReturn("test_server_id");
+        when(asyncConfig.getIntProperty(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        when(asyncConfig.getLongProperty(anyString(), anyLong())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        HttpTask asyncHttpTask = new HttpTask("ASYNC_HTTP", new RestClientManager(asyncConfig), new AsyncRestClientManager(asyncConfig), asyncConfig);
+
+        Task task = new Task();
+        task.setTaskId("async_task");
+        task.setStatus(Status.IN_PROGRESS);
+        task.setWorkerId("other_server_id");
+        Input input = new Input();
+        input.setUri("http://localhost:7009/post");
+        input.setMethod("POST");
+        task.getInputData().put(HttpTask.REQUEST_PARAMETER_NAME, input);
+
+        // still within the margin given to the other node to report the response
+        task.setUpdateTime(System.currentTimeMillis() - 30000);
+        assertFalse(asyncHttpTask.execute(workflow, task, workflowExecutor));
+        assertEquals(Status.IN_PROGRESS, task.getStatus());
+
+        task.setUpdateTime(System.currentTimeMillis() - 70000);
+        assertTrue(asyncHttpTask.execute(workflow, task, workflowExecutor));
+        assertEquals(Status.FAILED, task.getStatus());
+    }
+
     private static class EchoHandler extends AbstractHandler {
 
         private TypeReference<Map<String, Object>> mapOfObj = new TypeReference<Map<String, Object>>() {
@@ -18,19 +18,34 @@
  */
 package com.netflix.conductor.core.events;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.netflix.conductor.metrics.Monitors;
+
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 /**
+ * Evaluates the javascript expressions of event conditions, decision cases and lambda tasks.
+ * <p>
+ * Each thread evaluates on its own engine, which compiles every distinct script once and keeps the compiled scripts
+ * in a bounded LRU cache. Every evaluation runs with its own bindings.
+ *
  * @author Viren
  *
  */
 public class ScriptEvaluator {
 
-	private static ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
-	
+	private static final int MAX_COMPILED_SCRIPTS = 1000;
+
+	private static final ScriptEngineManager engineManager = new ScriptEngineManager();
+
+	private static final ThreadLocal<Evaluator> evaluators = ThreadLocal.withInitial(Evaluator::new);
+
 	private ScriptEvaluator(){
 		
 	}
@@ -47,9 +62,35 @@ public class ScriptEvaluator {
 	}
 	
 	public static Object eval(String script, Object input) throws ScriptException {
-		Bindings bindings = engine.createBindings();
-		bindings.put("$", input);
-		return engine.eval(script, bindings);
-		
+		return evaluators.get().eval(script, input);
+	}
+
+	private static class Evaluator {
+
+		private final ScriptEngine engine = engineManager.getEngineByName("nashorn");
+
+		private final Cache<String, CompiledScript> compiledScripts = CacheBuilder.newBuilder()
+				.maximumSize(MAX_COMPILED_SCRIPTS)
+				.build();
+
+		private Object eval(String script, Object input) throws ScriptException {
+			CompiledScript compiledScript = compiledScripts.getIfPresent(script);
+			if (compiledScript == null) {
+				long start = System.nanoTime();
+				compiledScript = ((Compilable) engine).compile(script);
+				Monitors.recordScriptCompileTime(System.nanoTime() - start);
+				compiledScripts.put(script, compiledScript);
+			}
+
+			// fresh bindings, so that the globals defined by a script are not visible to the next ones
+			Bindings bindings = engine.createBindings();
+			bindings.put("$", input);
+			long start = System.nanoTime();
+			try {
+				return compiledScript.eval(bindings);
+			} finally {
+				Monitors.recordScriptEvalTime(System.nanoTime() - start);
+			}
+		}
 	}
 }
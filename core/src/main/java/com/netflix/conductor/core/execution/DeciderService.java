@@ -514,6 +514,42 @@ public class DeciderService {
         return true;
     }
 
+    /**
+     * @param task a task of the workflow
+     * @return the time, in milliseconds since the epoch, at which the task is due to time out according to
+     * {@link #checkForTimeout(TaskDef, Task)} or {@link #isResponseTimedOut(TaskDef, Task)}, whichever comes first,
+     * Long.MAX_VALUE if it cannot time out. A scheduled task can be polled and started at any time, after which its
+     * timeouts apply, hence its deadline is the shortest of its timeouts from now.
+     */
+    public long getTimeoutDeadline(Task task) {
+        Optional<TaskDef> taskDefinition = task.getTaskDefinition();
+        if (!taskDefinition.isPresent()) {
+            return Long.MAX_VALUE;
+        }
+        TaskDef taskDef = taskDefinition.get();
+        long deadline = Long.MAX_VALUE;
+        if (task.getStatus().equals(SCHEDULED)) {
+            long now = System.currentTimeMillis();
+            if (taskDef.getTimeoutSeconds() > 0) {
+                deadline = now + 1000L * taskDef.getTimeoutSeconds();
+            }
+            if (taskDef.getResponseTimeoutSeconds() > 0) {
+                deadline = Math.min(deadline, now + 1000L * taskDef.getResponseTimeoutSeconds());
+            }
+            return deadline;
+        }
+        if (!task.getStatus().equals(IN_PROGRESS)) {
+            return Long.MAX_VALUE;
+        }
+        if (taskDef.getTimeoutSeconds() > 0) {
+            deadline = task.getStartTime() + ((long) task.getStartDelayInSeconds() * 1000L) + 1000L * taskDef.getTimeoutSeconds();
+        }
+        if (taskDef.getResponseTimeoutSeconds() != 0) {
+            deadline = Math.min(deadline, task.getUpdateTime() + 1000L * taskDef.getResponseTimeoutSeconds());
+        }
+        return deadline;
+    }
+
     private void timeoutTask(TaskDef taskDef, Task task) {
         String reason = "responseTimeout: " + taskDef.getResponseTimeoutSeconds() + " exceeded for the taskId: " + task.getTaskId() + " with Task Definition: " + task.getTaskDefName();
         LOGGER.debug(reason);
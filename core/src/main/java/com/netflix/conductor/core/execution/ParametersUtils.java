@@ -15,9 +15,10 @@
  */
 package com.netflix.conductor.core.execution;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
@@ -27,24 +28,32 @@ import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.common.utils.EnvUtils;
 
-import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.Set;
 
 /**
  * Used to parse and resolve the JSONPath bindings in the workflow and task definitions.
  */
 public class ParametersUtils {
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private static final Configuration JSON_PATH_CONFIGURATION = Configuration.defaultConfiguration()
+            .addOptions(Option.SUPPRESS_EXCEPTIONS);
+
+    // Parameter strings of the workflow and task definitions, parsed into literal and expression segments.
+    // Shared across instances since the parsed form depends only on the parameter string.
+    private static final Cache<String, ParameterTemplate> templates = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
 
-    private TypeReference<Map<String, Object>> map = new TypeReference<Map<String, Object>>() {
-    };
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     public ParametersUtils() {
     }
@@ -70,8 +79,6 @@ public class ParametersUtils {
             inputParams.putAll(clone(taskDefinition.getInputTemplate()));
         }
 
-        Map<String, Map<String, Object>> inputMap = new HashMap<>();
-
         Map<String, Object> workflowParams = new HashMap<>();
         workflowParams.put("input", workflow.getInput());
         workflowParams.put("output", workflow.getOutput());
@@ -85,49 +92,59 @@ public class ParametersUtils {
         workflowParams.put("reasonForIncompletion", workflow.getReasonForIncompletion());
         workflowParams.put("schemaVersion", workflow.getSchemaVersion());
 
-        inputMap.put("workflow", workflowParams);
-
         //For new workflow being started the list of tasks will be empty
-        workflow.getTasks().stream()
-                .map(Task::getReferenceTaskName)
-                .map(workflow::getTaskByRefName)
-                .forEach(task -> {
-                    Map<String, Object> taskParams = new HashMap<>();
-                    taskParams.put("input", task.getInputData());
-                    taskParams.put("output", task.getOutputData());
-                    taskParams.put("taskType", task.getTaskType());
-                    if (task.getStatus() != null) {
-                        taskParams.put("status", task.getStatus().toString());
-                    }
-                    taskParams.put("referenceTaskName", task.getReferenceTaskName());
-                    taskParams.put("retryCount", task.getRetryCount());
-                    taskParams.put("correlationId", task.getCorrelationId());
-                    taskParams.put("pollCount", task.getPollCount());
-                    taskParams.put("taskDefName", task.getTaskDefName());
-                    taskParams.put("scheduledTime", task.getScheduledTime());
-                    taskParams.put("startTime", task.getStartTime());
-                    taskParams.put("endTime", task.getEndTime());
-                    taskParams.put("workflowInstanceId", task.getWorkflowInstanceId());
-                    taskParams.put("taskId", task.getTaskId());
-                    taskParams.put("reasonForIncompletion", task.getReasonForIncompletion());
-                    taskParams.put("callbackAfterSeconds", task.getCallbackAfterSeconds());
-                    taskParams.put("workerId", task.getWorkerId());
-                    inputMap.put(task.getReferenceTaskName(), taskParams);
-                });
-
-        Configuration option = Configuration.defaultConfiguration()
-                .addOptions(Option.SUPPRESS_EXCEPTIONS);
-        DocumentContext documentContext = JsonPath.parse(inputMap, option);
+        DocumentContext documentContext = JsonPath.parse(new WorkflowParamsView(workflow, workflowParams), JSON_PATH_CONFIGURATION);
         return replace(inputParams, documentContext, taskId);
     }
 
-    //deep clone using json - POJO
+    private static Map<String, Object> getTaskParams(Task task) {
+        Map<String, Object> taskParams = new HashMap<>();
+        taskParams.put("input", task.getInputData());
+        taskParams.put("output", task.getOutputData());
+        taskParams.put("taskType", task.getTaskType());
+        if (task.getStatus() != null) {
+            taskParams.put("status", task.getStatus().toString());
+        }
+        taskParams.put("referenceTaskName", task.getReferenceTaskName());
+        taskParams.put("retryCount", task.getRetryCount());
+        taskParams.put("correlationId", task.getCorrelationId());
+        taskParams.put("pollCount", task.getPollCount());
+        taskParams.put("taskDefName", task.getTaskDefName());
+        taskParams.put("scheduledTime", task.getScheduledTime());
+        taskParams.put("startTime", task.getStartTime());
+        taskParams.put("endTime", task.getEndTime());
+        taskParams.put("workflowInstanceId", task.getWorkflowInstanceId());
+        taskParams.put("taskId", task.getTaskId());
+        taskParams.put("reasonForIncompletion", task.getReasonForIncompletion());
+        taskParams.put("callbackAfterSeconds", task.getCallbackAfterSeconds());
+        taskParams.put("workerId", task.getWorkerId());
+        return taskParams;
+    }
+
+    //deep clone of the JSON structure (maps, lists and scalars), other objects are converted through json
+    @SuppressWarnings("unchecked")
     private Map<String, Object> clone(Map<String, Object> inputTemplate) {
-        try {
+        return (Map<String, Object>) cloneValue(inputTemplate);
+    }
 
-            byte[] bytes = objectMapper.writeValueAsBytes(inputTemplate);
-            return objectMapper.readValue(bytes, map);
-        } catch (IOException e) {
+    @SuppressWarnings("unchecked")
+    private Object cloneValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Map) {
+            Map<Object, Object> source = (Map<Object, Object>) value;
+            Map<String, Object> copy = new LinkedHashMap<>(source.size() * 4 / 3 + 1);
+            source.forEach((k, v) -> copy.put(String.valueOf(k), cloneValue(v)));
+            return copy;
+        } else if (value instanceof List) {
+            List<Object> source = (List<Object>) value;
+            List<Object> copy = new ArrayList<>(source.size());
+            source.forEach(v -> copy.add(cloneValue(v)));
+            return copy;
+        }
+        try {
+            return objectMapper.convertValue(value, Object.class);
+        } catch (IllegalArgumentException e) {
             throw new RuntimeException("Unable to clone input params", e);
         }
     }
@@ -139,14 +156,12 @@ public class ParametersUtils {
         } else {
             doc = json;
         }
-        Configuration option = Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS);
-        DocumentContext documentContext = JsonPath.parse(doc, option);
+        DocumentContext documentContext = JsonPath.parse(doc, JSON_PATH_CONFIGURATION);
         return replace(input, documentContext, null);
     }
 
     public Object replace(String paramString) {
-        Configuration option = Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS);
-        DocumentContext documentContext = JsonPath.parse(Collections.emptyMap(), option);
+        DocumentContext documentContext = JsonPath.parse(Collections.emptyMap(), JSON_PATH_CONFIGURATION);
         return replaceVariables(paramString, documentContext, null);
     }
 
@@ -192,45 +207,138 @@ public class ParametersUtils {
     }
 
     private Object replaceVariables(String paramString, DocumentContext documentContext, String taskId) {
-        String[] values = paramString.split("(?=\\$\\{)|(?<=\\})");
-        Object[] convertedValues = new Object[values.length];
-        for (int i = 0; i < values.length; i++) {
-            convertedValues[i] = values[i];
-            if (values[i].startsWith("${") && values[i].endsWith("}")) {
-                String paramPath = values[i].substring(2, values[i].length() - 1);
-                if (EnvUtils.isEnvironmentVariable(paramPath)) {
-                    String sysValue = EnvUtils.getSystemParametersValue(paramPath, taskId);
-                    if (sysValue != null) {
-                        convertedValues[i] = sysValue;
-                    }
+        if (!paramString.contains("${")) {
+            return paramString;
+        }
+        ParameterTemplate template = templates.getIfPresent(paramString);
+        if (template == null) {
+            template = ParameterTemplate.parse(paramString);
+            templates.put(paramString, template);
+        }
+        return template.evaluate(documentContext, taskId);
+    }
 
-                } else {
-                    convertedValues[i] = documentContext.read(paramPath);
-                }
+    /**
+     * A parameter string split into its literal and <code>${...}</code> expression segments, with the JSONPath of
+     * each expression compiled once.
+     */
+    private static class ParameterTemplate {
+
+        private final Object[] segments;
 
+        private ParameterTemplate(Object[] segments) {
+            this.segments = segments;
+        }
+
+        static ParameterTemplate parse(String paramString) {
+            String[] values = paramString.split("(?=\\$\\{)|(?<=\\})");
+            Object[] segments = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                segments[i] = values[i];
+                if (values[i].startsWith("${") && values[i].endsWith("}")) {
+                    String paramPath = values[i].substring(2, values[i].length() - 1);
+                    if (EnvUtils.isEnvironmentVariable(paramPath)) {
+                        segments[i] = new Expression(paramPath, null);
+                    } else {
+                        segments[i] = new Expression(paramPath, JsonPath.compile(paramPath));
+                    }
+                }
             }
+            return new ParameterTemplate(segments);
         }
 
-        Object retObj = convertedValues[0];
-        // If the parameter String was "v1 v2 v3" then make sure to stitch it back
-        if (convertedValues.length > 1) {
-            for (int i = 0; i < convertedValues.length; i++) {
-                Object val = convertedValues[i];
-                if (val == null) {
-                    val = "";
+        Object evaluate(DocumentContext documentContext, String taskId) {
+            Object[] convertedValues = new Object[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                convertedValues[i] = segments[i];
+                if (segments[i] instanceof Expression) {
+                    Expression expression = (Expression) segments[i];
+                    if (expression.jsonPath == null) {
+                        String sysValue = EnvUtils.getSystemParametersValue(expression.paramPath, taskId);
+                        convertedValues[i] = sysValue != null ? sysValue : "${" + expression.paramPath + "}";
+                    } else {
+                        convertedValues[i] = documentContext.read(expression.jsonPath);
+                    }
                 }
-                if (i == 0) {
-                    retObj = val;
-                } else {
-                    retObj = retObj + "" + val.toString();
+            }
+
+            Object retObj = convertedValues[0];
+            // If the parameter String was "v1 v2 v3" then make sure to stitch it back
+            if (convertedValues.length > 1) {
+                StringBuilder stitched = new StringBuilder();
+                for (Object val : convertedValues) {
+                    if (val != null) {
+                        stitched.append(val);
+                    }
                 }
+                retObj = stitched.toString();
             }
+            return retObj;
+        }
+    }
 
+    private static class Expression {
+        private final String paramPath;
+        private final JsonPath jsonPath;
+
+        private Expression(String paramPath, JsonPath jsonPath) {
+            this.paramPath = paramPath;
+            this.jsonPath = jsonPath;
         }
-        return retObj;
     }
 
+    /**
+     * The document the JSONPath expressions of a task input are evaluated against: the parameters of the workflow
+     * under "workflow" and the parameters of each task under its reference name. The task parameters are only built
+     * for the tasks that are actually referenced.
+     */
+    private static class WorkflowParamsView extends AbstractMap<String, Object> {
+
+        private final Workflow workflow;
+        private final Map<String, Object> workflowParams;
+        private final Map<String, Map<String, Object>> taskParams = new HashMap<>();
+        private Set<Entry<String, Object>> entries;
 
+        private WorkflowParamsView(Workflow workflow, Map<String, Object> workflowParams) {
+            this.workflow = workflow;
+            this.workflowParams = workflowParams;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Map<String, Object> params = taskParams.get(key);
+            if (params == null && !taskParams.containsKey(key)) {
+                Task task = workflow.getTaskByRefName((String) key);
+                params = task == null ? null : getTaskParams(task);
+                taskParams.put((String) key, params);
+            }
+            if (params == null && "workflow".equals(key)) {
+                return workflowParams;
+            }
+            return params;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (entries == null) {
+                Map<String, Object> inputMap = new HashMap<>();
+                inputMap.put("workflow", workflowParams);
+                workflow.getTasks().stream()
+                        .map(Task::getReferenceTaskName)
+                        .forEach(refName -> inputMap.put(refName, get(refName)));
+                entries = Collections.unmodifiableMap(inputMap).entrySet();
+            }
+            return entries;
+        }
+    }
 
     @Deprecated
     //Workflow schema version 1 is deprecated and new workflows should be using version 2
@@ -17,6 +17,7 @@ import com.google.common.base.Preconditions;
 import com.netflix.conductor.annotations.Trace;
 import com.netflix.conductor.common.metadata.tasks.PollData;
 import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskExecLog;
 import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.metadata.workflow.RerunWorkflowRequest;
 import com.netflix.conductor.common.metadata.workflow.SkipTaskRequest;
@@ -32,8 +33,11 @@ import com.netflix.conductor.core.execution.tasks.SubWorkflow;
 import com.netflix.conductor.core.execution.tasks.WorkflowSystemTask;
 import com.netflix.conductor.core.metadata.MetadataMapperService;
 import com.netflix.conductor.core.orchestration.ExecutionDAOFacade;
+import com.netflix.conductor.core.orchestration.WorkflowPartitioner;
 import com.netflix.conductor.core.utils.ExternalPayloadStorageUtils;
 import com.netflix.conductor.core.utils.IDGenerator;
+import com.netflix.conductor.core.utils.LockException;
+import com.netflix.conductor.core.utils.LockProvider;
 import com.netflix.conductor.core.utils.QueueUtils;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
@@ -45,12 +49,18 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -84,12 +94,24 @@ public class WorkflowExecutor {
     private final Configuration config;
     private final MetadataMapperService metadataMapperService;
     private final ExecutionDAOFacade executionDAOFacade;
+    private final LockProvider lockProvider;
+    private final WorkflowPartitioner workflowPartitioner;
 
     private WorkflowStatusListener workflowStatusListener;
     private ExternalPayloadStorageUtils externalPayloadStorageUtils;
 
     private int activeWorkerLastPollInSecs;
+    private final boolean lockingEnabled;
+    private final long lockTimeoutMs;
+    private final boolean subWorkflowCompletionPushEnabled;
+    private final boolean sweepDeadlineSchedulingEnabled;
+    private final int sweepMaxDelaySeconds;
+
+    // workflowId -> number of decide requests received while a decide of the workflow is in flight
+    private final ConcurrentHashMap<String, Integer> decideRequests = new ConcurrentHashMap<>();
+
     public static final String DECIDER_QUEUE = "_deciderQueue";
+    public static final long WORKFLOW_COMPLETED = -1;
     private static final String className = WorkflowExecutor.class.getSimpleName();
 
     @Inject
@@ -101,6 +123,8 @@ public class WorkflowExecutor {
             WorkflowStatusListener workflowStatusListener,
             ExecutionDAOFacade executionDAOFacade,
             ExternalPayloadStorageUtils externalPayloadStorageUtils,
+            LockProvider lockProvider,
+            WorkflowPartitioner workflowPartitioner,
             Configuration config
     ) {
         this.deciderService = deciderService;
@@ -112,6 +136,19 @@ public class WorkflowExecutor {
         this.activeWorkerLastPollInSecs = config.getIntProperty("tasks.active.worker.lastpoll", 10);
         this.workflowStatusListener = workflowStatusListener;
         this.externalPayloadStorageUtils = externalPayloadStorageUtils;
+        this.lockProvider = lockProvider;
+        this.workflowPartitioner = workflowPartitioner;
+        // a node which does not own a workflow writes it and then forwards it to the owner, which must not
+        // evaluate the workflow in between
+        this.lockingEnabled = config.getBooleanProperty("workflow.decider.locking.enabled", false)
+                || workflowPartitioner.isEnabled();
+        if (workflowPartitioner.isEnabled()) {
+            LOGGER.info("Workflow locking is enabled, as required by workflow partitioning");
+        }
+        this.lockTimeoutMs = config.getLongProperty("workflow.decider.locking.timeout.ms", 500);
+        this.subWorkflowCompletionPushEnabled = config.getBooleanProperty("workflow.subworkflow.completion.push.enabled", false);
+        this.sweepDeadlineSchedulingEnabled = config.getBooleanProperty("workflow.sweeper.deadline.scheduling.enabled", false);
+        this.sweepMaxDelaySeconds = config.getIntProperty("workflow.sweeper.max.delay.seconds", 3600);
     }
 
     /**
@@ -525,12 +562,14 @@ public class WorkflowExecutor {
         workflow.setStatus(WorkflowStatus.COMPLETED);
         workflow.setOutput(wf.getOutput());
         workflow.setExternalOutputPayloadStoragePath(wf.getExternalOutputPayloadStoragePath());
-        executionDAOFacade.updateWorkflow(workflow);
-        executionDAOFacade.updateTasks(wf.getTasks());
+        // only the tasks which changed since they were read are written along with the workflow
+        executionDAOFacade.updateWorkflowAndTasks(workflow, wf.getTasks());
         LOGGER.debug("Completed workflow execution for {}", wf.getWorkflowId());
 
         // If the following task, for some reason fails, the sweep will take care of this again!
-        if (workflow.getParentWorkflowId() != null) {
+        if (workflow.getParentWorkflowId() != null && subWorkflowCompletionPushEnabled) {
+            updateParentWorkflowTask(workflow);
+        } else if (workflow.getParentWorkflowId() != null) {
             Workflow parent = executionDAOFacade.getWorkflowById(workflow.getParentWorkflowId(), false);
             WorkflowDef parentDef = Optional.ofNullable(parent.getWorkflowDefinition())
                     .orElseGet(() -> metadataDAO.get(parent.getWorkflowName(), parent.getWorkflowVersion())
@@ -581,13 +620,22 @@ public class WorkflowExecutor {
 
         String workflowId = workflow.getWorkflowId();
         workflow.setReasonForIncompletion(reason);
-        executionDAOFacade.updateWorkflow(workflow);
 
+        // Cancel the ones which are not completed yet, and write them along with the workflow.
+        // The workflow is terminal in the store before the system tasks are cancelled, so that a cancelled
+        // sub workflow deciding this workflow finds it terminated.
         List<Task> tasks = workflow.getTasks();
+        List<Task> canceledTasks = new ArrayList<>();
         for (Task task : tasks) {
             if (!task.getStatus().isTerminal()) {
-                // Cancel the ones which are not completed yet....
                 task.setStatus(CANCELED);
+                canceledTasks.add(task);
+            }
+        }
+        executionDAOFacade.updateWorkflowAndTasks(workflow, canceledTasks);
+
+        try {
+            for (Task task : canceledTasks) {
                 if (isSystemTask.test(task)) {
                     WorkflowSystemTask stt = WorkflowSystemTask.get(task.getTaskType());
                     try {
@@ -600,15 +648,22 @@ public class WorkflowExecutor {
                         );
                     }
                 }
-                executionDAOFacade.updateTask(task);
             }
-            // And remove from the task queue if they were there
+        } finally {
+            // only writes the tasks modified by their cancellation
+            executionDAOFacade.updateTasks(canceledTasks);
+        }
+
+        // And remove from the task queue if they were there
+        for (Task task : tasks) {
             queueDAO.remove(QueueUtils.getQueueName(task), task.getTaskId());
         }
 
         // If the following lines, for some reason fails, the sweep will take
         // care of this again!
-        if (workflow.getParentWorkflowId() != null) {
+        if (workflow.getParentWorkflowId() != null && subWorkflowCompletionPushEnabled) {
+            updateParentWorkflowTask(workflow);
+        } else if (workflow.getParentWorkflowId() != null) {
             Workflow parent = executionDAOFacade.getWorkflowById(workflow.getParentWorkflowId(), false);
             decide(parent.getWorkflowId());
         }
@@ -653,6 +708,65 @@ public class WorkflowExecutor {
         }
     }
 
+    /**
+     * Updates the SUB_WORKFLOW task of the parent workflow with the outcome of the given sub workflow, which reached a
+     * terminal status, then decides the parent workflow. Only the parent task is read, unless the parent workflow
+     * has failed and is resumed by the successful completion of the sub workflow.
+     *
+     * @param subWorkflow the sub workflow in a terminal status
+     * @throws ApplicationException if the parent task could not be updated, so that the sub workflow is swept again
+     */
+    @VisibleForTesting
+    void updateParentWorkflowTask(Workflow subWorkflow) {
+        Task parentTask = executionDAOFacade.getTaskById(subWorkflow.getParentWorkflowTaskId());
+        if (parentTask == null) {
+            LOGGER.warn("Task {} of parent workflow {} not found, ignoring completion of sub workflow {}",
+                    subWorkflow.getParentWorkflowTaskId(), subWorkflow.getParentWorkflowId(), subWorkflow.getWorkflowId());
+            return;
+        }
+
+        // If parent is FAILED and the sub workflow task in parent is FAILED, we want to resume them
+        if (parentTask.getStatus() == FAILED && subWorkflow.getStatus().isSuccessful()) {
+            Workflow parent = executionDAOFacade.getWorkflowById(subWorkflow.getParentWorkflowId(), false);
+            WorkflowDef parentDef = Optional.ofNullable(parent.getWorkflowDefinition())
+                    .orElseGet(() -> metadataDAO.get(parent.getWorkflowName(), parent.getWorkflowVersion())
+                            .orElseThrow(() -> new ApplicationException(NOT_FOUND, String.format("Unable to find parent workflow definition for %s", subWorkflow.getWorkflowId())))
+                    );
+            if (StringUtils.isBlank(parentDef.getFailureWorkflow()) && parent.getStatus() == WorkflowStatus.FAILED) {
+                parentTask.setStatus(IN_PROGRESS);
+                executionDAOFacade.updateTask(parentTask);
+                parent.setStatus(WorkflowStatus.RUNNING);
+                executionDAOFacade.updateWorkflow(parent);
+            }
+        }
+
+        // A task which is not stored as started yet checks the sub workflow when it is, see scheduleTask
+        if (parentTask.getStatus() != IN_PROGRESS) {
+            return;
+        }
+
+        TaskResult taskResult = new TaskResult(parentTask);
+        taskResult.getOutputData().putAll(subWorkflow.getOutput());
+        if (subWorkflow.getStatus().isSuccessful()) {
+            taskResult.setStatus(TaskResult.Status.COMPLETED);
+        } else {
+            taskResult.setStatus(TaskResult.Status.FAILED);
+            taskResult.setReasonForIncompletion(subWorkflow.getReasonForIncompletion());
+        }
+        LOGGER.debug("Sub workflow {} finished with status {}, updating task {} of parent workflow {}",
+                subWorkflow.getWorkflowId(), subWorkflow.getStatus(), parentTask.getTaskId(), subWorkflow.getParentWorkflowId());
+
+        String error = updateTasks(Collections.singletonList(taskResult)).get(parentTask.getTaskId());
+        if (error != null) {
+            throw new ApplicationException(Code.BACKEND_ERROR, String.format("Unable to update task %s of parent workflow %s: %s",
+                    parentTask.getTaskId(), subWorkflow.getParentWorkflowId(), error));
+        }
+    }
+
+    private boolean isCompletedByEvent(WorkflowSystemTask workflowSystemTask, Task task) {
+        return subWorkflowCompletionPushEnabled && workflowSystemTask.isAsyncComplete(task);
+    }
+
     /**
      * @param taskResult the task result to be updated
      * @throws ApplicationException
@@ -664,15 +778,227 @@ public class WorkflowExecutor {
         }
 
         String workflowId = taskResult.getWorkflowInstanceId();
-        Workflow workflowInstance = executionDAOFacade.getWorkflowById(workflowId, true);
+        Task task;
+        try (WorkflowLock ignored = lockWorkflow(workflowId)) {
+            task = updateTaskInWorkflow(taskResult);
+        } catch (LockException e) {
+            Monitors.recordLockFailure();
+            throw new ApplicationException(Code.BACKEND_ERROR, "Unable to update task: " + taskResult.getTaskId() + ", " + e.getMessage());
+        }
+        if (task == null) {
+            return;
+        }
+
+        try {
+            decide(workflowId);
+        } catch (RuntimeException e) {
+            // the task has been updated, the sweeper evaluates the workflow again
+            resetSweepDelay(workflowId);
+            throw e;
+        }
+        recordTaskExecutionTime(task);
+    }
+
+    /**
+     * Updates the tasks with the given results. The results are grouped by workflow: each workflow is loaded once,
+     * all of its results are applied and it is then evaluated once.
+     * <p>
+     * A result that cannot be applied does not prevent the others from being applied.
+     *
+     * @param taskResults the task results to be updated
+     * @return the ids of the tasks which could not be updated, mapped to the reason
+     */
+    public Map<String, String> updateTasks(List<TaskResult> taskResults) {
+        Map<String, String> failedTasks = new HashMap<>();
+        Map<String, List<TaskResult>> resultsByWorkflow = new LinkedHashMap<>();
+        for (TaskResult taskResult : taskResults) {
+            if (taskResult == null) {
+                continue;
+            }
+            if (taskResult.getWorkflowInstanceId() == null) {
+                failedTasks.put(taskResult.getTaskId(), "Workflow id cannot be null");
+                continue;
+            }
+            resultsByWorkflow.computeIfAbsent(taskResult.getWorkflowInstanceId(), id -> new ArrayList<>()).add(taskResult);
+        }
+        resultsByWorkflow.forEach((workflowId, results) -> updateTasksInWorkflow(workflowId, results, failedTasks));
+        return failedTasks;
+    }
+
+    private void updateTasksInWorkflow(String workflowId, List<TaskResult> taskResults, Map<String, String> failedTasks) {
+        List<Task> updatedTasks = new ArrayList<>(taskResults.size());
+        try (WorkflowLock ignored = lockWorkflow(workflowId)) {
+            Workflow workflowInstance = getWorkflowForUpdate(workflowId, taskResults.stream()
+                    .map(TaskResult::getTaskId)
+                    .collect(Collectors.toSet()));
+            try {
+                applyTaskResults(workflowId, workflowInstance, taskResults, updatedTasks, failedTasks);
+                executionDAOFacade.checkInWorkflow(workflowInstance);
+            } catch (RuntimeException e) {
+                executionDAOFacade.releaseWorkflow(workflowId);
+                throw e;
+            }
+        } catch (LockException e) {
+            Monitors.recordLockFailure();
+            taskResults.forEach(taskResult -> failedTasks.put(taskResult.getTaskId(), e.getMessage()));
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to update the tasks of workflow: {}", workflowId, e);
+            Set<String> updatedTaskIds = updatedTasks.stream().map(Task::getTaskId).collect(Collectors.toSet());
+            taskResults.stream()
+                    .filter(taskResult -> !updatedTaskIds.contains(taskResult.getTaskId()))
+                    .forEach(taskResult -> failedTasks.putIfAbsent(taskResult.getTaskId(), e.getMessage()));
+        }
+
+        if (!updatedTasks.isEmpty()) {
+            try {
+                decide(workflowId);
+            } catch (Exception e) {
+                // the tasks have been updated, the sweeper evaluates the workflow again
+                LOGGER.error("Error deciding workflow: {} after updating its tasks", workflowId, e);
+                resetSweepDelay(workflowId);
+            }
+            updatedTasks.forEach(this::recordTaskExecutionTime);
+        }
+    }
+
+    /**
+     * Applies the task results to the tasks of the workflow, collecting the results which could not be applied, then
+     * persists the updated tasks in one batch. The updated tasks are collected once they are persisted.
+     */
+    private void applyTaskResults(String workflowId, Workflow workflowInstance, List<TaskResult> taskResults,
+                                  List<Task> updatedTasks, Map<String, String> failedTasks) {
+        Map<String, Task> tasksById = workflowInstance.getTasks().stream()
+                .collect(Collectors.toMap(Task::getTaskId, Function.identity(), (first, second) -> second));
+        List<Task> appliedTasks = new ArrayList<>(taskResults.size());
+        List<TaskExecLog> logs = new ArrayList<>();
+        boolean workflowUpdated = false;
+        for (TaskResult taskResult : taskResults) {
+            try {
+                Task task = Optional.ofNullable(tasksById.get(taskResult.getTaskId()))
+                        .orElseGet(() -> executionDAOFacade.getTaskById(taskResult.getTaskId()));
+                Task updatedTask = applyTaskResult(workflowInstance, task, taskResult);
+                if (updatedTask != null) {
+                    appliedTasks.add(updatedTask);
+                    logs.addAll(taskResult.getLogs());
+                    workflowUpdated |= isFailed(updatedTask);
+                }
+            } catch (ApplicationException e) {
+                LOGGER.error("Unable to update task: {} of workflow: {}", taskResult.getTaskId(), workflowId, e);
+                failedTasks.put(taskResult.getTaskId(), e.getMessage());
+            }
+        }
+        if (appliedTasks.isEmpty()) {
+            return;
+        }
+
+        executionDAOFacade.updateTasks(appliedTasks);
+        updatedTasks.addAll(appliedTasks);
+        if (workflowUpdated) {
+            executionDAOFacade.updateWorkflow(workflowInstance);
+        }
+        if (!logs.isEmpty()) {
+            executionDAOFacade.addTaskExecLog(logs);
+        }
+        updatedTasks.forEach(this::updateTaskQueue);
+    }
+
+    /**
+     * Applies the task result to the task, while holding the lock of the workflow if locking is enabled.
+     *
+     * @return the updated task, or null if the update was ignored because the task or the workflow is terminal
+     */
+    private Task updateTaskInWorkflow(TaskResult taskResult) {
+        String workflowId = taskResult.getWorkflowInstanceId();
+        Workflow workflowInstance = getWorkflowForUpdate(workflowId, Collections.singleton(taskResult.getTaskId()));
+        try {
+            Task task = applyTaskResult(workflowInstance, getTask(workflowInstance, taskResult.getTaskId()), taskResult);
+            if (task != null) {
+                executionDAOFacade.updateTask(task);
+
+                //If the task has failed update the failed task reference name in the workflow.
+                //This gives the ability to look at workflow and see what tasks have failed at a high level.
+                if (isFailed(task)) {
+                    executionDAOFacade.updateWorkflow(workflowInstance);
+                    LOGGER.debug("Task: {} has a {} status and the Workflow has been updated with failed task reference", task, task.getStatus());
+                }
+                executionDAOFacade.addTaskExecLog(taskResult.getLogs());
+                updateTaskQueue(task);
+            }
+            executionDAOFacade.checkInWorkflow(workflowInstance);
+            return task;
+        } catch (RuntimeException e) {
+            executionDAOFacade.releaseWorkflow(workflowId);
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the workflow to be updated, see {@link ExecutionDAOFacade#checkOutWorkflow(String)}, from the data store
+     * if one of the updated tasks is still SCHEDULED in the cached workflow.
+     */
+    private Workflow getWorkflowForUpdate(String workflowId, Collection<String> taskIds) {
+        Workflow workflowInstance = executionDAOFacade.checkOutWorkflow(workflowId);
+        if (workflowPartitioner.isEnabled() && workflowInstance.getTasks().stream()
+                .anyMatch(task -> task.getStatus() == SCHEDULED && taskIds.contains(task.getTaskId()))) {
+            // a task which is updated has been polled, polls on the other nodes are not forwarded to the owner, so
+            // the cached workflow might not have the poll
+            executionDAOFacade.releaseWorkflow(workflowId);
+            workflowInstance = executionDAOFacade.checkOutWorkflow(workflowId);
+        }
 
         // FIXME Backwards compatibility for legacy workflows already running.
         // This code will be removed in a future version.
         if (workflowInstance.getWorkflowDefinition() == null) {
             workflowInstance = metadataMapperService.populateWorkflowWithDefinitions(workflowInstance);
         }
+        return workflowInstance;
+    }
+
+    /**
+     * @return the task of the workflow, so that updating it keeps the workflow valid in the workflow cache, or the task
+     * read from the data store if the workflow does not have it
+     */
+    private Task getTask(Workflow workflow, String taskId) {
+        return workflow.getTasks().stream()
+                .filter(task -> task.getTaskId().equals(taskId))
+                .findFirst()
+                .orElseGet(() -> executionDAOFacade.getTaskById(taskId));
+    }
+
+    /**
+     * Makes the workflow due to be swept after the sweep frequency, in case it was postponed until the timeout of its
+     * tasks by {@link #getSweepDelay(Workflow)}.
+     */
+    private void resetSweepDelay(String workflowId) {
+        try {
+            queueDAO.push(DECIDER_QUEUE, workflowId, config.getSweepFrequency());
+        } catch (Exception e) {
+            LOGGER.error("Unable to push workflow: {} to the decider queue", workflowId, e);
+        }
+    }
+
+    private boolean isFailed(Task task) {
+        return FAILED.equals(task.getStatus()) || FAILED_WITH_TERMINAL_ERROR.equals(task.getStatus());
+    }
+
+    private void recordTaskExecutionTime(Task task) {
+        if (task.getStatus().isTerminal()) {
+            long duration = getTaskDuration(0, task);
+            long lastDuration = task.getEndTime() - task.getStartTime();
+            Monitors.recordTaskExecutionTime(task.getTaskDefName(), duration, true, task.getStatus());
+            Monitors.recordTaskExecutionTime(task.getTaskDefName(), lastDuration, false, task.getStatus());
+        }
+    }
 
-        Task task = Optional.ofNullable(executionDAOFacade.getTaskById(taskResult.getTaskId()))
+    /**
+     * Applies the task result to the task of the workflow, in memory only: the caller persists the task and the
+     * workflow, whose failed task reference names are updated, and then the logs of the result and the task queue, see
+     * {@link #updateTaskQueue(Task)}.
+     *
+     * @return the updated task, or null if the update was ignored because the task or the workflow is terminal
+     */
+    private Task applyTaskResult(Workflow workflowInstance, Task taskToUpdate, TaskResult taskResult) {
+        Task task = Optional.ofNullable(taskToUpdate)
                 .orElseThrow(() -> new ApplicationException(Code.NOT_FOUND, "No such task found by id: " + taskResult.getTaskId()));
 
         LOGGER.debug("Task: {} belonging to Workflow {} being updated", task, workflowInstance);
@@ -683,7 +1009,7 @@ public class WorkflowExecutor {
             queueDAO.remove(taskQueueName, taskResult.getTaskId());
             LOGGER.info("Workflow: {} has already finished execution. Task update for: {} ignored and removed from Queue: {}.", workflowInstance, taskResult.getTaskId(), taskQueueName);
             Monitors.recordUpdateConflict(task.getTaskType(), workflowInstance.getWorkflowName(), workflowInstance.getStatus());
-            return;
+            return null;
         }
 
         if (task.getStatus().isTerminal()) {
@@ -691,7 +1017,7 @@ public class WorkflowExecutor {
             queueDAO.remove(taskQueueName, taskResult.getTaskId());
             LOGGER.info("Task: {} has already finished execution with status:{} at {} within workflow: {}. Removed task from queue: {}", task.getTaskId(), task.getStatus(), task.getEndTime(), workflowInstance.getWorkflowId(), taskQueueName);
             Monitors.recordUpdateConflict(task.getTaskType(), workflowInstance.getWorkflowName(), task.getStatus());
-            return;
+            return null;
         }
 
         task.setStatus(valueOf(taskResult.getStatus().name()));
@@ -710,32 +1036,34 @@ public class WorkflowExecutor {
         if (task.getStatus().isTerminal()) {
             task.setEndTime(System.currentTimeMillis());
         }
+        // an update with unchanged results still counts as a response of the worker
+        task.setUpdateTime(System.currentTimeMillis());
 
-        executionDAOFacade.updateTask(task);
-
-        //If the task has failed update the failed task reference name in the workflow.
-        //This gives the ability to look at workflow and see what tasks have failed at a high level.
-        if (FAILED.equals(task.getStatus()) || FAILED_WITH_TERMINAL_ERROR.equals(task.getStatus())) {
+        if (isFailed(task)) {
             workflowInstance.getFailedReferenceTaskNames().add(task.getReferenceTaskName());
-            executionDAOFacade.updateWorkflow(workflowInstance);
-            LOGGER.debug("Task: {} has a {} status and the Workflow has been updated with failed task reference", task, task.getStatus());
         }
 
         taskResult.getLogs().forEach(taskExecLog -> taskExecLog.setTaskId(task.getTaskId()));
-        executionDAOFacade.addTaskExecLog(taskResult.getLogs());
+        return task;
+    }
 
+    /**
+     * Removes the persisted task from its queue, or pushes it back after its callback if it is still in progress.
+     */
+    private void updateTaskQueue(Task task) {
+        String taskQueueName = QueueUtils.getQueueName(task);
         switch (task.getStatus()) {
             case COMPLETED:
             case CANCELED:
             case FAILED:
             case FAILED_WITH_TERMINAL_ERROR:
             case TIMED_OUT:
-                queueDAO.remove(taskQueueName, taskResult.getTaskId());
+                queueDAO.remove(taskQueueName, task.getTaskId());
                 LOGGER.debug("Task: {} removed from taskQueue: {} since the task status is {}", task, taskQueueName, task.getStatus().name());
                 break;
             case IN_PROGRESS:
                 // put it back in queue based on callbackAfterSeconds
-                long callBack = taskResult.getCallbackAfterSeconds();
+                long callBack = task.getCallbackAfterSeconds();
                 queueDAO.remove(taskQueueName, task.getTaskId());
                 LOGGER.debug("Task: {} removed from taskQueue: {} since the task status is {}", task, taskQueueName, task.getStatus().name());
                 queueDAO.push(taskQueueName, task.getTaskId(), callBack); // Milliseconds
@@ -744,15 +1072,6 @@ public class WorkflowExecutor {
             default:
                 break;
         }
-
-        decide(workflowId);
-
-        if (task.getStatus().isTerminal()) {
-            long duration = getTaskDuration(0, task);
-            long lastDuration = task.getEndTime() - task.getStartTime();
-            Monitors.recordTaskExecutionTime(task.getTaskDefName(), duration, true, task.getStatus());
-            Monitors.recordTaskExecutionTime(task.getTaskDefName(), lastDuration, false, task.getStatus());
-        }
     }
 
     public Task getTask(String taskId) {
@@ -761,6 +1080,15 @@ public class WorkflowExecutor {
                 .orElse(null);
     }
 
+    /**
+     * Loads the given tasks in one batch, ids of tasks that no longer exist are skipped.
+     */
+    public List<Task> getTasks(List<String> taskIds) {
+        return executionDAOFacade.getTasksByIds(taskIds).stream()
+                .map(metadataMapperService::populateTaskWithDefinition)
+                .collect(Collectors.toList());
+    }
+
     public List<Task> getTasks(String taskType, String startKey, int count) {
         return executionDAOFacade.getTasksByName(taskType, startKey, count);
     }
@@ -784,97 +1112,298 @@ public class WorkflowExecutor {
     }
 
     /**
+     * Evaluates the state of the workflow.
+     * <p>
+     * Concurrent decide requests for the same workflow are collapsed: while a decide is in flight on this node, further
+     * requests for the workflow only mark it for re-evaluation and return immediately. The in-flight evaluation re-runs
+     * once (with a freshly loaded workflow) before returning if any such request arrived in the meantime.
+     * <p>
+     * When <code>workflow.decider.locking.enabled</code> is set, or partitioning is enabled, the evaluation
+     * additionally holds the lock of the workflow from the {@link LockProvider}, so that it is not evaluated
+     * concurrently by another node.
+     *
      * @param workflowId ID of the workflow to evaluate the state for
      * @return true if the workflow has completed (success or failed), false otherwise.
      * @throws ApplicationException If there was an error - caller should retry in this case.
      */
     public boolean decide(String workflowId) {
+        if (!workflowPartitioner.isOwner(workflowId)) {
+            LOGGER.debug("Workflow: {} is owned by {}, forwarding the decide", workflowId, workflowPartitioner.getOwner(workflowId));
+            workflowPartitioner.forward(workflowId);
+            return false;
+        }
+        return decideLocally(workflowId) == WORKFLOW_COMPLETED;
+    }
+
+    /**
+     * Evaluates the state of the workflow like {@link #decide(String)}, and tells the sweeper when the workflow is due
+     * to be evaluated again.
+     * <p>
+     * This is the sweep frequency, unless <code>workflow.sweeper.deadline.scheduling.enabled</code> is set and the
+     * workflow is idle: all of its pending tasks make progress through task updates, which evaluate the workflow
+     * themselves, so that the workflow only has work to do when one of these tasks times out. The workflow is then due
+     * at the earliest timeout of its tasks, and at the latest after <code>workflow.sweeper.max.delay.seconds</code>,
+     * which bounds how long an update is not acted on if the evaluation following it was lost.
+     *
+     * <p>
+     * When {@link WorkflowPartitioner partitioning} is enabled, a workflow owned by another node is forwarded to its
+     * owner instead of being evaluated by this node, and is due again after
+     * <code>workflow.partitioning.forward.timeout.seconds</code>. If the request forwarded to the owner is still pending
+     * then, the owner is presumed down and the workflow is evaluated by this node. A request forwarded by an update of
+     * the workflow just before can also be found pending, in which case the workflow is evaluated by this node too,
+     * which is safe since ownership is only an affinity.
+     *
+     * @param workflowId ID of the workflow to evaluate the state for
+     * @return {@link #WORKFLOW_COMPLETED} if the workflow has completed (success or failed), otherwise the number of
+     * seconds after which the workflow is due to be evaluated again
+     * @throws ApplicationException If there was an error - caller should retry in this case.
+     */
+    public long decideAndGetSweepDelay(String workflowId) {
+        if (!workflowPartitioner.isOwner(workflowId)) {
+            String owner = workflowPartitioner.getOwner(workflowId);
+            if (workflowPartitioner.forward(workflowId)) {
+                LOGGER.debug("Workflow: {} is owned by {}, forwarded the sweep", workflowId, owner);
+                return workflowPartitioner.getForwardTimeoutSeconds();
+            }
+            LOGGER.warn("Decide of workflow: {} forwarded to {} is still pending, deciding it locally", workflowId, owner);
+            Monitors.recordDecideForwardTimedOut();
+        }
+        return decideLocally(workflowId);
+    }
+
+    /**
+     * Evaluates the workflow on this node, collapsing concurrent requests and holding the lock of the workflow if
+     * locking is enabled.
+     */
+    private long decideLocally(String workflowId) {
+        if (decideRequests.merge(workflowId, 0, (requests, ignored) -> requests + 1) > 0) {
+            LOGGER.debug("Decide already in progress for workflow: {}, queued a re-evaluation", workflowId);
+            Monitors.recordDecideCoalesced();
+            return config.getSweepFrequency();
+        }
+
+        boolean inFlight = true;
+        try (WorkflowLock ignored = lockWorkflow(workflowId)) {
+            long sweepDelay;
+            do {
+                sweepDelay = decideWorkflow(workflowId);
+            } while (sweepDelay != WORKFLOW_COMPLETED && (inFlight = reEvaluationRequested(workflowId)));
+            return sweepDelay;
+        } catch (LockException e) {
+            LOGGER.warn("Unable to acquire lock for workflow: {}, skipping decide", workflowId, e);
+            Monitors.recordLockFailure();
+            return config.getSweepFrequency();
+        } finally {
+            if (inFlight) {
+                decideRequests.remove(workflowId);
+            }
+        }
+    }
+
+    /**
+     * Acquires the lock of the workflow from the {@link LockProvider}, or a no-op lock if locking is disabled.
+     *
+     * @throws LockException if the lock could not be acquired within <code>workflow.decider.locking.timeout.ms</code>
+     */
+    private WorkflowLock lockWorkflow(String workflowId) throws LockException {
+        if (!lockingEnabled) {
+            return WorkflowLock.NONE;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            return new WorkflowLock(workflowId, lockProvider.lock(workflowId, lockTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (LockException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LockException("Unable to acquire lock for workflow: " + workflowId + ", " + e.getMessage());
+        } finally {
+            Monitors.recordLockWait(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Handle to the lock of a workflow, which logs rather than propagates the errors from releasing it.
+     */
+    private static class WorkflowLock implements AutoCloseable {
+
+        private static final WorkflowLock NONE = new WorkflowLock(null, null);
+
+        private final String workflowId;
+        private final AutoCloseable lock;
+
+        private WorkflowLock(String workflowId, AutoCloseable lock) {
+            this.workflowId = workflowId;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() {
+            if (lock == null) {
+                return;
+            }
+            try {
+                lock.close();
+            } catch (Exception e) {
+                LOGGER.error("Error releasing the lock for workflow: {}", workflowId, e);
+            }
+        }
+    }
+
+    /**
+     * Atomically checks whether decide was requested for the workflow while it was being evaluated.
+     * If it was not, the workflow is released so that subsequent requests are evaluated by their callers.
+     *
+     * @return true if the workflow has to be evaluated again, false if it has been released
+     */
+    private boolean reEvaluationRequested(String workflowId) {
+        return decideRequests.computeIfPresent(workflowId, (id, requests) -> requests == 0 ? null : 0) != null;
+    }
+
+    /**
+     * Loads the workflow and evaluates it until no further state changes result from the evaluation.
+     * The evaluations following a state change reuse the in-memory workflow instead of reloading it.
+     *
+     * @return {@link #WORKFLOW_COMPLETED} if the workflow has completed (success or failed), otherwise the number of
+     * seconds after which the workflow is due to be evaluated again
+     */
+    private long decideWorkflow(String workflowId) {
 
         // If it is a new workflow, the tasks will be still empty even though include tasks is true
-        Workflow workflow = executionDAOFacade.getWorkflowById(workflowId, true);
+        Workflow workflow = executionDAOFacade.checkOutWorkflow(workflowId);
+        try {
+            long sweepDelay = decideWorkflow(workflow);
+            executionDAOFacade.checkInWorkflow(workflow);
+            return sweepDelay;
+        } catch (RuntimeException e) {
+            executionDAOFacade.releaseWorkflow(workflowId);
+            throw e;
+        }
+    }
+
+    private long decideWorkflow(Workflow workflow) {
+        String workflowId = workflow.getWorkflowId();
 
         // FIXME Backwards compatibility for legacy workflows already running.
         // This code will be removed in a future version.
         workflow = metadataMapperService.populateWorkflowWithDefinitions(workflow);
 
-        try {
-            DeciderService.DeciderOutcome outcome = deciderService.decide(workflow);
-            if (outcome.isComplete) {
-                completeWorkflow(workflow);
-                return true;
-            }
-
-            List<Task> tasksToBeScheduled = outcome.tasksToBeScheduled;
-            setTaskDomains(tasksToBeScheduled, workflow);
-            List<Task> tasksToBeUpdated = outcome.tasksToBeUpdated;
-            List<Task> tasksToBeRequeued = outcome.tasksToBeRequeued;
-            boolean stateChanged = false;
+        if (subWorkflowCompletionPushEnabled && workflow.getStatus().isTerminal() && workflow.getParentWorkflowId() != null) {
+            // a terminal sub workflow is only swept again if updating its parent workflow failed
+            updateParentWorkflowTask(workflow);
+            return WORKFLOW_COMPLETED;
+        }
 
-            if (!tasksToBeRequeued.isEmpty()) {
-                addTaskToQueue(tasksToBeRequeued);
-            }
+        try {
+            boolean stateChanged;
+            do {
+                DeciderService.DeciderOutcome outcome = deciderService.decide(workflow);
+                if (outcome.isComplete) {
+                    completeWorkflow(workflow);
+                    return WORKFLOW_COMPLETED;
+                }
 
-            tasksToBeScheduled = dedupAndAddTasks(workflow, tasksToBeScheduled);
+                List<Task> tasksToBeScheduled = outcome.tasksToBeScheduled;
+                setTaskDomains(tasksToBeScheduled, workflow);
+                List<Task> tasksToBeUpdated = outcome.tasksToBeUpdated;
+                List<Task> tasksToBeRequeued = outcome.tasksToBeRequeued;
+                stateChanged = false;
 
-            for (Task task : outcome.tasksToBeScheduled) {
-                if (isSystemTask.and(isNonTerminalTask).test(task)) {
-                    WorkflowSystemTask workflowSystemTask = WorkflowSystemTask.get(task.getTaskType());
+                if (!tasksToBeRequeued.isEmpty()) {
+                    addTaskToQueue(tasksToBeRequeued);
+                }
 
-                    try {
-                        if (!workflowSystemTask.isAsync() && workflowSystemTask.execute(workflow, task, this)) {
-                            tasksToBeUpdated.add(task);
-                            stateChanged = true;
+                tasksToBeScheduled = dedupAndAddTasks(workflow, tasksToBeScheduled);
+
+                for (Task task : outcome.tasksToBeScheduled) {
+                    if (isSystemTask.and(isNonTerminalTask).test(task)) {
+                        WorkflowSystemTask workflowSystemTask = WorkflowSystemTask.get(task.getTaskType());
+
+                        try {
+                            if (!workflowSystemTask.isAsync() && !isCompletedByEvent(workflowSystemTask, task)
+                                    && workflowSystemTask.execute(workflow, task, this)) {
+                                tasksToBeUpdated.add(task);
+                                stateChanged = true;
+                            }
+                        } catch (Exception e) {
+                            throw new ApplicationException(
+                                    Code.INTERNAL_ERROR,
+                                    String.format("Unable to start system task: %s", workflowSystemTask.getName()),
+                                    e
+                            );
                         }
-                    } catch (Exception e) {
-                        throw new ApplicationException(
-                                Code.INTERNAL_ERROR,
-                                String.format("Unable to start system task: %s", workflowSystemTask.getName()),
-                                e
-                        );
                     }
                 }
-            }
 
-            if (!outcome.tasksToBeUpdated.isEmpty()) {
-                for (Task task : tasksToBeUpdated) {
-                    if (task.getStatus() != null && (!task.getStatus().equals(Task.Status.IN_PROGRESS)
-                            || !task.getStatus().equals(Task.Status.SCHEDULED))) {
-                        queueDAO.remove(QueueUtils.getQueueName(task), task.getTaskId());
+                if (!outcome.tasksToBeUpdated.isEmpty()) {
+                    for (Task task : tasksToBeUpdated) {
+                        if (task.getStatus() != null && (!task.getStatus().equals(Task.Status.IN_PROGRESS)
+                                || !task.getStatus().equals(Task.Status.SCHEDULED))) {
+                            queueDAO.remove(QueueUtils.getQueueName(task), task.getTaskId());
+                        }
                     }
                 }
-            }
-
-            if (!outcome.tasksToBeUpdated.isEmpty() || !tasksToBeScheduled.isEmpty()) {
-                executionDAOFacade.updateTasks(tasksToBeUpdated);
-                executionDAOFacade.updateWorkflow(workflow);
-                queueDAO.push(DECIDER_QUEUE, workflow.getWorkflowId(), config.getSweepFrequency());
-            }
 
-            stateChanged = scheduleTask(workflow, tasksToBeScheduled) || stateChanged;
+                if (!outcome.tasksToBeUpdated.isEmpty() || !tasksToBeScheduled.isEmpty()) {
+                    executionDAOFacade.updateTasks(tasksToBeUpdated);
+                    executionDAOFacade.updateWorkflow(workflow);
+                    queueDAO.push(DECIDER_QUEUE, workflow.getWorkflowId(), config.getSweepFrequency());
+                }
 
-            if (stateChanged) {
-                decide(workflowId);
-            }
+                stateChanged = scheduleTask(workflow, tasksToBeScheduled) || stateChanged;
+            } while (stateChanged);
 
         } catch (TerminateWorkflowException twe) {
             LOGGER.info("Execution terminated of workflow: {} of type: {}", workflowId, workflow.getWorkflowDefinition().getName(), twe);
             terminate(workflow, twe);
-            return true;
+            return WORKFLOW_COMPLETED;
         } catch (RuntimeException e) {
             LOGGER.error("Error deciding workflow: {}", workflowId, e);
             throw e;
         }
-        return false;
+        return getSweepDelay(workflow);
     }
 
+    /**
+     * @return the number of seconds after which the workflow is due to be evaluated again, see
+     * {@link #decideAndGetSweepDelay(String)}
+     */
     @VisibleForTesting
-    List<Task> dedupAndAddTasks(Workflow workflow, List<Task> tasks) {
-        List<String> tasksInWorkflow = workflow.getTasks().stream()
-                .map(task -> task.getReferenceTaskName() + "_" + task.getRetryCount())
-                .collect(Collectors.toList());
+    long getSweepDelay(Workflow workflow) {
+        long sweepFrequency = config.getSweepFrequency();
+        if (!sweepDeadlineSchedulingEnabled || !workflow.getStatus().equals(WorkflowStatus.RUNNING)) {
+            return sweepFrequency;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextDeadline = now + TimeUnit.SECONDS.toMillis(sweepMaxDelaySeconds);
+        for (Task task : workflow.getTasks()) {
+            if (task.getStatus().isTerminal()) {
+                continue;
+            }
+            if (!task.getStatus().equals(SCHEDULED) && !task.getStatus().equals(IN_PROGRESS)) {
+                return sweepFrequency;
+            }
+            if (isSystemTask.test(task)) {
+                // synchronous system tasks are executed by the evaluation of the workflow
+                WorkflowSystemTask workflowSystemTask = WorkflowSystemTask.get(task.getTaskType());
+                if (!workflowSystemTask.isAsync() && !isCompletedByEvent(workflowSystemTask, task)) {
+                    return sweepFrequency;
+                }
+            }
+            long deadline = deciderService.getTimeoutDeadline(task);
+            if (deadline <= now) {
+                // the timeout did not apply, e.g. the task only alerts or is waiting for its callback
+                return sweepFrequency;
+            }
+            nextDeadline = Math.min(nextDeadline, deadline);
+        }
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(nextDeadline - now + 999));
+    }
 
+    @VisibleForTesting
+    List<Task> dedupAndAddTasks(Workflow workflow, List<Task> tasks) {
         List<Task> dedupedTasks = tasks.stream()
-                .filter(task -> !tasksInWorkflow.contains(task.getReferenceTaskName() + "_" + task.getRetryCount()))
+                .filter(task -> workflow.getTaskByRefNameAndRetryCount(task.getReferenceTaskName(), task.getRetryCount()) == null)
                 .collect(Collectors.toList());
 
         workflow.getTasks().addAll(dedupedTasks);
@@ -1159,6 +1688,11 @@ public class WorkflowExecutor {
                 if (!workflowSystemTask.isAsync()) {
                     try {
                         workflowSystemTask.start(workflow, task, this);
+                        // the event completing the task may have occurred before the task was stored as started
+                        if (isCompletedByEvent(workflowSystemTask, task)) {
+                            executionDAOFacade.updateTask(task);
+                            workflowSystemTask.execute(workflow, task, this);
+                        }
                     } catch (Exception e) {
                         String message = String.format(
                                 "Unable to start task {id: %s, name: %s}",
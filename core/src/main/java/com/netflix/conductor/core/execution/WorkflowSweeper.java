@@ -18,9 +18,13 @@
  */
 package com.netflix.conductor.core.execution;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.netflix.conductor.core.WorkflowContext;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.ApplicationException.Code;
+import com.netflix.conductor.core.orchestration.WorkflowCache;
+import com.netflix.conductor.core.orchestration.WorkflowPartitioner;
 import com.netflix.conductor.dao.QueueDAO;
 import com.netflix.conductor.metrics.Monitors;
 import org.slf4j.Logger;
@@ -33,10 +37,20 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Sweeps the workflows in the decider queue.
+ * <p>
+ * A dispatcher thread pops workflows from the queue as soon as sweeper threads are free, up to the number of free
+ * threads. Each workflow is decided independently, hence a slow decide only holds its own thread. The depth of the
+ * queue is reported separately, every sweep frequency.
+ * <p>
+ * When {@link WorkflowPartitioner partitioning} is enabled, a second dispatcher pops the workflows forwarded to this
+ * node by the other nodes from the decider queue of this node, and decides them on the same sweeper threads.
+ *
  * @author Viren
  * @author Vikram
  *
@@ -46,24 +60,45 @@ public class WorkflowSweeper {
 
 	private static Logger logger = LoggerFactory.getLogger(WorkflowSweeper.class);
 
+	private static final long DISABLED_SWEEP_WAIT_MS = 500;
+
 	private ExecutorService executorService;
 
 	private Configuration config;
 
 	private QueueDAO queueDAO;
 
+	private WorkflowCache workflowCache;
+
+	private String localDeciderQueue;
+
 	private int executorThreadPoolSize;
 
+	private int maxBatchSize;
+
+	private int pollTimeoutMs;
+
+	// one permit per sweeper thread which is free to decide a workflow
+	private Semaphore freeWorkers;
+
 	private static final String className = WorkflowSweeper.class.getSimpleName();
 
 	@Inject
-	public WorkflowSweeper(WorkflowExecutor workflowExecutor, Configuration config, QueueDAO queueDAO) {
+	public WorkflowSweeper(WorkflowExecutor workflowExecutor, Configuration config, QueueDAO queueDAO,
+						   WorkflowPartitioner workflowPartitioner, WorkflowCache workflowCache) {
 		this.config = config;
 		this.queueDAO = queueDAO;
+		this.workflowCache = workflowCache;
+		this.localDeciderQueue = workflowPartitioner.getLocalDeciderQueue();
 		this.executorThreadPoolSize = config.getIntProperty("workflow.sweeper.thread.count", 5);
+		this.maxBatchSize = config.getIntProperty("workflow.sweeper.batch.size", 2 * executorThreadPoolSize);
+		this.pollTimeoutMs = config.getIntProperty("workflow.sweeper.poll.timeout.ms", 2000);
 		if(this.executorThreadPoolSize > 0) {
-			this.executorService = Executors.newFixedThreadPool(executorThreadPoolSize);
+			ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("workflow-sweeper-%d").build();
+			this.executorService = Executors.newFixedThreadPool(executorThreadPoolSize, threadFactory);
+			this.freeWorkers = new Semaphore(executorThreadPoolSize);
 			init(workflowExecutor);
+			startQueueDepthReporter();
 			logger.info("Workflow Sweeper Initialized");
 		} else {
 			logger.warn("Workflow sweeper is DISABLED");
@@ -72,65 +107,184 @@ public class WorkflowSweeper {
 	}
 
 	public void init(WorkflowExecutor workflowExecutor) {
-		ScheduledExecutorService deciderPool = Executors.newScheduledThreadPool(1);
-		deciderPool.scheduleWithFixedDelay(() -> {
+		startDispatcher(WorkflowExecutor.DECIDER_QUEUE, "workflow-sweeper-dispatcher", workflowExecutor);
+		if (localDeciderQueue != null) {
+			startDispatcher(localDeciderQueue, "workflow-sweeper-forwarded-dispatcher", workflowExecutor);
+		}
+	}
+
+	private void startQueueDepthReporter() {
+		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("workflow-sweeper-queue-depth").setDaemon(true).build();
+		int interval = Math.max(1, config.getSweepFrequency());
+		Executors.newSingleThreadScheduledExecutor(threadFactory).scheduleWithFixedDelay(() -> {
 			try {
-				boolean disable = config.disableSweep();
-				if (disable) {
-					logger.info("Workflow sweep is disabled.");
-					return;
+				Monitors.recordSweeperQueueDepth(queueDAO.getSize(WorkflowExecutor.DECIDER_QUEUE));
+			} catch (Exception e) {
+				Monitors.error(className, "queueDepth");
+				logger.error("Error getting the size of the decider queue", e);
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+	}
+
+	private void startDispatcher(String queueName, String threadName, WorkflowExecutor workflowExecutor) {
+		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(threadName).setDaemon(true).build();
+		Executors.newSingleThreadExecutor(threadFactory).execute(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				try {
+					if (config.disableSweep()) {
+						logger.info("Workflow sweep is disabled.");
+						Uninterruptibles.sleepUninterruptibly(DISABLED_SWEEP_WAIT_MS, TimeUnit.MILLISECONDS);
+						continue;
+					}
+					dispatch(queueName, workflowExecutor);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Exception e) {
+					Monitors.error(className, "sweep");
+					logger.error("Error when sweeping workflow", e);
+					Uninterruptibles.sleepUninterruptibly(DISABLED_SWEEP_WAIT_MS, TimeUnit.MILLISECONDS);
 				}
-				List<String> workflowIds = queueDAO.pop(WorkflowExecutor.DECIDER_QUEUE, 2 * executorThreadPoolSize, 2000);
-				int currentQueueSize = queueDAO.getSize(WorkflowExecutor.DECIDER_QUEUE);
-				logger.debug("Sweeper's current deciderqueue size: {}.", currentQueueSize);
-				int retrievedWorkflows = (workflowIds != null) ? workflowIds.size() : 0;
-				logger.debug("Sweeper retrieved {} workflows from the decider queue.", retrievedWorkflows);
+			}
+		});
+	}
 
-				sweep(workflowIds, workflowExecutor);
-			} catch (Exception e) {
-				Monitors.error(className, "sweep");
-				logger.error("Error when sweeping workflow", e);
+	/**
+	 * Waits for at least one free sweeper thread, then pops as many workflows as there are free threads (bounded by
+	 * the max batch size) and hands each of them to a sweeper thread.
+	 */
+	private void dispatch(String queueName, WorkflowExecutor workflowExecutor) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		freeWorkers.acquire();
+		int permits = 1 + freeWorkers.drainPermits();
+		Monitors.recordSweeperWorkerWait(System.currentTimeMillis() - start);
+		try {
+			int batchSize = Math.min(permits, maxBatchSize);
+			List<String> workflowIds = queueDAO.pop(queueName, batchSize, pollTimeoutMs);
+			int retrievedWorkflows = (workflowIds != null) ? workflowIds.size() : 0;
+			logger.debug("Sweeper retrieved {} workflows from the decider queue.", retrievedWorkflows);
+			if (workflowIds == null) {
+				return;
 			}
-		}, 500, 500, TimeUnit.MILLISECONDS);
+			if (!queueName.equals(WorkflowExecutor.DECIDER_QUEUE)) {
+				workflowIds.forEach(this::forwardReceived);
+			}
+
+			for (String workflowId : workflowIds) {
+				executorService.execute(() -> {
+					try {
+						if (queueName.equals(WorkflowExecutor.DECIDER_QUEUE)) {
+							sweep(workflowId, workflowExecutor);
+						} else {
+							decideForwarded(workflowId, workflowExecutor);
+						}
+					} finally {
+						freeWorkers.release();
+					}
+				});
+				permits--;
+			}
+		} finally {
+			if (permits > 0) {
+				freeWorkers.release(permits);
+			}
+		}
 	}
 
+	/**
+	 * Sweeps the given workflows on the sweeper threads, sharing them with the dispatchers: each workflow waits for a
+	 * free thread. Returns once all the workflows are swept.
+	 */
 	public void sweep(List<String> workflowIds, WorkflowExecutor workflowExecutor) throws Exception {
 
 		List<Future<?>> futures = new LinkedList<>();
 		for (String workflowId : workflowIds) {
-			Future<?> future = executorService.submit(() -> {
-				try {
-
-					WorkflowContext workflowContext = new WorkflowContext(config.getAppId());
-					WorkflowContext.set(workflowContext);
-					if(logger.isDebugEnabled()) {
-						logger.debug("Running sweeper for workflow {}", workflowId);
-					}
-					boolean done = workflowExecutor.decide(workflowId);
-					if(!done) {
-						queueDAO.setUnackTimeout(WorkflowExecutor.DECIDER_QUEUE, workflowId, config.getSweepFrequency() * 1000);
-					} else {
-						queueDAO.remove(WorkflowExecutor.DECIDER_QUEUE, workflowId);
+			freeWorkers.acquire();
+			try {
+				futures.add(executorService.submit(() -> {
+					try {
+						sweep(workflowId, workflowExecutor);
+					} finally {
+						freeWorkers.release();
 					}
+				}));
+			} catch (RuntimeException e) {
+				freeWorkers.release();
+				throw e;
+			}
+		}
 
-				} catch (ApplicationException e) {
-					if(e.getCode().equals(Code.NOT_FOUND)) {
-						logger.error("Workflow NOT found for id: " + workflowId, e);
-						queueDAO.remove(WorkflowExecutor.DECIDER_QUEUE, workflowId);
-					}
+		for (Future<?> future : futures) {
+			future.get();
+		}
 
-				} catch (Exception e) {
-					Monitors.error(className, "sweep");
-					logger.error("Error running sweep for " + workflowId, e);
+	}
+
+	private void sweep(String workflowId, WorkflowExecutor workflowExecutor) {
+		long start = System.currentTimeMillis();
+		try {
+
+			WorkflowContext workflowContext = new WorkflowContext(config.getAppId());
+			WorkflowContext.set(workflowContext);
+			if(logger.isDebugEnabled()) {
+				logger.debug("Running sweeper for workflow {}", workflowId);
+			}
+			long sweepDelay = workflowExecutor.decideAndGetSweepDelay(workflowId);
+			boolean done = sweepDelay == WorkflowExecutor.WORKFLOW_COMPLETED;
+			if(!done) {
+				if (sweepDelay > config.getSweepFrequency()) {
+					Monitors.recordSweepPostponed();
 				}
-			});
-			futures.add(future);
+				queueDAO.setUnackTimeout(WorkflowExecutor.DECIDER_QUEUE, workflowId, sweepDelay * 1000);
+			} else {
+				queueDAO.remove(WorkflowExecutor.DECIDER_QUEUE, workflowId);
+			}
+			Monitors.recordSweepDuration(System.currentTimeMillis() - start, done);
+
+		} catch (ApplicationException e) {
+			if(e.getCode().equals(Code.NOT_FOUND)) {
+				logger.error("Workflow NOT found for id: " + workflowId, e);
+				queueDAO.remove(WorkflowExecutor.DECIDER_QUEUE, workflowId);
+			}
+
+		} catch (Exception e) {
+			Monitors.error(className, "sweep");
+			logger.error("Error running sweep for " + workflowId, e);
 		}
+	}
 
-		for (Future<?> future : futures) {
-			future.get();
+	/**
+	 * Takes a workflow forwarded to this node out of its decider queue as soon as it is popped, so that changes made
+	 * from now on are forwarded again, and drops the cached workflow, which does not have the changes made by the other
+	 * node. Done when popping rather than when deciding, so that the cached workflow is not served meanwhile.
+	 */
+	private void forwardReceived(String workflowId) {
+		workflowCache.release(workflowId);
+		try {
+			queueDAO.remove(localDeciderQueue, workflowId);
+		} catch (Exception e) {
+			// the request is popped again once its unack timeout expires
+			Monitors.error(className, "forwardReceived");
+			logger.error("Error removing forwarded workflow " + workflowId, e);
 		}
+	}
 
+	/**
+	 * Decides a workflow forwarded to this node because another node changed it or was asked to decide it.
+	 */
+	private void decideForwarded(String workflowId, WorkflowExecutor workflowExecutor) {
+		try {
+			WorkflowContext.set(new WorkflowContext(config.getAppId()));
+			workflowExecutor.decide(workflowId);
+		} catch (ApplicationException e) {
+			if (!e.getCode().equals(Code.NOT_FOUND)) {
+				Monitors.error(className, "decideForwarded");
+				logger.error("Error deciding forwarded workflow " + workflowId, e);
+			}
+		} catch (Exception e) {
+			// the workflow is still swept through the decider queue
+			Monitors.error(className, "decideForwarded");
+			logger.error("Error deciding forwarded workflow " + workflowId, e);
+		}
 	}
 
 }
@@ -114,4 +114,14 @@ public class SubWorkflow extends WorkflowSystemTask {
 		return false;
 	}
 
+	/**
+	 * A started sub workflow updates this task when it reaches a terminal status, so that the sub workflow does not
+	 * have to be read every time the parent workflow is decided. Only applies when
+	 * <code>workflow.subworkflow.completion.push.enabled</code> is set.
+	 */
+	@Override
+	public boolean isAsyncComplete(Task task) {
+		return task.getStatus() == Status.IN_PROGRESS;
+	}
+
 }
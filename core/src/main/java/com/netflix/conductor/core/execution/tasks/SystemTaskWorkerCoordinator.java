@@ -18,6 +18,7 @@
  */
 package com.netflix.conductor.core.execution.tasks;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
@@ -28,19 +29,33 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Polls the queues of the async system tasks and executes the polled tasks.
+ * <p>
+ * Tasks are executed in lanes: the task types listed in <code>workflow.system.task.worker.lanes</code> get their own
+ * thread pool and work queue, so that a flood of one type does not hold up the others, and all other types share the
+ * default lane of <code>workflow.system.task.worker.thread.count</code> threads. The lanes are configured as
+ * semicolon separated groups of task types with their thread count, e.g. <code>HTTP=20;SUB_WORKFLOW,EVENT=5</code>.
+ * <p>
+ * Each task type is polled at an adaptive interval: immediately again after a full batch, every
+ * <code>workflow.system.task.worker.poll.interval</code> ms while tasks keep coming, and backing off up to
+ * <code>workflow.system.task.worker.poll.max.interval</code> ms while its queue is empty.
+ *
  * @author Viren
  *
  */
@@ -49,26 +64,33 @@ public class SystemTaskWorkerCoordinator {
 
 	private static Logger logger = LoggerFactory.getLogger(SystemTaskWorkerCoordinator.class);
 
+	static final String LANES_PROPERTY_NAME = "workflow.system.task.worker.lanes";
+
+	private static final String DEFAULT_LANE = "default";
+
 	private QueueDAO queueDAO;
 
 	private WorkflowExecutor workflowExecutor;
 
-	private ExecutorService executorService;
-
 	private int workerQueueSize;
 
 	//Number of items to poll for
 	private int pollCount;
 
-	//Interval in ms at which the polling is done
+	//Interval in ms at which the polling is done while tasks are available
 	private int pollInterval;
 
-	private LinkedBlockingQueue<Runnable> workerQueue;
+	//Interval in ms up to which the polling backs off while the queue is empty
+	private int maxPollInterval;
 
 	private int unackTimeout;
 
 	private Configuration config;
 
+	private Lane defaultLane;
+
+	private final Map<String, Lane> lanesByTaskType = new HashMap<>();
+
 	private static BlockingQueue<WorkflowSystemTask> queue = new LinkedBlockingQueue<>();
 
 	private static Set<WorkflowSystemTask> listeningTasks = new HashSet<>();
@@ -84,16 +106,19 @@ public class SystemTaskWorkerCoordinator {
 		int threadCount = config.getIntProperty("workflow.system.task.worker.thread.count", 10);
 		this.pollCount = config.getIntProperty("workflow.system.task.worker.poll.count", 10);
 		this.pollInterval = config.getIntProperty("workflow.system.task.worker.poll.interval", 50);
+		this.maxPollInterval = Math.max(pollInterval, config.getIntProperty("workflow.system.task.worker.poll.max.interval", 1000));
 		this.workerQueueSize = config.getIntProperty("workflow.system.task.worker.queue.size", 100);
-		this.workerQueue = new LinkedBlockingQueue<>(workerQueueSize);
 		if(threadCount > 0) {
-			ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("system-task-worker-%d").build();
-			this.executorService = new ThreadPoolExecutor(threadCount, threadCount,
-	                0L, TimeUnit.MILLISECONDS,
-	                workerQueue,
-	                threadFactory);
+			this.defaultLane = new Lane(DEFAULT_LANE, threadCount, workerQueueSize);
+			parseLanes(config.getProperty(LANES_PROPERTY_NAME, "")).forEach((taskTypes, laneThreadCount) -> {
+				Lane lane = new Lane(taskTypes, laneThreadCount, workerQueueSize);
+				for (String taskType : taskTypes.split(",")) {
+					lanesByTaskType.put(taskType, lane);
+				}
+				logger.info("System Task Worker lane for {} initialized with {} threads", taskTypes, laneThreadCount);
+			});
 			new Thread(this::listen).start();
-			logger.info("System Task Worker initialized with {} threads and a callback time of {} seconds and queue size: {} with pollCount: {} and poll interval: {}", threadCount, unackTimeout, workerQueueSize, pollCount, pollInterval);
+			logger.info("System Task Worker initialized with {} threads and a callback time of {} seconds and queue size: {} with pollCount: {} and poll interval: {}-{}", threadCount, unackTimeout, workerQueueSize, pollCount, pollInterval, maxPollInterval);
 		} else {
 			logger.info("System Task Worker DISABLED");
 		}
@@ -104,6 +129,38 @@ public class SystemTaskWorkerCoordinator {
 		queue.add(systemTask);
 	}
 
+	/**
+	 * @param lanes the lanes, as semicolon separated groups of comma separated task types and their thread count
+	 * @return the thread count of each lane, by the comma separated task types of the lane
+	 */
+	@VisibleForTesting
+	static Map<String, Integer> parseLanes(String lanes) {
+		Map<String, Integer> threadCounts = new LinkedHashMap<>();
+		for (String lane : lanes.split(";")) {
+			if (lane.trim().isEmpty()) {
+				continue;
+			}
+			String[] taskTypesAndThreads = lane.split("=");
+			if (taskTypesAndThreads.length != 2) {
+				throw new IllegalArgumentException("Invalid system task worker lane: " + lane);
+			}
+			String taskTypes = taskTypesAndThreads[0].replaceAll("\\s", "");
+			threadCounts.put(taskTypes, Integer.parseInt(taskTypesAndThreads[1].trim()));
+		}
+		return threadCounts;
+	}
+
+	/**
+	 * @return the delay in ms until the next poll, given the outcome of the last one
+	 */
+	@VisibleForTesting
+	static long nextPollDelay(int polled, int requested, long previousDelay, int pollInterval, int maxPollInterval) {
+		if (polled == 0) {
+			return Math.min(Math.max(previousDelay * 2, pollInterval), maxPollInterval);
+		}
+		return polled >= requested ? 0 : pollInterval;
+	}
+
 	private void listen() {
 		try {
 			//noinspection InfiniteLoopStatement
@@ -121,38 +178,82 @@ public class SystemTaskWorkerCoordinator {
 	}
 
 	private void listen(WorkflowSystemTask systemTask) {
-		Executors.newSingleThreadScheduledExecutor().scheduleWithFixedDelay(() -> pollAndExecute(systemTask), 1000, pollInterval, TimeUnit.MILLISECONDS);
-		logger.info("Started listening for system task: {}", systemTask.getName());
+		Lane lane = lanesByTaskType.getOrDefault(systemTask.getName(), defaultLane);
+		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("system-task-poller-" + systemTask.getName()).build();
+		ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		poller.schedule(() -> poll(systemTask, lane, poller, pollInterval), 1000, TimeUnit.MILLISECONDS);
+		logger.info("Started listening for system task: {} in lane: {}", systemTask.getName(), lane.name);
+	}
+
+	private void poll(WorkflowSystemTask systemTask, Lane lane, ScheduledExecutorService poller, long previousDelay) {
+		long delay = pollInterval;
+		try {
+			delay = pollAndExecute(systemTask, lane, previousDelay);
+		} finally {
+			long nextDelay = delay;
+			Monitors.recordSystemTaskWorkerPollInterval(systemTask.getName(), nextDelay);
+			poller.schedule(() -> poll(systemTask, lane, poller, nextDelay), nextDelay, TimeUnit.MILLISECONDS);
+		}
 	}
 
-	private void pollAndExecute(WorkflowSystemTask systemTask) {
+	private long pollAndExecute(WorkflowSystemTask systemTask, Lane lane, long previousDelay) {
 		String taskName = systemTask.getName();
 		try {
 			if(config.disableAsyncWorkers()) {
 				logger.warn("System Task Worker is DISABLED.  Not polling for system task: {}", taskName);
-				return;
+				return maxPollInterval;
 			}
-			// get the remaining capacity of worker queue to prevent queue full exception
-			int realPollCount = Math.min(workerQueue.remainingCapacity(), pollCount);
+			lane.recordUtilization();
+			// get the remaining capacity of the lane's queue to prevent queue full exception
+			int realPollCount = Math.min(lane.workerQueue.remainingCapacity(), pollCount);
 			if (realPollCount <= 0) {
-                logger.warn("All workers are busy, not polling. queue size: {}, max: {}, task:{}", workerQueue.size(), workerQueueSize, taskName);
-                return;
+                logger.warn("All workers are busy, not polling. queue size: {}, max: {}, task:{}, lane:{}", lane.workerQueue.size(), workerQueueSize, taskName, lane.name);
+                Monitors.recordSystemTaskWorkerPoll(taskName, "lane_full");
+                return pollInterval;
 			}
 
 			List<String> polledTaskIds = queueDAO.pop(taskName, realPollCount, 200);
 			Monitors.recordTaskPoll(taskName);
+			Monitors.recordSystemTaskWorkerPoll(taskName, polledTaskIds.isEmpty() ? "empty" : polledTaskIds.size() < realPollCount ? "partial" : "full");
 			logger.debug("Polling for {}, got {} tasks", taskName, polledTaskIds.size());
 			for(String taskId : polledTaskIds) {
 				logger.debug("Task: {} of type: {} being sent to the workflow executor", taskId, taskName);
 				try {
-					executorService.submit(()-> workflowExecutor.executeSystemTask(systemTask, taskId, unackTimeout));
+					lane.executor.submit(()-> workflowExecutor.executeSystemTask(systemTask, taskId, unackTimeout));
 				} catch(RejectedExecutionException ree) {
-					logger.warn("Queue full for workers. Size: {}, task:{}", workerQueue.size(), taskName);
+					logger.warn("Queue full for workers. Size: {}, task:{}, lane:{}", lane.workerQueue.size(), taskName, lane.name);
 				}
 			}
+			return nextPollDelay(polledTaskIds.size(), realPollCount, previousDelay, pollInterval, maxPollInterval);
 		} catch (Exception e) {
 			Monitors.error(className, "pollAndExecute");
 			logger.error("Error executing system task:{}", taskName, e);
+			return pollInterval;
+		}
+	}
+
+	/**
+	 * A thread pool and its work queue, dedicated to a group of task types.
+	 */
+	private static class Lane {
+		private final String name;
+		private final int threadCount;
+		private final LinkedBlockingQueue<Runnable> workerQueue;
+		private final ThreadPoolExecutor executor;
+
+		private Lane(String name, int threadCount, int queueSize) {
+			this.name = name;
+			this.threadCount = threadCount;
+			this.workerQueue = new LinkedBlockingQueue<>(queueSize);
+			ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("system-task-worker-" + name + "-%d").build();
+			this.executor = new ThreadPoolExecutor(threadCount, threadCount,
+					0L, TimeUnit.MILLISECONDS,
+					workerQueue,
+					threadFactory);
+		}
+
+		private void recordUtilization() {
+			Monitors.recordSystemTaskWorkerLaneUtilization(name, executor.getActiveCount() * 100L / threadCount, workerQueue.size());
 		}
 	}
-}	
+}
@@ -80,6 +80,16 @@ public class WorkflowSystemTask {
 		return false;
 	}
 	
+	/**
+	 * 
+	 * @param task Instance of the Task
+	 * @return True if the task, once started, is completed by an event such as the completion of a sub workflow,
+	 * rather than by calling {@link #execute} every time its workflow is decided.
+	 */
+	public boolean isAsyncComplete(Task task) {
+		return false;
+	}
+	
 	/**
 	 * 
 	 * @return Time in seconds after which the task should be retried if rate limited or remains in in_progress after start method execution. 
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.metadata;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.events.EventHandler;
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
+import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.core.execution.ApplicationException.Code;
+import com.netflix.conductor.dao.MetadataDAO;
+import com.netflix.conductor.metrics.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Caching layer in front of a {@link MetadataDAO}, for the lookups on the execution path: workflow definitions by
+ * name and version, the latest version of a workflow and the event handlers of an event.
+ * <p>
+ * Entries are never expired. Any change made through this node drops the cache and is published through the
+ * {@link MetadataChangeNotifier}, which drops the cache of the other nodes. Task definitions and the listing methods
+ * are passed through to the underlying {@link MetadataDAO}.
+ * <p>
+ * Workflow definitions are kept serialized and a new instance is returned by each lookup, since callers populate the
+ * returned definition with task definitions and sub workflow versions.
+ */
+public class CachingMetadataDAO implements MetadataDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingMetadataDAO.class);
+
+    private final MetadataDAO metadataDAO;
+    private final MetadataChangeNotifier changeNotifier;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    public CachingMetadataDAO(MetadataDAO metadataDAO, MetadataChangeNotifier changeNotifier, ObjectMapper objectMapper) {
+        this.metadataDAO = metadataDAO;
+        this.changeNotifier = changeNotifier;
+        this.objectMapper = objectMapper;
+        changeNotifier.subscribe(this::invalidate);
+    }
+
+    @Override
+    public String createTaskDef(TaskDef taskDef) {
+        return metadataDAO.createTaskDef(taskDef);
+    }
+
+    @Override
+    public String updateTaskDef(TaskDef taskDef) {
+        return metadataDAO.updateTaskDef(taskDef);
+    }
+
+    @Override
+    public TaskDef getTaskDef(String name) {
+        return metadataDAO.getTaskDef(name);
+    }
+
+    @Override
+    public List<TaskDef> getAllTaskDefs() {
+        return metadataDAO.getAllTaskDefs();
+    }
+
+    @Override
+    public void removeTaskDef(String name) {
+        metadataDAO.removeTaskDef(name);
+    }
+
+    @Override
+    public void create(WorkflowDef def) {
+        try {
+            metadataDAO.create(def);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public void update(WorkflowDef def) {
+        try {
+            metadataDAO.update(def);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Optional<WorkflowDef> getLatest(String name) {
+        Snapshot current = snapshot;
+        Integer latestVersion = current.latestVersions.get(name);
+        if (latestVersion != null) {
+            byte[] definition = current.definitions.get(key(name, latestVersion));
+            if (definition != null) {
+                return Optional.of(readWorkflowDef(definition));
+            }
+        }
+
+        Monitors.recordMetadataCacheMiss("latestWorkflowDef");
+        Optional<WorkflowDef> workflowDef = metadataDAO.getLatest(name);
+        workflowDef.ifPresent(def -> {
+            current.definitions.put(key(name, def.getVersion()), writeWorkflowDef(def));
+            current.latestVersions.put(name, def.getVersion());
+        });
+        return workflowDef;
+    }
+
+    @Override
+    public Optional<WorkflowDef> get(String name, int version) {
+        Snapshot current = snapshot;
+        byte[] definition = current.definitions.get(key(name, version));
+        if (definition != null) {
+            return Optional.of(readWorkflowDef(definition));
+        }
+
+        Monitors.recordMetadataCacheMiss("workflowDef");
+        Optional<WorkflowDef> workflowDef = metadataDAO.get(name, version);
+        workflowDef.ifPresent(def -> current.definitions.put(key(name, version), writeWorkflowDef(def)));
+        return workflowDef;
+    }
+
+    @Override
+    public void removeWorkflowDef(String name, Integer version) {
+        try {
+            metadataDAO.removeWorkflowDef(name, version);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<String> findAll() {
+        return metadataDAO.findAll();
+    }
+
+    @Override
+    public List<WorkflowDef> getAll() {
+        return metadataDAO.getAll();
+    }
+
+    @Override
+    public List<WorkflowDef> getAllVersions(String name) {
+        return metadataDAO.getAllVersions(name);
+    }
+
+    @Override
+    public void addEventHandler(EventHandler eventHandler) {
+        try {
+            metadataDAO.addEventHandler(eventHandler);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public void updateEventHandler(EventHandler eventHandler) {
+        try {
+            metadataDAO.updateEventHandler(eventHandler);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public void removeEventHandlerStatus(String name) {
+        try {
+            metadataDAO.removeEventHandlerStatus(name);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<EventHandler> getEventHandlers() {
+        return metadataDAO.getEventHandlers();
+    }
+
+    @Override
+    public List<EventHandler> getEventHandlersForEvent(String event, boolean activeOnly) {
+        Snapshot current = snapshot;
+        List<EventHandler> eventHandlers = current.eventHandlersByEvent.get(event);
+        if (eventHandlers == null) {
+            Monitors.recordMetadataCacheMiss("eventHandlers");
+            eventHandlers = Collections.unmodifiableList(metadataDAO.getEventHandlersForEvent(event, false));
+            current.eventHandlersByEvent.put(event, eventHandlers);
+        }
+        return eventHandlers.stream()
+                .filter(eventHandler -> !activeOnly || eventHandler.isActive())
+                .collect(Collectors.toList());
+    }
+
+    private void changed() {
+        invalidate();
+        changeNotifier.publish();
+    }
+
+    /**
+     * Drops all the cached metadata. Lookups in flight keep populating the previous snapshot, so that a value read
+     * before the change is not cached after it.
+     */
+    private void invalidate() {
+        snapshot = new Snapshot();
+        LOGGER.debug("Metadata cache invalidated");
+    }
+
+    private static String key(String name, int version) {
+        return name + ":" + version;
+    }
+
+    private byte[] writeWorkflowDef(WorkflowDef workflowDef) {
+        try {
+            return objectMapper.writeValueAsBytes(workflowDef);
+        } catch (IOException e) {
+            throw new ApplicationException(Code.INTERNAL_ERROR, "Unable to serialize workflow definition: " + workflowDef.key(), e);
+        }
+    }
+
+    private WorkflowDef readWorkflowDef(byte[] workflowDef) {
+        try {
+            return objectMapper.readValue(workflowDef, WorkflowDef.class);
+        } catch (IOException e) {
+            throw new ApplicationException(Code.INTERNAL_ERROR, "Unable to deserialize workflow definition", e);
+        }
+    }
+
+    private static class Snapshot {
+        private final Map<String, byte[]> definitions = new ConcurrentHashMap<>();
+        private final Map<String, Integer> latestVersions = new ConcurrentHashMap<>();
+        private final Map<String, List<EventHandler>> eventHandlersByEvent = new ConcurrentHashMap<>();
+    }
+}
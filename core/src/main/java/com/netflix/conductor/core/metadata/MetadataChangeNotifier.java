@@ -0,0 +1,33 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.metadata;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Propagates changes of the workflow metadata between the server nodes, so that the metadata cached by a node is
+ * invalidated when the metadata is changed through another node.
+ */
+@ImplementedBy(LocalMetadataChangeNotifier.class)
+public interface MetadataChangeNotifier {
+
+    /**
+     * Notifies all the nodes that the metadata has changed.
+     */
+    void publish();
+
+    /**
+     * @param listener invoked when the metadata has been changed by any node
+     */
+    void subscribe(Runnable listener);
+}
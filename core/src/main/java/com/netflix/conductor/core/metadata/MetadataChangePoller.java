@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.metadata;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.metrics.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches a metadata version counter shared by all the nodes, and notifies the listeners whenever the counter moves.
+ * <p>
+ * The counter is read periodically by a single daemon thread, started when the first listener subscribes. When the
+ * counter cannot be read, the next successful read is treated as a change, since changes may have been missed.
+ */
+public class MetadataChangePoller {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataChangePoller.class);
+
+    private static final String className = MetadataChangePoller.class.getSimpleName();
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final LongSupplier versionReader;
+    private final int pollIntervalMs;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long lastSeenVersion = UNKNOWN;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param versionReader  reads the current value of the version counter
+     * @param pollIntervalMs the interval between two reads of the counter
+     */
+    public MetadataChangePoller(LongSupplier versionReader, int pollIntervalMs) {
+        this.versionReader = versionReader;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public synchronized void subscribe(Runnable listener) {
+        listeners.add(listener);
+        if (executor == null) {
+            lastSeenVersion = readVersion();
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("metadata-change-poller-%d").setDaemon(true).build();
+            executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            executor.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void poll() {
+        long version = readVersion();
+        long previous = lastSeenVersion;
+        lastSeenVersion = version;
+        if (version != UNKNOWN && version != previous) {
+            LOGGER.debug("Metadata version changed from {} to {}", previous, version);
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    private long readVersion() {
+        try {
+            return versionReader.getAsLong();
+        } catch (Exception e) {
+            Monitors.error(className, "readVersion");
+            LOGGER.error("Unable to read the metadata version", e);
+            return UNKNOWN;
+        }
+    }
+}
@@ -30,8 +30,12 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service that acts as a facade for accessing execution data from the {@link ExecutionDAO} and {@link IndexDAO} storage layers
@@ -46,12 +50,22 @@ public class ExecutionDAOFacade {
     private final ExecutionDAO executionDAO;
     private final IndexDAO indexDAO;
     private final ObjectMapper objectMapper;
+    private final IndexingPipeline indexingPipeline;
+    private final PollDataTracker pollDataTracker;
+    private final WorkflowCache workflowCache;
+    private final WorkflowPartitioner workflowPartitioner;
 
     @Inject
-    public ExecutionDAOFacade(ExecutionDAO executionDAO, IndexDAO indexDAO, ObjectMapper objectMapper) {
+    public ExecutionDAOFacade(ExecutionDAO executionDAO, IndexDAO indexDAO, ObjectMapper objectMapper,
+                              IndexingPipeline indexingPipeline, PollDataTracker pollDataTracker,
+                              WorkflowCache workflowCache, WorkflowPartitioner workflowPartitioner) {
         this.executionDAO = executionDAO;
         this.indexDAO = indexDAO;
         this.objectMapper = objectMapper;
+        this.indexingPipeline = indexingPipeline;
+        this.pollDataTracker = pollDataTracker;
+        this.workflowCache = workflowCache;
+        this.workflowPartitioner = workflowPartitioner;
     }
 
     /**
@@ -71,28 +85,83 @@ public class ExecutionDAOFacade {
     public Workflow getWorkflowById(String workflowId, boolean includeTasks) {
         Workflow workflow = executionDAO.getWorkflow(workflowId, includeTasks);
         if (workflow == null) {
-            LOGGER.debug("Workflow {} not found in executionDAO, checking indexDAO", workflowId);
-            String json = indexDAO.get(workflowId, RAW_JSON_FIELD);
-            if (json == null) {
-                String errorMsg = String.format("No such workflow found by id: %s", workflowId);
-                LOGGER.error(errorMsg);
-                throw new ApplicationException(ApplicationException.Code.NOT_FOUND, errorMsg);
+            workflow = getArchivedWorkflow(workflowId, includeTasks);
+        }
+        return workflow;
+    }
+
+    private Workflow getArchivedWorkflow(String workflowId, boolean includeTasks) {
+        LOGGER.debug("Workflow {} not found in executionDAO, checking indexDAO", workflowId);
+        String json = indexDAO.get(workflowId, RAW_JSON_FIELD);
+        if (json == null) {
+            String errorMsg = String.format("No such workflow found by id: %s", workflowId);
+            LOGGER.error(errorMsg);
+            throw new ApplicationException(ApplicationException.Code.NOT_FOUND, errorMsg);
+        }
+
+        try {
+            Workflow workflow = objectMapper.readValue(json, Workflow.class);
+            if (!includeTasks) {
+                workflow.getTasks().clear();
             }
+            return workflow;
+        } catch (IOException e) {
+            String errorMsg = String.format("Error reading workflow: %s", workflowId);
+            LOGGER.error(errorMsg);
+            throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, errorMsg, e);
+        }
+    }
 
-            try {
-                workflow = objectMapper.readValue(json, Workflow.class);
-                if (!includeTasks) {
-                    workflow.getTasks().clear();
-                }
-            } catch (IOException e) {
-                String errorMsg = String.format("Error reading workflow: %s", workflowId);
-                LOGGER.error(errorMsg);
-                throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, errorMsg, e);
+    /**
+     * Fetches the workflow, with its tasks, to be evaluated or updated. The workflow is served by the
+     * {@link WorkflowCache} if this node owns it and it is cached, it is read from the data store otherwise.
+     * <p>
+     * The workflow has to be handed back with {@link #checkInWorkflow(Workflow)} once all of its changes have been
+     * persisted, or with {@link #releaseWorkflow(String)} if they might not have been.
+     * <p>
+     * Unlike the other getters, which leave the copies they return as they were read, the workflow and its tasks are
+     * marked as persisted when read from the {@link ExecutionDAO}, so that the updates made while evaluating them only
+     * write what changed.
+     *
+     * @param workflowId the id of the workflow to be fetched
+     * @return the {@link Workflow} object
+     * @throws ApplicationException if the workflow cannot be fetched, see {@link #getWorkflowById(String, boolean)}
+     */
+    public Workflow checkOutWorkflow(String workflowId) {
+        Workflow workflow = workflowCache.checkOut(workflowId);
+        if (workflow != null) {
+            return workflow;
+        }
+        try {
+            workflow = executionDAO.getWorkflow(workflowId, true);
+            if (workflow != null) {
+                markPersisted(workflow);
+            } else {
+                workflow = getArchivedWorkflow(workflowId, true);
             }
+        } catch (RuntimeException e) {
+            workflowCache.release(workflowId);
+            throw e;
         }
+        workflowCache.loaded(workflowId, workflow);
         return workflow;
     }
 
+    /**
+     * @param workflow a workflow fetched with {@link #checkOutWorkflow(String)}, all of whose changes were persisted
+     */
+    public void checkInWorkflow(Workflow workflow) {
+        workflowCache.checkIn(workflow);
+    }
+
+    /**
+     * @param workflowId the id of a workflow fetched with {@link #checkOutWorkflow(String)}, which might have changes
+     *                   that were not persisted
+     */
+    public void releaseWorkflow(String workflowId) {
+        workflowCache.release(workflowId);
+    }
+
     /**
      * Retrieve all workflow executions with the given correlationId
      * Uses the {@link IndexDAO} to search across workflows if the {@link ExecutionDAO} cannot perform searches across workflows.
@@ -143,19 +212,28 @@ public class ExecutionDAOFacade {
      */
     public String createWorkflow(Workflow workflow) {
         executionDAO.createWorkflow(workflow);
-        indexDAO.indexWorkflow(workflow);
+        workflow.markPersisted();
+        indexWorkflow(workflow);
         return workflow.getWorkflowId();
     }
 
     /**
-     * Updates the given workflow in the data store
+     * Updates the given workflow in the data store.
+     * The update is skipped if the workflow was read from the data store and none of its fields, other than the tasks
+     * which are stored separately, changed since.
      *
      * @param workflow the workflow tp be updated
      * @return the id of the updated workflow
      */
     public String updateWorkflow(Workflow workflow) {
+        if (!workflow.hasChangesToPersist()) {
+            Monitors.recordUnchangedWriteSkipped("workflow");
+            return workflow.getWorkflowId();
+        }
         executionDAO.updateWorkflow(workflow);
-        indexDAO.indexWorkflow(workflow);
+        workflow.markPersisted();
+        workflowWritten(workflow.getWorkflowId(), workflow);
+        indexWorkflow(workflow);
         return workflow.getWorkflowId();
     }
 
@@ -173,6 +251,11 @@ public class ExecutionDAOFacade {
         try {
             Workflow workflow = getWorkflowById(workflowId, true);
 
+            // pending index updates must not re-create or overwrite the removed/archived document
+            if (indexingPipeline.isEnabled()) {
+                indexingPipeline.discardWorkflow(workflowId);
+            }
+
             // remove workflow from ES
             if (archiveWorkflow) {
                 //Add to elasticsearch
@@ -191,6 +274,7 @@ public class ExecutionDAOFacade {
                 Monitors.recordDaoError("executionDao", "removeWorkflow");
                 throw ex;
             }
+            workflowWritten(workflowId, null);
 
         } catch (Exception e) {
             throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, "Error removing workflow: " + workflowId, e);
@@ -198,7 +282,10 @@ public class ExecutionDAOFacade {
     }
 
     public List<Task> createTasks(List<Task> tasks) {
-        return executionDAO.createTasks(tasks);
+        List<Task> created = executionDAO.createTasks(tasks);
+        created.forEach(Task::markPersisted);
+        tasksWritten(created, true);
+        return created;
     }
 
     public List<Task> getTasksForWorkflow(String workflowId) {
@@ -209,6 +296,10 @@ public class ExecutionDAOFacade {
         return executionDAO.getTask(taskId);
     }
 
+    public List<Task> getTasksByIds(List<String> taskIds) {
+        return executionDAO.getTasks(taskIds);
+    }
+
     public List<Task> getTasksByName(String taskName, String startKey, int count) {
         return executionDAO.getTasks(taskName, startKey, count);
     }
@@ -232,7 +323,9 @@ public class ExecutionDAOFacade {
     public void updateTask(Task task) {
         try {
             executionDAO.updateTask(task);
-            indexDAO.indexTask(task);
+            task.markPersisted();
+            tasksWritten(Collections.singletonList(task), true);
+            indexTask(task);
         } catch (Exception e) {
             String errorMsg = String.format("Error updating task: %s in workflow: %s", task.getTaskId(), task.getWorkflowInstanceId());
             LOGGER.error(errorMsg, e);
@@ -240,8 +333,77 @@ public class ExecutionDAOFacade {
         }
     }
 
+    /**
+     * Updates the tasks in the {@link ExecutionDAO} in one batch, then stores them in the {@link IndexDAO}
+     * in one bulk request. The tasks which were read from the data store and did not change since are skipped.
+     *
+     * @param tasks the tasks to be updated in the data store
+     * @throws ApplicationException if the dao operations fail
+     */
     public void updateTasks(List<Task> tasks) {
-        tasks.forEach(this::updateTask);
+        updateTasks(tasks, true);
+    }
+
+    /**
+     * Updates the tasks claimed by a poll like {@link #updateTasks(List)}, without notifying the owners of their
+     * workflows: being polled only moves a task to IN_PROGRESS, which the decider does not act on, so the owner learns
+     * about it with the next change of the task instead of on every poll.
+     *
+     * @param tasks the polled tasks to be updated in the data store
+     * @throws ApplicationException if the dao operations fail
+     */
+    public void updatePolledTasks(List<Task> tasks) {
+        updateTasks(tasks, false);
+    }
+
+    private void updateTasks(List<Task> tasks, boolean forward) {
+        List<Task> changedTasks = getTasksToPersist(tasks);
+        if (changedTasks.isEmpty()) {
+            return;
+        }
+        try {
+            executionDAO.updateTasks(changedTasks);
+            changedTasks.forEach(Task::markPersisted);
+            tasksWritten(changedTasks, forward);
+            indexTasks(changedTasks);
+        } catch (Exception e) {
+            String errorMsg = String.format("Error updating %d tasks in workflow: %s", changedTasks.size(), changedTasks.get(0).getWorkflowInstanceId());
+            LOGGER.error(errorMsg, e);
+            throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, errorMsg, e);
+        }
+    }
+
+    /**
+     * Updates the workflow and its tasks in the {@link ExecutionDAO} in one call, then stores them in the
+     * {@link IndexDAO}, the tasks in one bulk request. Used when a workflow reaches a terminal status, so that only
+     * the tasks which changed since they were read are written, instead of every task of the workflow.
+     *
+     * @param workflow the workflow to be updated
+     * @param tasks    the tasks of the workflow to be updated, the unchanged ones are skipped
+     * @throws ApplicationException if the dao operations fail
+     */
+    public void updateWorkflowAndTasks(Workflow workflow, List<Task> tasks) {
+        if (!workflow.hasChangesToPersist()) {
+            Monitors.recordUnchangedWriteSkipped("workflow");
+            updateTasks(tasks);
+            return;
+        }
+        List<Task> changedTasks = getTasksToPersist(tasks);
+        try {
+            executionDAO.updateWorkflowAndTasks(workflow, changedTasks);
+            workflow.markPersisted();
+            changedTasks.forEach(Task::markPersisted);
+            tasksWritten(changedTasks, true);
+            workflowWritten(workflow.getWorkflowId(), workflow);
+            indexWorkflow(workflow);
+            if (!changedTasks.isEmpty()) {
+                indexTasks(changedTasks);
+            }
+        } catch (Exception e) {
+            String errorMsg = String.format("Error updating workflow: %s and %d of its tasks", workflow.getWorkflowId(), changedTasks.size());
+            LOGGER.error(errorMsg, e);
+            throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, errorMsg, e);
+        }
     }
 
     public void removeTask(String taskId) {
@@ -249,15 +411,28 @@ public class ExecutionDAOFacade {
     }
 
     public List<PollData> getTaskPollData(String taskName) {
+        if (pollDataTracker.isEnabled()) {
+            return pollDataTracker.getPollData(taskName);
+        }
         return executionDAO.getPollData(taskName);
     }
 
     public PollData getTaskPollDataByDomain(String taskName, String domain) {
+        if (pollDataTracker.isEnabled()) {
+            return pollDataTracker.getPollData(taskName, domain);
+        }
         return executionDAO.getPollData(taskName, domain);
     }
 
+    /**
+     * Records the last poll through the {@link PollDataTracker} if it is enabled, in the {@link ExecutionDAO} otherwise.
+     */
     public void updateTaskLastPoll(String taskName, String domain, String workerId) {
-        executionDAO.updateLastPoll(taskName, domain, workerId);
+        if (pollDataTracker.isEnabled()) {
+            pollDataTracker.recordPoll(taskName, domain, workerId);
+        } else {
+            executionDAO.updateLastPoll(taskName, domain, workerId);
+        }
     }
 
     /**
@@ -288,6 +463,10 @@ public class ExecutionDAOFacade {
         return executionDAO.exceedsInProgressLimit(task);
     }
 
+    public Set<String> exceedsInProgressLimit(List<Task> tasks) {
+        return executionDAO.exceedsInProgressLimit(tasks);
+    }
+
     public boolean exceedsRateLimitPerFrequency(Task task) {
         return executionDAO.exceedsRateLimitPerFrequency(task);
     }
@@ -311,4 +490,91 @@ public class ExecutionDAOFacade {
     public List<TaskExecLog> getTaskExecutionLogs(String taskId) {
         return indexDAO.getTaskExecutionLogs(taskId);
     }
+
+    /**
+     * Indexes the workflow through the {@link IndexingPipeline} if it is enabled, synchronously otherwise.
+     */
+    private void indexWorkflow(Workflow workflow) {
+        if (indexingPipeline.isEnabled()) {
+            indexingPipeline.indexWorkflow(workflow);
+        } else {
+            indexDAO.indexWorkflow(workflow);
+        }
+    }
+
+    /**
+     * Indexes the task through the {@link IndexingPipeline} if it is enabled, synchronously otherwise.
+     */
+    private void indexTask(Task task) {
+        if (indexingPipeline.isEnabled()) {
+            indexingPipeline.indexTask(task);
+        } else {
+            indexDAO.indexTask(task);
+        }
+    }
+
+    private void markPersisted(Workflow workflow) {
+        workflow.markPersisted();
+        workflow.getTasks().forEach(Task::markPersisted);
+    }
+
+    /**
+     * Invalidates the cached copies of the workflow, see {@link WorkflowCache#invalidate(String, Object)}, and notifies
+     * its owner if it is owned by another node.
+     */
+    private void workflowWritten(String workflowId, Object written) {
+        if (!workflowCache.isEnabled()) {
+            return;
+        }
+        workflowCache.invalidate(workflowId, written);
+        if (!workflowPartitioner.isOwner(workflowId)) {
+            workflowPartitioner.forward(workflowId);
+        }
+    }
+
+    /**
+     * Invalidates the cached copies of the workflows of the tasks, and notifies their owners if requested.
+     */
+    private void tasksWritten(List<Task> tasks, boolean forward) {
+        if (!workflowCache.isEnabled()) {
+            return;
+        }
+        Set<String> workflowIds = new HashSet<>();
+        for (Task task : tasks) {
+            workflowCache.invalidate(task.getWorkflowInstanceId(), task);
+            workflowIds.add(task.getWorkflowInstanceId());
+        }
+        if (!forward) {
+            return;
+        }
+        workflowIds.stream()
+                .filter(workflowId -> !workflowPartitioner.isOwner(workflowId))
+                .forEach(workflowPartitioner::forward);
+    }
+
+    /**
+     * @return the tasks which were not read from the data store or changed since
+     */
+    private List<Task> getTasksToPersist(List<Task> tasks) {
+        List<Task> changedTasks = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task.hasChangesToPersist()) {
+                changedTasks.add(task);
+            } else {
+                Monitors.recordUnchangedWriteSkipped("task");
+            }
+        }
+        return changedTasks;
+    }
+
+    /**
+     * Indexes the tasks through the {@link IndexingPipeline} if it is enabled, in one bulk request otherwise.
+     */
+    private void indexTasks(List<Task> tasks) {
+        if (indexingPipeline.isEnabled()) {
+            tasks.forEach(indexingPipeline::indexTask);
+        } else {
+            indexDAO.indexTasks(tasks);
+        }
+    }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.IndexDAO;
+import com.netflix.conductor.metrics.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer in front of the {@link IndexDAO} for workflow and task documents.
+ * <p>
+ * The documents are copied when they are buffered, since the buffered instances keep being changed by the
+ * evaluation of the workflows; the copies of the workflows do not include their tasks, which are indexed separately.
+ * Updates are coalesced by workflowId/taskId so that only the latest state of a document is indexed, and the
+ * buffered documents are flushed through the bulk indexing methods of the {@link IndexDAO} either when a batch is
+ * full or when the flush interval elapses. When the buffer is full, callers wait up to the configured back-pressure
+ * timeout for space to become available, after which the update is dropped from the index (the execution data store
+ * remains the source of truth). A batch which fails to be indexed is put back in the buffer, unless the document was
+ * updated again meanwhile, and retried at the next flush.
+ */
+@Singleton
+public class IndexingPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexingPipeline.class);
+
+    private static final String className = IndexingPipeline.class.getSimpleName();
+
+    static final String ENABLED_PROPERTY_NAME = "workflow.indexing.async.enabled";
+    static final String CAPACITY_PROPERTY_NAME = "workflow.indexing.async.buffer.capacity";
+    static final String BATCH_SIZE_PROPERTY_NAME = "workflow.indexing.async.batch.size";
+    static final String FLUSH_INTERVAL_PROPERTY_NAME = "workflow.indexing.async.flush.interval.ms";
+    static final String BACKPRESSURE_TIMEOUT_PROPERTY_NAME = "workflow.indexing.async.backpressure.timeout.ms";
+
+    private static final String WORKFLOW_DOC_TYPE = "workflow";
+    private static final String TASK_DOC_TYPE = "task";
+
+    private final IndexDAO indexDAO;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long backPressureTimeoutMs;
+
+    private final Map<String, Pending<Workflow>> pendingWorkflows = new ConcurrentHashMap<>();
+    private final Map<String, Pending<Task>> pendingTasks = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // held while documents are taken out of the buffer and indexed
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @Inject
+    public IndexingPipeline(IndexDAO indexDAO, Configuration config) {
+        this.indexDAO = indexDAO;
+        this.enabled = config.getBooleanProperty(ENABLED_PROPERTY_NAME, false);
+        this.capacity = config.getIntProperty(CAPACITY_PROPERTY_NAME, 10000);
+        this.batchSize = config.getIntProperty(BATCH_SIZE_PROPERTY_NAME, 500);
+        this.backPressureTimeoutMs = config.getIntProperty(BACKPRESSURE_TIMEOUT_PROPERTY_NAME, 100);
+        int flushIntervalMs = config.getIntProperty(FLUSH_INTERVAL_PROPERTY_NAME, 1000);
+
+        if (enabled) {
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("indexing-pipeline-%d").setDaemon(true).build();
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            this.flushExecutor.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            LOGGER.info("Indexing pipeline initialized with capacity: {}, batch size: {}, flush interval: {} ms", capacity, batchSize, flushIntervalMs);
+        } else {
+            LOGGER.info("Indexing pipeline DISABLED, documents are indexed synchronously");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers the workflow for indexing, replacing any pending document for the same workflowId.
+     *
+     * @param workflow the workflow to be indexed
+     */
+    public void indexWorkflow(Workflow workflow) {
+        enqueue(pendingWorkflows, workflow.getWorkflowId(), workflow.deepCopyWithoutTasks(), WORKFLOW_DOC_TYPE);
+    }
+
+    /**
+     * Buffers the task for indexing, replacing any pending document for the same taskId.
+     *
+     * @param task the task to be indexed
+     */
+    public void indexTask(Task task) {
+        enqueue(pendingTasks, task.getTaskId(), task.deepCopy(), TASK_DOC_TYPE);
+    }
+
+    /**
+     * Discards all the pending documents of the given workflow and its tasks, so that a workflow removed from the
+     * index is not re-created by a later flush. Waits for a flush in progress, which may be indexing the workflow.
+     *
+     * @param workflowId the id of the workflow
+     */
+    public void discardWorkflow(String workflowId) {
+        flushLock.lock();
+        try {
+            if (pendingWorkflows.remove(workflowId) != null) {
+                released(1);
+            }
+            int removed = 0;
+            for (Map.Entry<String, Pending<Task>> entry : pendingTasks.entrySet()) {
+                if (workflowId.equals(entry.getValue().document.getWorkflowInstanceId())
+                        && pendingTasks.remove(entry.getKey(), entry.getValue())) {
+                    removed++;
+                }
+            }
+            released(removed);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return size.get();
+    }
+
+    private <T> void enqueue(Map<String, Pending<T>> pending, String id, T document, String docType) {
+        if (pending.computeIfPresent(id, (key, previous) -> new Pending<>(document, previous.enqueuedAt)) != null) {
+            Monitors.recordIndexingCoalesced(docType);
+            return;
+        }
+
+        if (!awaitCapacity()) {
+            LOGGER.warn("Indexing buffer full, dropping {} document: {}", docType, id);
+            Monitors.recordIndexingDropped(docType);
+            return;
+        }
+        if (pending.putIfAbsent(id, new Pending<>(document, System.currentTimeMillis())) != null) {
+            // buffered by a concurrent update meanwhile, replace it with this one
+            released(1);
+            enqueue(pending, id, document, docType);
+            return;
+        }
+
+        if (size.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flushAll);
+        }
+    }
+
+    /**
+     * Reserves a slot of the buffer for a new document, waiting up to the back-pressure timeout for one to be released.
+     *
+     * @return true if a slot was reserved
+     */
+    private boolean awaitCapacity() {
+        if (tryReserve()) {
+            return true;
+        }
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(backPressureTimeoutMs);
+        lock.lock();
+        try {
+            while (!tryReserve()) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void released(int count) {
+        if (count <= 0) {
+            return;
+        }
+        size.addAndGet(-count);
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    void flushAll() {
+        flushRequested.set(false);
+        flushLock.lock();
+        try {
+            flush(pendingWorkflows, indexDAO::indexWorkflows, WORKFLOW_DOC_TYPE);
+            flush(pendingTasks, indexDAO::indexTasks, TASK_DOC_TYPE);
+        } finally {
+            flushLock.unlock();
+            Monitors.recordIndexingBufferSize(size.get());
+        }
+    }
+
+    private <T> void flush(Map<String, Pending<T>> pending, Consumer<List<T>> bulkIndexer, String docType) {
+        try {
+            flushBatches(pending, bulkIndexer, docType);
+        } catch (Exception e) {
+            Monitors.error(className, "flush");
+            LOGGER.error("Error flushing the {} documents of the indexing buffer", docType, e);
+        }
+    }
+
+    private <T> void flushBatches(Map<String, Pending<T>> pending, Consumer<List<T>> bulkIndexer, String docType) {
+        while (!pending.isEmpty()) {
+            Map<String, Pending<T>> batch = new LinkedHashMap<>();
+            long oldest = Long.MAX_VALUE;
+            Iterator<String> ids = pending.keySet().iterator();
+            while (ids.hasNext() && batch.size() < batchSize) {
+                String id = ids.next();
+                Pending<T> entry = pending.remove(id);
+                if (entry != null) {
+                    batch.put(id, entry);
+                    oldest = Math.min(oldest, entry.enqueuedAt);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            Monitors.recordIndexingLag(docType, System.currentTimeMillis() - oldest);
+            try {
+                bulkIndexer.accept(batch.values().stream().map(entry -> entry.document).collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                requeue(pending, batch);
+                throw e;
+            }
+            // the slots of the batch are held until it is indexed, so that it can be put back on failure
+            released(batch.size());
+            LOGGER.debug("Flushed {} {} documents to the index", batch.size(), docType);
+        }
+    }
+
+    private <T> void requeue(Map<String, Pending<T>> pending, Map<String, Pending<T>> batch) {
+        int superseded = 0;
+        for (Map.Entry<String, Pending<T>> entry : batch.entrySet()) {
+            if (pending.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                // a newer version of the document was buffered since
+                superseded++;
+            }
+        }
+        released(superseded);
+    }
+
+    private static class Pending<T> {
+        private final T document;
+        private final long enqueuedAt;
+
+        private Pending(T document, long enqueuedAt) {
+            this.document = document;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
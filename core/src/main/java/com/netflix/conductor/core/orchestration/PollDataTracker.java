@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.common.metadata.tasks.PollData;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.ExecutionDAO;
+import com.netflix.conductor.metrics.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the last poll of each task type and domain on this node, in front of the {@link ExecutionDAO}.
+ * <p>
+ * Polls are recorded in memory and written to the {@link ExecutionDAO} once per flush interval, so that a task type
+ * polled many times within an interval costs a single write. Reads of the poll data of a domain are served from the
+ * polls seen on this node, or from a copy of the {@link ExecutionDAO} value that is reloaded once it is older than
+ * the cache TTL. The last poll times in the {@link ExecutionDAO} can thus lag behind by up to the flush interval,
+ * which is why the tracker has to be enabled explicitly with {@value #ENABLED_PROPERTY_NAME}.
+ */
+@Singleton
+public class PollDataTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PollDataTracker.class);
+
+    private static final String className = PollDataTracker.class.getSimpleName();
+
+    static final String ENABLED_PROPERTY_NAME = "workflow.polldata.aggregation.enabled";
+    static final String FLUSH_INTERVAL_PROPERTY_NAME = "workflow.polldata.flush.interval.ms";
+    static final String CACHE_TTL_PROPERTY_NAME = "workflow.polldata.cache.ttl.ms";
+
+    private static final String DEFAULT_DOMAIN = "DEFAULT";
+
+    private final ExecutionDAO executionDAO;
+    private final boolean enabled;
+    private final long cacheTtlMs;
+
+    // task type -> domain -> last poll seen on this node
+    private final Map<String, Map<String, PollData>> localPolls = new ConcurrentHashMap<>();
+    // task type:domain -> last poll not yet written to the ExecutionDAO
+    private final Map<String, PollData> unflushedPolls = new ConcurrentHashMap<>();
+    // task type:domain -> poll data read from the ExecutionDAO
+    private final Map<String, CachedPollData> storedPolls = new ConcurrentHashMap<>();
+
+    @Inject
+    public PollDataTracker(ExecutionDAO executionDAO, Configuration config) {
+        this.executionDAO = executionDAO;
+        this.enabled = config.getBooleanProperty(ENABLED_PROPERTY_NAME, false);
+        this.cacheTtlMs = config.getIntProperty(CACHE_TTL_PROPERTY_NAME, 1000);
+        int flushIntervalMs = config.getIntProperty(FLUSH_INTERVAL_PROPERTY_NAME, 1000);
+
+        if (enabled) {
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("polldata-tracker-%d").setDaemon(true).build();
+            ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            LOGGER.info("Poll data tracker initialized with flush interval: {} ms, cache ttl: {} ms", flushIntervalMs, cacheTtlMs);
+        } else {
+            LOGGER.info("Poll data tracker DISABLED, poll data is written on every poll");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a poll, to be written to the {@link ExecutionDAO} with the next flush.
+     */
+    public void recordPoll(String taskType, String domain, String workerId) {
+        PollData pollData = new PollData(taskType, domain, workerId, System.currentTimeMillis());
+        localPolls.computeIfAbsent(taskType, type -> new ConcurrentHashMap<>()).put(domainKey(domain), pollData);
+        unflushedPolls.put(key(taskType, domain), pollData);
+    }
+
+    /**
+     * @return the latest poll of the task type in the domain, either seen on this node or stored by any node
+     */
+    public PollData getPollData(String taskType, String domain) {
+        PollData localPoll = localPolls.getOrDefault(taskType, Collections.emptyMap()).get(domainKey(domain));
+        long now = System.currentTimeMillis();
+        if (localPoll != null && localPoll.getLastPollTime() > now - cacheTtlMs) {
+            return localPoll;
+        }
+
+        String key = key(taskType, domain);
+        CachedPollData cached = storedPolls.get(key);
+        if (cached == null || cached.loadedAt <= now - cacheTtlMs) {
+            cached = new CachedPollData(executionDAO.getPollData(taskType, domain), now);
+            storedPolls.put(key, cached);
+        }
+        return latest(localPoll, cached.pollData);
+    }
+
+    /**
+     * @return the poll data of the task type in all domains, merged with the polls seen on this node
+     */
+    public List<PollData> getPollData(String taskType) {
+        Map<String, PollData> pollDataByDomain = new LinkedHashMap<>();
+        executionDAO.getPollData(taskType).forEach(pollData -> pollDataByDomain.put(domainKey(pollData.getDomain()), pollData));
+        localPolls.getOrDefault(taskType, Collections.emptyMap())
+                .forEach((domain, pollData) -> pollDataByDomain.merge(domain, pollData, PollDataTracker::latest));
+        return new ArrayList<>(pollDataByDomain.values());
+    }
+
+    @VisibleForTesting
+    void flush() {
+        for (Map.Entry<String, PollData> entry : unflushedPolls.entrySet()) {
+            PollData pollData = entry.getValue();
+            if (!unflushedPolls.remove(entry.getKey(), pollData)) {
+                continue;
+            }
+            try {
+                executionDAO.updateLastPoll(pollData.getQueueName(), pollData.getDomain(), pollData.getWorkerId());
+            } catch (Exception e) {
+                Monitors.error(className, "flush");
+                LOGGER.error("Error writing the poll data of {} in domain {}", pollData.getQueueName(), pollData.getDomain(), e);
+            }
+        }
+    }
+
+    private static String key(String taskType, String domain) {
+        return taskType + ":" + domainKey(domain);
+    }
+
+    private static String domainKey(String domain) {
+        return domain == null ? DEFAULT_DOMAIN : domain;
+    }
+
+    private static PollData latest(PollData first, PollData second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.getLastPollTime() >= second.getLastPollTime() ? first : second;
+    }
+
+    private static class CachedPollData {
+        private final PollData pollData;
+        private final long loadedAt;
+
+        private CachedPollData(PollData pollData, long loadedAt) {
+            this.pollData = pollData;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.metrics.Monitors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the recently evaluated workflows owned by this node, with their tasks, so that evaluating them again does not
+ * read them from the execution data store.
+ * <p>
+ * A workflow is checked out of the cache by the thread evaluating or updating it, and checked back in once done, only
+ * if all of its changes were persisted, so that a cached workflow is always the persisted one. Every write of a
+ * workflow or of its tasks invalidates the cached workflow, unless the written instances are those of the checked out
+ * workflow, which then stays valid. Writes by the other nodes are forwarded to the owner, whose forwarded dispatcher
+ * drops the workflow with {@link #release(String)} as soon as it pops the request, see
+ * {@link com.netflix.conductor.core.execution.WorkflowSweeper}. A workflow changed by another node can thus be served
+ * until the request forwarded by that node is popped.
+ * <p>
+ * The cache is enabled along with {@link WorkflowPartitioner partitioning}, and bounded by
+ * <code>workflow.partitioning.cache.size</code> workflows, 0 disabling it. It is cleared when the membership of the
+ * cluster changes.
+ */
+@Singleton
+public class WorkflowCache {
+
+    // placeholder of a workflow which is being read from the data store to be checked out
+    private static final Workflow LOADING = new Workflow();
+
+    private final WorkflowPartitioner partitioner;
+    private final boolean enabled;
+    private final Cache<String, Workflow> workflows;
+
+    // workflowId -> the instance of the workflow checked out on this node
+    private final ConcurrentMap<String, Workflow> checkedOut = new ConcurrentHashMap<>();
+
+    @Inject
+    public WorkflowCache(WorkflowPartitioner partitioner, Configuration config) {
+        int size = config.getIntProperty("workflow.partitioning.cache.size", 10000);
+        this.partitioner = partitioner;
+        this.enabled = partitioner.isEnabled() && size > 0;
+        this.workflows = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(size, 0))
+                .expireAfterAccess(config.getIntProperty("workflow.partitioning.cache.ttl.seconds", 600), TimeUnit.SECONDS)
+                .build();
+        partitioner.addMembershipListener(this::invalidateAll);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes the workflow out of the cache. The workflow stays checked out until {@link #checkIn(Workflow)}, or
+     * until {@link #loaded(String, Workflow)} replaces it with the workflow read from the data store on a miss.
+     *
+     * @param workflowId the id of the workflow
+     * @return the cached workflow, null if it is not cached or if it is not owned by this node
+     */
+    public Workflow checkOut(String workflowId) {
+        if (!enabled || !partitioner.isOwner(workflowId)) {
+            return null;
+        }
+        Workflow workflow = workflows.asMap().remove(workflowId);
+        checkedOut.put(workflowId, workflow != null ? workflow : LOADING);
+        Monitors.recordWorkflowCacheLookup(workflow != null);
+        return workflow;
+    }
+
+    /**
+     * @param workflowId the id of the workflow which was not cached
+     * @param workflow   the workflow read from the data store, which stays checked out unless it was written by
+     *                   another instance while it was read
+     */
+    public void loaded(String workflowId, Workflow workflow) {
+        if (enabled) {
+            checkedOut.replace(workflowId, LOADING, workflow);
+        }
+    }
+
+    /**
+     * Puts the workflow back in the cache, if it is still checked out and all of its changes were persisted.
+     *
+     * @param workflow a checked out workflow
+     */
+    public void checkIn(Workflow workflow) {
+        if (!enabled || !checkedOut.remove(workflow.getWorkflowId(), workflow)) {
+            return;
+        }
+        if (workflow.getStatus().isTerminal() || workflow.hasChangesToPersist()
+                || workflow.getTasks().stream().anyMatch(Task::hasChangesToPersist)) {
+            return;
+        }
+        workflows.put(workflow.getWorkflowId(), workflow);
+    }
+
+    /**
+     * Drops the workflow, e.g. if evaluating it failed or if it was changed by another node.
+     *
+     * @param workflowId the id of the workflow
+     */
+    public void release(String workflowId) {
+        if (enabled) {
+            checkedOut.remove(workflowId);
+            workflows.invalidate(workflowId);
+        }
+    }
+
+    /**
+     * Invalidates the workflow after a write, unless the written instance is the checked out workflow or one of its
+     * tasks.
+     *
+     * @param workflowId the id of the written workflow, or of the workflow of the written task
+     * @param written    the written workflow or task
+     */
+    public void invalidate(String workflowId, Object written) {
+        if (!enabled) {
+            return;
+        }
+        workflows.invalidate(workflowId);
+        Workflow workflow = checkedOut.get(workflowId);
+        if (workflow != null && !isPartOf(written, workflow)) {
+            checkedOut.remove(workflowId, workflow);
+        }
+    }
+
+    public void invalidateAll() {
+        workflows.invalidateAll();
+        checkedOut.clear();
+    }
+
+    private static boolean isPartOf(Object written, Workflow workflow) {
+        if (written == workflow) {
+            return true;
+        }
+        for (Task task : workflow.getTasks()) {
+            if (task == written) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
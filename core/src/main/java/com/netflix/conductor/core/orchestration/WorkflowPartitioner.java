@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.metrics.Monitors;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns each workflow to one server node, its owner, by consistent hashing of the workflow id over the members of
+ * the cluster.
+ * <p>
+ * Partitioning is enabled with <code>workflow.partitioning.enabled</code>. The members are the server ids of the nodes,
+ * configured with <code>workflow.partitioning.members</code> and updated with {@link #setMembers(Collection)} when the
+ * membership changes, e.g. by a discovery client; only the workflows hashed to the nodes which joined or left change
+ * owner. Each member owns a decider queue, see {@link #getDeciderQueue(String)}, through which the other nodes forward
+ * the workflows it owns.
+ * <p>
+ * The ownership of a workflow is an affinity, not an exclusive right: a node which does not own a workflow can still
+ * update it, the owner is then notified through its decider queue. Since the members are not tracked for liveness, the
+ * decider queue of a node which is down is not drained: the sweep of the shared decider queue then evaluates a workflow
+ * whose request forwarded to its owner is still pending after <code>workflow.partitioning.forward.timeout.seconds</code>
+ * on the sweeping node, see {@link com.netflix.conductor.core.execution.WorkflowExecutor#decideAndGetSweepDelay(String)}.
+ */
+@Singleton
+public class WorkflowPartitioner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkflowPartitioner.class);
+
+    private static final String DECIDER_QUEUE_PREFIX = "_deciderQueue.";
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+    private final QueueDAO queueDAO;
+    private final boolean enabled;
+    private final String serverId;
+    private final int virtualNodes;
+    private final int forwardTimeoutSeconds;
+    private final List<Runnable> membershipListeners = new CopyOnWriteArrayList<>();
+
+    private volatile NavigableMap<Integer, String> ring = new TreeMap<>();
+
+    @Inject
+    public WorkflowPartitioner(Configuration config, QueueDAO queueDAO) {
+        this.queueDAO = queueDAO;
+        this.enabled = config.getBooleanProperty("workflow.partitioning.enabled", false);
+        this.serverId = config.getServerId();
+        this.virtualNodes = config.getIntProperty("workflow.partitioning.virtual.nodes", 64);
+        this.forwardTimeoutSeconds = config.getIntProperty("workflow.partitioning.forward.timeout.seconds", 30);
+        if (enabled) {
+            String members = config.getProperty("workflow.partitioning.members", serverId);
+            setMembers(Arrays.stream(members.split(","))
+                    .map(String::trim)
+                    .filter(StringUtils::isNotEmpty)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of seconds after which a request forwarded to the owner of a workflow which is still pending
+     * is presumed lost, e.g. because the owner is down
+     */
+    public int getForwardTimeoutSeconds() {
+        return forwardTimeoutSeconds;
+    }
+
+    /**
+     * Replaces the members of the cluster and notifies the membership listeners.
+     *
+     * @param members the server ids of the nodes of the cluster
+     */
+    public void setMembers(Collection<String> members) {
+        NavigableMap<Integer, String> newRing = new TreeMap<>();
+        for (String member : new TreeSet<>(members)) {
+            for (int i = 0; i < virtualNodes; i++) {
+                newRing.put(hash(member + "#" + i), member);
+            }
+        }
+        ring = newRing;
+        LOGGER.info("Workflow partitioning members: {}", new TreeSet<>(members));
+        membershipListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * @param listener invoked when the members of the cluster change, hence possibly the owners of the workflows
+     */
+    public void addMembershipListener(Runnable listener) {
+        membershipListeners.add(listener);
+    }
+
+    /**
+     * @param workflowId the id of a workflow
+     * @return the server id of the node owning the workflow, null if partitioning is disabled or there are no members
+     */
+    public String getOwner(String workflowId) {
+        NavigableMap<Integer, String> currentRing = ring;
+        if (!enabled || currentRing.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Integer, String> entry = currentRing.ceilingEntry(hash(workflowId));
+        return (entry != null ? entry : currentRing.firstEntry()).getValue();
+    }
+
+    /**
+     * @param workflowId the id of a workflow
+     * @return true if this node owns the workflow, or if partitioning is disabled
+     */
+    public boolean isOwner(String workflowId) {
+        String owner = getOwner(workflowId);
+        return owner == null || owner.equals(serverId);
+    }
+
+    /**
+     * Hands the workflow over to its owner, which evaluates it when it is popped from its decider queue.
+     * Requests forwarded while the workflow is already in the queue are collapsed into one.
+     *
+     * @param workflowId the id of a workflow which is not owned by this node
+     * @return true if the request was queued, false if a request was already pending in the decider queue of the owner
+     */
+    public boolean forward(String workflowId) {
+        String owner = getOwner(workflowId);
+        if (owner == null) {
+            return false;
+        }
+        Monitors.recordDecideForwarded();
+        return queueDAO.pushIfNotExists(getDeciderQueue(owner), workflowId, 0);
+    }
+
+    /**
+     * @return the decider queue of this node, null if partitioning is disabled
+     */
+    public String getLocalDeciderQueue() {
+        return enabled ? getDeciderQueue(serverId) : null;
+    }
+
+    /**
+     * @param member the server id of a node
+     * @return the queue of the workflows forwarded to the node
+     */
+    public static String getDeciderQueue(String member) {
+        return DECIDER_QUEUE_PREFIX + member;
+    }
+
+    private static int hash(String key) {
+        return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asInt();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.utils;
+
+import com.google.common.util.concurrent.Striped;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.metrics.Monitors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link LockProvider} that locks within the JVM using a fixed number of striped, re-entrant locks.
+ * Suitable for single node deployments, or to serialize the work of a node when a distributed lock is not available.
+ */
+@Singleton
+public class LocalLockProvider implements LockProvider {
+
+    private static final String PROVIDER_NAME = "local";
+
+    private final Striped<Lock> locks;
+
+    @Inject
+    public LocalLockProvider(Configuration config) {
+        this.locks = Striped.lazyWeakLock(config.getIntProperty("workflow.locking.local.stripes", 1024));
+    }
+
+    @Override
+    public AutoCloseable lock(String path, long timeOut, TimeUnit unit) throws Exception {
+        Lock lock = locks.get(path);
+        if (!lock.tryLock()) {
+            Monitors.recordLockContention(PROVIDER_NAME);
+            if (!lock.tryLock(timeOut, unit)) {
+                throw new LockException("Unable to acquire lock: " + path + " within " + unit.toMillis(timeOut) + " ms");
+            }
+        }
+        return lock::unlock;
+    }
+}
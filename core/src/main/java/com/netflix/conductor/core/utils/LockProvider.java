@@ -18,14 +18,26 @@
  */
 package com.netflix.conductor.core.utils;
 
+import com.google.inject.ImplementedBy;
+
 import java.util.concurrent.TimeUnit;
 
 /**
  * @author Viren
  *
  */
+@ImplementedBy(LocalLockProvider.class)
 public interface LockProvider {
-	
+
+	/**
+	 * Acquires the lock identified by the path, waiting up to the given timeout.
+	 *
+	 * @param path the lock to be acquired, e.g. a workflowId
+	 * @param timeOut the maximum time to wait for the lock
+	 * @param unit the time unit of the timeOut
+	 * @return handle that releases the lock when closed
+	 * @throws LockException if the lock could not be acquired within the timeout
+	 */
    	AutoCloseable lock(String path, long timeOut, TimeUnit unit) throws Exception;
    	
 }
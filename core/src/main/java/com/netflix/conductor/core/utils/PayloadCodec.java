@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.core.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.core.execution.ApplicationException.Code;
+import com.netflix.conductor.metrics.Monitors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the Task and Workflow documents persisted by the execution DAOs.
+ * <p>
+ * Documents are serialized to JSON, and JSON documents larger than the configured threshold are deflated when
+ * compression is enabled for the DAO. Compressed documents are stored as base64 text behind a header naming the
+ * format, so that they fit the existing text columns and values, and so that documents written as plain JSON,
+ * including every document written before compression was enabled, remain readable. Compression is configured per
+ * DAO with the <code>workflow.payload.codec.&lt;dao&gt;.compression.enabled</code> and
+ * <code>workflow.payload.codec.&lt;dao&gt;.compression.threshold.bytes</code> properties; it should only be enabled
+ * once every server reading the store understands the compressed format.
+ */
+public class PayloadCodec {
+
+    static final String DEFLATE_HEADER = "#deflate:";
+
+    private static final String PROPERTY_PREFIX = "workflow.payload.codec.";
+
+    private final ObjectMapper objectMapper;
+    private final String daoName;
+    private final boolean compressionEnabled;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+
+    public PayloadCodec(ObjectMapper objectMapper, Configuration config, String daoName) {
+        this.objectMapper = objectMapper;
+        this.daoName = daoName;
+        String prefix = PROPERTY_PREFIX + daoName.toLowerCase() + ".compression.";
+        this.compressionEnabled = config.getBooleanProperty(prefix + "enabled", false);
+        this.compressionThreshold = config.getIntProperty(prefix + "threshold.bytes", 4096);
+        this.compressionLevel = config.getIntProperty(prefix + "level", Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param value the document to be persisted
+     * @return the encoded document
+     */
+    public String encode(Object value) {
+        long start = System.nanoTime();
+        String docType = value.getClass().getSimpleName();
+        try {
+            String encoded;
+            int rawSize;
+            if (compressionEnabled) {
+                byte[] json = objectMapper.writeValueAsBytes(value);
+                rawSize = json.length;
+                encoded = json.length >= compressionThreshold ? compress(json) : null;
+                if (encoded == null) {
+                    encoded = new String(json, StandardCharsets.UTF_8);
+                }
+            } else {
+                encoded = objectMapper.writeValueAsString(value);
+                rawSize = encoded.length();
+            }
+            Monitors.recordPayloadCodecSize(daoName, docType, rawSize, encoded.length());
+            return encoded;
+        } catch (IOException e) {
+            throw new ApplicationException(Code.INTERNAL_ERROR, "Unable to encode " + docType, e);
+        } finally {
+            Monitors.recordPayloadCodecTime(daoName, docType, "encode", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param payload a document written by {@link #encode(Object)}, or a plain JSON document
+     * @param clazz   the type of the document
+     * @return the decoded document, null if the payload is null
+     */
+    public <T> T decode(String payload, Class<T> clazz) {
+        if (payload == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            if (payload.startsWith(DEFLATE_HEADER)) {
+                byte[] compressed = Base64.getDecoder().decode(payload.substring(DEFLATE_HEADER.length()));
+                try (InputStream json = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+                    return objectMapper.readValue(json, clazz);
+                }
+            }
+            return objectMapper.readValue(payload, clazz);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ApplicationException(Code.INTERNAL_ERROR, "Unable to decode " + clazz.getSimpleName(), e);
+        } finally {
+            Monitors.recordPayloadCodecTime(daoName, clazz.getSimpleName(), "decode", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the deflated document, or null if it does not get any smaller
+     */
+    private String compress(byte[] json) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            // base64 grows the compressed document by a third
+            if ((compressed.size() + 2) / 3 * 4 + DEFLATE_HEADER.length() >= json.length) {
+                return null;
+            }
+            return DEFLATE_HEADER + Base64.getEncoder().encodeToString(compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+}
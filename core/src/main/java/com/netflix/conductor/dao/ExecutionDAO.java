@@ -24,6 +24,8 @@ import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.events.queue.Message;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author Viren
@@ -78,6 +80,21 @@ public interface ExecutionDAO {
 	 */
 	boolean exceedsInProgressLimit(Task task);
 
+	/**
+	 * Checks the concurrency limits of a batch of tasks that are about to be put in progress.
+	 * The default implementation checks each task individually, implementations should override this
+	 * to evaluate the batch in fewer round trips.
+	 * @param tasks The tasks to be executed.
+	 * @return the ids of the tasks that would breach the limit of their definition.
+	 * @see #exceedsInProgressLimit(Task)
+	 */
+	default Set<String> exceedsInProgressLimit(List<Task> tasks) {
+		return tasks.stream()
+				.filter(this::exceedsInProgressLimit)
+				.map(Task::getTaskId)
+				.collect(Collectors.toSet());
+	}
+
 	/**
 	 * Checks if the Task is rate limited or not based on the {@link Task#getRateLimitPerFrequency()} and {@link Task#getRateLimitFrequencyInSeconds()}
 	 * @param task: which needs to be evaluated whether it is rateLimited or not
@@ -148,6 +165,22 @@ public interface ExecutionDAO {
 	 */
 	String updateWorkflow(Workflow workflow);
 
+	/**
+	 * Updates the tasks, then the workflow. The default implementation issues the two updates, implementations
+	 * should override this to write them in fewer round trips or in one transaction.
+	 * @param workflow Workflow to be updated
+	 * @param tasks Tasks of the workflow to be updated, possibly empty
+	 * @return Id of the updated workflow
+	 * @see #updateTasks(List)
+	 * @see #updateWorkflow(Workflow)
+	 */
+	default String updateWorkflowAndTasks(Workflow workflow, List<Task> tasks) {
+		if (!tasks.isEmpty()) {
+			updateTasks(tasks);
+		}
+		return updateWorkflow(workflow);
+	}
+
 	/**
 	 *
 	 * @param workflowId workflow instance id
@@ -63,6 +63,28 @@ public interface IndexDAO {
      */
     CompletableFuture<Void> asyncIndexTask(Task task);
 
+    /**
+     * Indexes the given workflows in bulk.
+     * The default implementation indexes each workflow individually, implementations should override this
+     * to use the bulk API of the underlying index.
+     *
+     * @param workflows Workflows to be indexed
+     */
+    default void indexWorkflows(List<Workflow> workflows) {
+        workflows.forEach(this::indexWorkflow);
+    }
+
+    /**
+     * Indexes the given tasks in bulk.
+     * The default implementation indexes each task individually, implementations should override this
+     * to use the bulk API of the underlying index.
+     *
+     * @param tasks Tasks to be indexed
+     */
+    default void indexTasks(List<Task> tasks) {
+        tasks.forEach(this::indexTask);
+    }
+
     /**
      *
      * @param query SQL like query for workflow search parameters.
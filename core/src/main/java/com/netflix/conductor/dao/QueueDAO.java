@@ -101,6 +101,18 @@ public interface QueueDAO {
 	 */
 	boolean setUnackTimeout(String queueName, String messageId, long unackTimeout);
 
+	/**
+	 * Sets the unack timeout of multiple messages of the same queue.
+	 * The default implementation updates each message individually, implementations should override this
+	 * to update the messages in bulk.
+	 * @param queueName Name of the queue
+	 * @param messageIds Message ids
+	 * @param unackTimeout timeout in milliseconds after which the messages are made visible again
+	 */
+	default void setUnackTimeout(String queueName, List<String> messageIds, long unackTimeout) {
+		messageIds.forEach(messageId -> setUnackTimeout(queueName, messageId, unackTimeout));
+	}
+
 	/**
 	 * 
 	 * @param queueName Name of the queue
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.metrics;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * The meters of a metric for every combination of the values of a fixed list of tags.
+ * <p>
+ * Meters are resolved through a tree of maps keyed by the tag values, one level per tag, so looking up a meter that
+ * has already been created does not allocate; the meter is only created, and its {@link Id} built, the first time a
+ * combination of values is seen. Callers that always use the same values can also hold on to the resolved meter.
+ * <p>
+ * As with the other {@link Monitors} methods, a NULL tag value is reported as "null" and a tag with an empty value
+ * is left out of the id.
+ *
+ * @param <M> the type of the meters, e.g. a Spectator Counter or Timer
+ */
+public class MeterFamily<M> {
+
+    private static final String NULL_VALUE = "null";
+
+    private final Registry registry;
+    private final String name;
+    private final Map<String, String> fixedTags;
+    private final String[] tagKeys;
+    private final Function<Id, M> factory;
+
+    private final ConcurrentMap<String, Object> meters = new ConcurrentHashMap<>();
+    private volatile M meter;
+
+    MeterFamily(Registry registry, String name, Map<String, String> fixedTags, String[] tagKeys, Function<Id, M> factory) {
+        this.registry = registry;
+        this.name = name;
+        this.fixedTags = fixedTags;
+        this.tagKeys = tagKeys.clone();
+        this.factory = factory;
+    }
+
+    public M get() {
+        checkArity(0);
+        M resolved = meter;
+        if (resolved == null) {
+            synchronized (this) {
+                if (meter == null) {
+                    meter = factory.apply(createId());
+                }
+                resolved = meter;
+            }
+        }
+        return resolved;
+    }
+
+    public M get(String value) {
+        checkArity(1);
+        M resolved = find(meters, value);
+        return resolved != null ? resolved : register(meters, value, value);
+    }
+
+    public M get(String value1, String value2) {
+        checkArity(2);
+        ConcurrentMap<String, Object> parent = level(meters, value1);
+        M resolved = find(parent, value2);
+        return resolved != null ? resolved : register(parent, value2, value1, value2);
+    }
+
+    public M get(String value1, String value2, String value3) {
+        checkArity(3);
+        ConcurrentMap<String, Object> parent = level(level(meters, value1), value2);
+        M resolved = find(parent, value3);
+        return resolved != null ? resolved : register(parent, value3, value1, value2, value3);
+    }
+
+    public M get(String value1, String value2, String value3, String value4) {
+        checkArity(4);
+        ConcurrentMap<String, Object> parent = level(level(level(meters, value1), value2), value3);
+        M resolved = find(parent, value4);
+        return resolved != null ? resolved : register(parent, value4, value1, value2, value3, value4);
+    }
+
+    /**
+     * @param values the values of the tags, in the order of the tag keys of this family
+     * @return the meter for the given values
+     */
+    public M get(String... values) {
+        checkArity(values.length);
+        if (values.length == 0) {
+            return get();
+        }
+        ConcurrentMap<String, Object> parent = meters;
+        for (int i = 0; i < values.length - 1; i++) {
+            parent = level(parent, values[i]);
+        }
+        String value = values[values.length - 1];
+        M resolved = find(parent, value);
+        return resolved != null ? resolved : register(parent, value, values);
+    }
+
+    private void checkArity(int count) {
+        if (count != tagKeys.length) {
+            throw new IllegalArgumentException(String.format("Expected %d tag values for %s, got %d", tagKeys.length, name, count));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, Object> level(ConcurrentMap<String, Object> parent, String value) {
+        String key = value == null ? NULL_VALUE : value;
+        Object child = parent.get(key);
+        if (child == null) {
+            child = parent.computeIfAbsent(key, k -> new ConcurrentHashMap<String, Object>());
+        }
+        return (ConcurrentMap<String, Object>) child;
+    }
+
+    @SuppressWarnings("unchecked")
+    private M find(ConcurrentMap<String, Object> parent, String value) {
+        return (M) parent.get(value == null ? NULL_VALUE : value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private M register(ConcurrentMap<String, Object> parent, String value, String... values) {
+        return (M) parent.computeIfAbsent(value == null ? NULL_VALUE : value, k -> factory.apply(createId(values)));
+    }
+
+    private Id createId(String... values) {
+        Map<String, String> tags = new HashMap<>(fixedTags);
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i] == null ? NULL_VALUE : values[i];
+            if (!value.isEmpty()) {
+                tags.put(tagKeys[i], value);
+            }
+        }
+        return registry.createId(name, tags);
+    }
+}
@@ -30,6 +30,7 @@ import com.netflix.spectator.api.Spectator;
 import com.netflix.spectator.api.Timer;
 import com.netflix.spectator.api.histogram.PercentileTimer;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -52,6 +53,58 @@ public class Monitors {
 
 	public static final String classQualifier = "WorkflowMonitor";
 
+	private static final MeterFamily<Timer> taskQueueWaitTimers = timerFamily("task_queue_wait", "taskType");
+	private static final MeterFamily<Timer> taskExecutionTimers = timerFamily("task_execution", "taskType", "includeRetries", "status");
+	private static final MeterFamily<Counter> taskPollCounters = counterFamily("task_poll", "taskType");
+	private static final MeterFamily<Counter> taskPollCountCounters = counterFamily("task_poll_count", "taskType", "domain");
+	private static final MeterFamily<AtomicLong> taskQueueDepthGauges = gaugeFamily("task_queue_depth", "taskType", "ownerApp");
+	private static final MeterFamily<AtomicLong> taskInProgressGauges = gaugeFamily("task_in_progress", "taskType", "ownerApp");
+	private static final MeterFamily<AtomicLong> workflowRunningGauges = gaugeFamily("workflow_running", "workflowName", "version", "ownerApp");
+	private static final MeterFamily<Counter> taskTimeoutCounters = counterFamily("task_timeout", "taskType");
+	private static final MeterFamily<Counter> taskResponseTimeoutCounters = counterFamily("task_response_timeout", "taskType");
+	private static final MeterFamily<Counter> workflowFailureCounters = counterFamily("workflow_failure", "workflowName", "status", "ownerApp");
+	private static final MeterFamily<Counter> workflowStartErrorCounters = counterFamily("workflow_start_error", "workflowName", "ownerApp");
+	private static final MeterFamily<Counter> workflowUpdateConflictCounters = counterFamily("task_update_conflict", "workflowName", "taskType", "workflowStatus");
+	private static final MeterFamily<Counter> taskUpdateConflictCounters = counterFamily("task_update_conflict", "workflowName", "taskType", "taskStatus");
+	private static final MeterFamily<Timer> workflowExecutionTimers = timerFamily("workflow_execution", "workflowName", "ownerApp");
+	private static final MeterFamily<AtomicLong> taskRateLimitedGauges = gaugeFamily("task_rate_limited", "taskType");
+	private static final MeterFamily<AtomicLong> taskConcurrentExecutionLimitedGauges = gaugeFamily("task_concurrent_execution_limited", "taskType");
+	private static final MeterFamily<Timer> taskLimiterTimers = timerFamily("task_limiter", "taskType", "limiter");
+	private static final MeterFamily<Counter> eventQueueMessagesProcessedCounters = counterFamily("event_queue_messages_processed", "queueType", "queueName");
+	private static final MeterFamily<Counter> observableQueueErrorCounters = counterFamily("observable_queue_error", "queueType");
+	private static final MeterFamily<Counter> eventQueueMessagesHandledCounters = counterFamily("event_queue_messages_handled", "queueType", "queueName");
+	private static final MeterFamily<Counter> daoRequestCounters = counterFamily("dao_requests", "dao", "action", "taskType", "workflowType");
+	private static final MeterFamily<Counter> daoEventRequestCounters = counterFamily("dao_requests", "dao", "action", "event");
+	private static final MeterFamily<AtomicLong> daoPayloadSizeGauges = gaugeFamily("dao_payload_size", "dao", "action", "taskType", "workflowType");
+	private static final MeterFamily<Counter> unchangedWriteSkippedCounters = counterFamily("dao_unchanged_write_skipped", "docType");
+	private static final MeterFamily<AtomicLong> payloadCodecRawSizeGauges = gaugeFamily("payload_codec_raw_size", "dao", "docType");
+	private static final MeterFamily<AtomicLong> payloadCodecEncodedSizeGauges = gaugeFamily("payload_codec_encoded_size", "dao", "docType");
+	private static final MeterFamily<Timer> payloadCodecTimers = timerFamily("payload_codec", "dao", "docType", "operation");
+	private static final MeterFamily<Counter> externalPayloadStorageUsageCounters = counterFamily("external_payload_storage_usage", "name", "operation", "payloadType");
+	private static final MeterFamily<Counter> decideCoalescedCounters = counterFamily("workflow_decide_coalesced");
+	private static final MeterFamily<Counter> decideForwardedCounters = counterFamily("workflow_decide_forwarded");
+	private static final MeterFamily<Counter> decideForwardTimedOutCounters = counterFamily("workflow_decide_forward_timed_out");
+	private static final MeterFamily<Counter> workflowCacheCounters = counterFamily("workflow_cache", "hit");
+	private static final MeterFamily<Counter> lockContentionCounters = counterFamily("workflow_lock_contention", "provider");
+	private static final MeterFamily<Timer> lockWaitTimers = timerFamily("workflow_lock_wait");
+	private static final MeterFamily<Counter> lockFailureCounters = counterFamily("workflow_lock_failure");
+	private static final MeterFamily<Counter> metadataCacheMissCounters = counterFamily("metadata_cache_miss", "type");
+	private static final MeterFamily<Timer> scriptCompileTimers = timerFamily("script_compile");
+	private static final MeterFamily<Timer> scriptEvalTimers = timerFamily("script_eval");
+	private static final MeterFamily<Timer> sweepTimers = timerFamily("workflow_sweep", "done");
+	private static final MeterFamily<Counter> sweepPostponedCounters = counterFamily("workflow_sweep_postponed");
+	private static final MeterFamily<Timer> sweeperWorkerWaitTimers = timerFamily("sweeper_worker_wait");
+	private static final MeterFamily<AtomicLong> sweeperQueueDepthGauges = gaugeFamily("sweeper_queue_depth");
+	private static final MeterFamily<Timer> indexingLagTimers = timerFamily("indexing_lag", "docType");
+	private static final MeterFamily<Counter> indexingDroppedCounters = counterFamily("indexing_dropped", "docType");
+	private static final MeterFamily<Counter> indexingCoalescedCounters = counterFamily("indexing_coalesced", "docType");
+	private static final MeterFamily<AtomicLong> indexingBufferSizeGauges = gaugeFamily("indexing_buffer_size");
+	private static final MeterFamily<Counter> daoErrorCounters = counterFamily("dao_errors", "dao", "action");
+	private static final MeterFamily<Counter> systemTaskWorkerPollCounters = counterFamily("system_task_worker_polls", "taskType", "result");
+	private static final MeterFamily<AtomicLong> systemTaskWorkerPollIntervalGauges = gaugeFamily("system_task_worker_poll_interval", "taskType");
+	private static final MeterFamily<AtomicLong> systemTaskWorkerLaneUtilizationGauges = gaugeFamily("system_task_worker_lane_utilization", "lane");
+	private static final MeterFamily<AtomicLong> systemTaskWorkerLaneQueueDepthGauges = gaugeFamily("system_task_worker_lane_queue_depth", "lane");
+
 	private Monitors() {
 
 	}
@@ -70,19 +123,6 @@ public class Monitors {
 		return start(getTimer(className, name, additionalTags));
 	}
 
-	/**
-	 * Increment a counter that is used to measure the rate at which some event
-	 * is occurring. Consider a simple queue, counters would be used to measure
-	 * things like the rate at which items are being inserted and removed.
-	 *
-	 * @param className
-	 * @param name
-	 * @param additionalTags
-	 */
-	private static void counter(String className, String name, String... additionalTags) {
-		getCounter(className, name, additionalTags).increment();
-	}
-
 	/**
 	 * Set a gauge is a handle to get the current value. Typical examples for
 	 * gauges would be the size of a queue or number of threads in the running
@@ -155,108 +195,240 @@ public class Monitors {
 		return sw;
 	}
 
+	/**
+	 * Counters of the given metric, resolved without allocating once created. Callers on hot paths should keep the
+	 * family, or the resolved counter, in a field rather than looking it up on every call.
+	 *
+	 * @param name the name of the metric
+	 * @param tagKeys the keys of the tags whose values are passed to {@link MeterFamily#get}
+	 * @return the counters of the metric
+	 */
+	public static MeterFamily<Counter> counterFamily(String name, String... tagKeys) {
+		return new MeterFamily<>(registry, name, Collections.singletonMap("class", classQualifier), tagKeys, registry::counter);
+	}
+
+	/**
+	 * @see #counterFamily(String, String...)
+	 */
+	public static MeterFamily<Timer> timerFamily(String name, String... tagKeys) {
+		Map<String, String> fixedTags = new HashMap<>();
+		fixedTags.put("class", classQualifier);
+		fixedTags.put("unit", TimeUnit.SECONDS.name());
+		return new MeterFamily<>(registry, name, fixedTags, tagKeys, id -> PercentileTimer.get(registry, id));
+	}
+
+	/**
+	 * @see #counterFamily(String, String...)
+	 */
+	public static MeterFamily<AtomicLong> gaugeFamily(String name, String... tagKeys) {
+		return new MeterFamily<>(registry, name, Collections.singletonMap("class", classQualifier), tagKeys,
+				id -> registry.gauge(id, new AtomicLong(0)));
+	}
+
 	public static void recordGauge(String name, long count, String... tags) {
 		gauge(classQualifier, name, count, tags);
 	}
 
 	public static void recordQueueWaitTime(String taskType, long queueWaitTime) {
-		getTimer(classQualifier, "task_queue_wait", "taskType", taskType).record(queueWaitTime, TimeUnit.MILLISECONDS);
+		taskQueueWaitTimers.get(taskType).record(queueWaitTime, TimeUnit.MILLISECONDS);
 	}
 
 	public static void recordTaskExecutionTime(String taskType, long duration, boolean includesRetries, Task.Status status) {
-		getTimer(classQualifier, "task_execution", "taskType", taskType, "includeRetries", "" + includesRetries, "status", status.name()).record(duration, TimeUnit.MILLISECONDS);
+		taskExecutionTimers.get(taskType, includesRetries ? "true" : "false", status.name()).record(duration, TimeUnit.MILLISECONDS);
 	}
 
 	public static void recordTaskPoll(String taskType) {
-		counter(classQualifier, "task_poll", "taskType", taskType);
+		taskPollCounters.get(taskType).increment();
 	}
 
 	public static void recordTaskPollCount(String taskType, String domain, int count) {
-		getCounter(classQualifier, "task_poll_count", "taskType", taskType, "domain", domain).increment(count);
+		taskPollCountCounters.get(taskType, domain).increment(count);
 	}
 
 	public static void recordQueueDepth(String taskType, long size, String ownerApp) {
-		gauge(classQualifier, "task_queue_depth", size, "taskType", taskType, "ownerApp", ""+ownerApp);
+		taskQueueDepthGauges.get(taskType, ownerApp).getAndSet(size);
 	}
 
 	public static void recordTaskInProgress(String taskType, long size, String ownerApp) {
-		gauge(classQualifier, "task_in_progress", size, "taskType", taskType, "ownerApp", ""+ownerApp);
+		taskInProgressGauges.get(taskType, ownerApp).getAndSet(size);
 	}
 
 	public static void recordRunningWorkflows(long count, String name, String version, String ownerApp) {
-		gauge(classQualifier, "workflow_running", count, "workflowName", name, "version", version, "ownerApp", ""+ownerApp);
+		workflowRunningGauges.get(name, version, ownerApp).getAndSet(count);
 
 	}
 
 	public static void recordTaskTimeout(String taskType) {
-		counter(classQualifier, "task_timeout", "taskType", taskType);
+		taskTimeoutCounters.get(taskType).increment();
 	}
 
 	public static void recordTaskResponseTimeout(String taskType) {
-		counter(classQualifier, "task_response_timeout", "taskType", taskType);
+		taskResponseTimeoutCounters.get(taskType).increment();
 	}
 
 	public static void recordWorkflowTermination(String workflowType, WorkflowStatus status, String ownerApp) {
-		counter(classQualifier, "workflow_failure", "workflowName", workflowType, "status", status.name(), "ownerApp", ""+ownerApp);
+		workflowFailureCounters.get(workflowType, status.name(), ownerApp).increment();
 	}
 
 	public static void recordWorkflowStartError(String workflowType, String ownerApp) {
-		counter(classQualifier, "workflow_start_error", "workflowName", workflowType, "ownerApp", ""+ownerApp);
+		workflowStartErrorCounters.get(workflowType, ownerApp).increment();
 	}
 
 	public static void recordUpdateConflict(String taskType, String workflowType, WorkflowStatus status) {
-		counter(classQualifier, "task_update_conflict", "workflowName", workflowType, "taskType", taskType, "workflowStatus", status.name());
+		workflowUpdateConflictCounters.get(workflowType, taskType, status.name()).increment();
 	}
 
 	public static void recordUpdateConflict(String taskType, String workflowType, Status status) {
-		counter(classQualifier, "task_update_conflict", "workflowName", workflowType, "taskType", taskType, "taskStatus", status.name());
+		taskUpdateConflictCounters.get(workflowType, taskType, status.name()).increment();
 	}
 
 	public static void recordWorkflowCompletion(String workflowType, long duration, String ownerApp) {
-		getTimer(classQualifier, "workflow_execution", "workflowName", workflowType, "ownerApp", ""+ownerApp).record(duration, TimeUnit.MILLISECONDS);
+		workflowExecutionTimers.get(workflowType, ownerApp).record(duration, TimeUnit.MILLISECONDS);
 	}
 
 	public static void recordTaskRateLimited(String taskDefName, int limit) {
-		gauge(classQualifier, "task_rate_limited", limit, "taskType", taskDefName);
+		taskRateLimitedGauges.get(taskDefName).getAndSet(limit);
 	}
 
 	public static void recordTaskConcurrentExecutionLimited(String taskDefName, int limit) {
-		gauge(classQualifier, "task_concurrent_execution_limited", limit, "taskType", taskDefName);
+		taskConcurrentExecutionLimitedGauges.get(taskDefName).getAndSet(limit);
+	}
+
+	public static void recordTaskLimiterLatency(String taskDefName, String limiter, long durationNanos) {
+		taskLimiterTimers.get(taskDefName, limiter).record(durationNanos, TimeUnit.NANOSECONDS);
 	}
 
 	public static void recordEventQueueMessagesProcessed(String queueType, String queueName, int count) {
-		getCounter(classQualifier, "event_queue_messages_processed", "queueType", queueType, "queueName", queueName).increment(count);
+		eventQueueMessagesProcessedCounters.get(queueType, queueName).increment(count);
 	}
 
 	public static void recordObservableQMessageReceivedErrors(String queueType) {
-		counter(classQualifier, "observable_queue_error", "queueType", queueType);
+		observableQueueErrorCounters.get(queueType).increment();
 	}
 
 	public static void recordEventQueueMessagesHandled(String queueType, String queueName) {
-		counter(classQualifier, "event_queue_messages_handled", "queueType", queueType, "queueName", queueName);
+		eventQueueMessagesHandledCounters.get(queueType, queueName).increment();
 	}
 
 	public static void recordDaoRequests(String dao, String action, String taskType, String workflowType) {
-		counter(classQualifier, "dao_requests", "dao", dao, "action", action, "taskType", taskType, "workflowType", workflowType);
+		daoRequestCounters.get(dao, action, taskType, workflowType).increment();
 	}
 
 	public static void recordDaoEventRequests(String dao, String action, String event) {
-		counter(classQualifier, "dao_requests", "dao", dao, "action", action, "event", event);
+		daoEventRequestCounters.get(dao, action, event).increment();
 	}
 
 	public static void recordDaoPayloadSize(String dao, String action, int size) {
-	    gauge(classQualifier, "dao_payload_size", size, "dao", dao, "action", action);
-    }
+		recordDaoPayloadSize(dao, action, "", "", size);
+	}
 
 	public static void recordDaoPayloadSize(String dao, String action, String taskType, String workflowType, int size) {
-		gauge(classQualifier, "dao_payload_size", size, "dao", dao, "action", action, "taskType", taskType, "workflowType", workflowType);
+		daoPayloadSizeGauges.get(dao, action, taskType, workflowType).getAndSet(size);
+	}
+
+	public static void recordUnchangedWriteSkipped(String docType) {
+		unchangedWriteSkippedCounters.get(docType).increment();
+	}
+
+	public static void recordPayloadCodecSize(String dao, String docType, int rawSize, int encodedSize) {
+		payloadCodecRawSizeGauges.get(dao, docType).getAndSet(rawSize);
+		payloadCodecEncodedSizeGauges.get(dao, docType).getAndSet(encodedSize);
+	}
+
+	public static void recordPayloadCodecTime(String dao, String docType, String operation, long durationNanos) {
+		payloadCodecTimers.get(dao, docType, operation).record(durationNanos, TimeUnit.NANOSECONDS);
 	}
 
 	public static void recordExternalPayloadStorageUsage(String name, String operation, String payloadType) {
-		counter(classQualifier, "external_payload_storage_usage", "name", name, "operation", operation, "payloadType", payloadType);
+		externalPayloadStorageUsageCounters.get(name, operation, payloadType).increment();
+	}
+
+	public static void recordDecideCoalesced() {
+		decideCoalescedCounters.get().increment();
+	}
+
+	public static void recordLockContention(String provider) {
+		lockContentionCounters.get(provider).increment();
+	}
+
+	public static void recordLockWait(long waitMs) {
+		lockWaitTimers.get().record(waitMs, TimeUnit.MILLISECONDS);
+	}
+
+	public static void recordDecideForwarded() {
+		decideForwardedCounters.get().increment();
+	}
+
+	public static void recordDecideForwardTimedOut() {
+		decideForwardTimedOutCounters.get().increment();
+	}
+
+	public static void recordWorkflowCacheLookup(boolean hit) {
+		workflowCacheCounters.get(hit ? "true" : "false").increment();
+	}
+
+	public static void recordLockFailure() {
+		lockFailureCounters.get().increment();
+	}
+
+	public static void recordMetadataCacheMiss(String type) {
+		metadataCacheMissCounters.get(type).increment();
+	}
+
+	public static void recordScriptCompileTime(long durationNanos) {
+		scriptCompileTimers.get().record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public static void recordScriptEvalTime(long durationNanos) {
+		scriptEvalTimers.get().record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public static void recordSweepDuration(long durationMs, boolean done) {
+		sweepTimers.get(done ? "true" : "false").record(durationMs, TimeUnit.MILLISECONDS);
+	}
+
+	public static void recordSweepPostponed() {
+		sweepPostponedCounters.get().increment();
+	}
+
+	public static void recordSweeperWorkerWait(long waitMs) {
+		sweeperWorkerWaitTimers.get().record(waitMs, TimeUnit.MILLISECONDS);
+	}
+
+	public static void recordSweeperQueueDepth(long size) {
+		sweeperQueueDepthGauges.get().getAndSet(size);
+	}
+
+	public static void recordIndexingLag(String docType, long lagMs) {
+		indexingLagTimers.get(docType).record(lagMs, TimeUnit.MILLISECONDS);
+	}
+
+	public static void recordIndexingDropped(String docType) {
+		indexingDroppedCounters.get(docType).increment();
+	}
+
+	public static void recordIndexingCoalesced(String docType) {
+		indexingCoalescedCounters.get(docType).increment();
+	}
+
+	public static void recordIndexingBufferSize(long size) {
+		indexingBufferSizeGauges.get().getAndSet(size);
 	}
 
 	public static void recordDaoError(String dao, String action) {
-		counter(classQualifier, "dao_errors", "dao", dao, "action", action);
+		daoErrorCounters.get(dao, action).increment();
+	}
+
+	public static void recordSystemTaskWorkerPoll(String taskType, String result) {
+		systemTaskWorkerPollCounters.get(taskType, result).increment();
+	}
+
+	public static void recordSystemTaskWorkerPollInterval(String taskType, long intervalMs) {
+		systemTaskWorkerPollIntervalGauges.get(taskType).getAndSet(intervalMs);
+	}
+
+	public static void recordSystemTaskWorkerLaneUtilization(String lane, long busyPercent, long queued) {
+		systemTaskWorkerLaneUtilizationGauges.get(lane).getAndSet(busyPercent);
+		systemTaskWorkerLaneQueueDepthGauges.get(lane).getAndSet(queued);
 	}
-}
\ No newline at end of file
+}
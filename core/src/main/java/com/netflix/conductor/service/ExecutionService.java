@@ -56,6 +56,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -77,6 +78,7 @@ public class ExecutionService {
 	private final ExternalPayloadStorage externalPayloadStorage;
 
     private final int taskRequeueTimeout;
+    private final int limitedTaskRequeueDelay;
     private final int maxSearchSize;
 
     private static final int MAX_POLL_TIMEOUT_MS = 5000;
@@ -98,6 +100,7 @@ public class ExecutionService {
 		this.queueDAO = queueDAO;
 		this.externalPayloadStorage = externalPayloadStorage;
 		this.taskRequeueTimeout = config.getIntProperty("task.requeue.timeout", 60_000);
+		this.limitedTaskRequeueDelay = config.getIntProperty("task.limited.requeue.delay", 1_000);
         this.maxSearchSize = config.getIntProperty("workflow.max.search.size", 5_000);
 	}
 
@@ -127,26 +130,32 @@ public class ExecutionService {
 		List<Task> tasks = new LinkedList<>();
 		try {
 			List<String> taskIds = queueDAO.pop(queueName, count, timeoutInMilliSecond);
-			for (String taskId : taskIds) {
-				Task task = getTask(taskId);
-				if (task == null) {
-					continue;
-				}
+			if (!taskIds.isEmpty()) {
+				List<Task> polledTasks = workflowExecutor.getTasks(taskIds);
+				Set<String> limitedTaskIds = executionDAOFacade.exceedsInProgressLimit(polledTasks);
+				List<Task> claimedTasks = new ArrayList<>(polledTasks.size());
+				for (Task task : polledTasks) {
+					if (limitedTaskIds.contains(task.getTaskId())) {
+						continue;
+					}
 
-				if (executionDAOFacade.exceedsInProgressLimit(task)) {
-					continue;
+					task.setStatus(Status.IN_PROGRESS);
+					if (task.getStartTime() == 0) {
+						task.setStartTime(System.currentTimeMillis());
+						Monitors.recordQueueWaitTime(task.getTaskDefName(), task.getQueueWaitTime());
+					}
+					task.setCallbackAfterSeconds(0);    // reset callbackAfterSeconds when giving the task to the worker
+					task.setWorkerId(workerId);
+					task.setPollCount(task.getPollCount() + 1);
+					claimedTasks.add(task);
 				}
+				executionDAOFacade.updatePolledTasks(claimedTasks);
+				tasks.addAll(claimedTasks);
 
-				task.setStatus(Status.IN_PROGRESS);
-				if (task.getStartTime() == 0) {
-					task.setStartTime(System.currentTimeMillis());
-					Monitors.recordQueueWaitTime(task.getTaskDefName(), task.getQueueWaitTime());
+				if (!limitedTaskIds.isEmpty()) {
+					// make the tasks that cannot be started yet visible to the next poll
+					queueDAO.setUnackTimeout(queueName, new ArrayList<>(limitedTaskIds), limitedTaskRequeueDelay);
 				}
-				task.setCallbackAfterSeconds(0);    // reset callbackAfterSeconds when giving the task to the worker
-				task.setWorkerId(workerId);
-				task.setPollCount(task.getPollCount() + 1);
-				executionDAOFacade.updateTask(task);
-				tasks.add(task);
 			}
 			executionDAOFacade.updateTaskLastPoll(taskType, domain, workerId);
 			Monitors.recordTaskPoll(queueName);
@@ -197,6 +206,10 @@ public class ExecutionService {
 		workflowExecutor.updateTask(taskResult);
 	}
 
+	public Map<String, String> updateTasks(List<TaskResult> taskResults) {
+		return workflowExecutor.updateTasks(taskResults);
+	}
+
 	public List<Task> getTasks(String taskType, String startKey, int count) {
 		return workflowExecutor.getTasks(taskType, startKey, count);
 	}
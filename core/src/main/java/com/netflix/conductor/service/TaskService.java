@@ -80,6 +80,14 @@ public interface TaskService {
      */
     String updateTask(@NotNull(message = "TaskResult cannot be null or empty.") @Valid TaskResult taskResult);
 
+    /**
+     * Updates a batch of tasks. The results are applied per workflow, so that each workflow is evaluated once.
+     *
+     * @param taskResults List of {@link TaskResult}
+     * @return the ids of the tasks which could not be updated, mapped to the reason.
+     */
+    Map<String, String> updateTasks(@NotEmpty(message = "TaskResults cannot be null or empty.") List<@NotNull @Valid TaskResult> taskResults);
+
     /**
      * Ack Task is received.
      *
@@ -136,6 +136,20 @@ public class TaskServiceImpl implements TaskService {
         return taskResult.getTaskId();
     }
 
+    /**
+     * Updates a batch of tasks. The results are applied per workflow, so that each workflow is evaluated once.
+     *
+     * @param taskResults List of {@link TaskResult}
+     * @return the ids of the tasks which could not be updated, mapped to the reason.
+     */
+    @Service
+    public Map<String, String> updateTasks(List<TaskResult> taskResults) {
+        LOGGER.debug("Update {} tasks", taskResults.size());
+        Map<String, String> failedTasks = executionService.updateTasks(taskResults);
+        LOGGER.debug("{} of {} tasks updated successfully", taskResults.size() - failedTasks.size(), taskResults.size());
+        return failedTasks;
+    }
+
     /**
      * Ack Task is received.
      *
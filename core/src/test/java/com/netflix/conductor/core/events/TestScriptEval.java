@@ -20,8 +20,15 @@ package com.netflix.conductor.core.events;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -54,4 +61,33 @@ public class TestScriptEval {
 		assertFalse(ScriptEvaluator.evalBool(script4, payload));
 		
 	}
+
+	@Test
+	public void testConcurrentEval() throws Exception {
+		String script = "$.value * 2";
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Object>> evaluations = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				Map<String, Object> input = Collections.singletonMap("value", i);
+				evaluations.add(() -> ScriptEvaluator.eval(script, input));
+			}
+			List<Future<Object>> results = executorService.invokeAll(evaluations);
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(i * 2, ((Number) results.get(i).get()).intValue());
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGlobalsDoNotLeakAcrossEvaluations() throws Exception {
+		Map<String, Object> input = Collections.singletonMap("value", 1);
+		assertEquals(1, ((Number) ScriptEvaluator.eval("var leaked = $.value; function f() { return 2; } assigned = 3; leaked", input)).intValue());
+
+		assertEquals("undefined", ScriptEvaluator.eval("typeof leaked", input));
+		assertEquals("undefined", ScriptEvaluator.eval("typeof f", input));
+		assertEquals("undefined", ScriptEvaluator.eval("typeof assigned", input));
+	}
 }
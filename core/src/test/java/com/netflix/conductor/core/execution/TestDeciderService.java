@@ -756,6 +756,34 @@ public class TestDeciderService {
         assertTrue(flag);
     }
 
+    @Test
+    public void testGetTimeoutDeadline() {
+        TaskDef taskDef = new TaskDef();
+        taskDef.setName("test_deadline");
+        taskDef.setTimeoutSeconds(60);
+        taskDef.setResponseTimeoutSeconds(10);
+        WorkflowTask workflowTask = new WorkflowTask();
+        workflowTask.setTaskDefinition(taskDef);
+
+        Task task = new Task();
+        task.setTaskDefName("test_deadline");
+        task.setStatus(Status.SCHEDULED);
+        task.setWorkflowTask(workflowTask);
+        task.setStartTime(1000);
+        task.setUpdateTime(2000);
+        assertEquals(Long.MAX_VALUE, deciderService.getTimeoutDeadline(task));
+
+        task.setStatus(Status.IN_PROGRESS);
+        assertEquals(12000, deciderService.getTimeoutDeadline(task));
+
+        task.setUpdateTime(60000);
+        assertEquals(61000, deciderService.getTimeoutDeadline(task));
+
+        taskDef.setTimeoutSeconds(0);
+        taskDef.setResponseTimeoutSeconds(0);
+        assertEquals(Long.MAX_VALUE, deciderService.getTimeoutDeadline(task));
+    }
+
     @Test
     public void testPopulateWorkflowAndTaskData() {
         String workflowInputPath = "workflow/input/test.json";
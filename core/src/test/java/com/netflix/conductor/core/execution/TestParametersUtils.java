@@ -1,10 +1,14 @@
 package com.netflix.conductor.core.execution;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.utils.JsonUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -95,4 +99,42 @@ public class TestParametersUtils {
 		assertEquals("conductor", replaced.get("k4"));
 		assertEquals(2, replaced.get("k5"));
     }
+
+    @Test
+    public void testGetTaskInputV2() {
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflow_1");
+        workflow.setSchemaVersion(2);
+        workflow.setInput(Collections.singletonMap("requestId", "r1"));
+
+        Task task = new Task();
+        task.setReferenceTaskName("task_1");
+        task.setTaskId("task_id_1");
+        task.setStatus(Task.Status.COMPLETED);
+        task.setOutputData(Collections.singletonMap("items", Arrays.asList(1, 2)));
+        workflow.getTasks().add(task);
+
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("status", "${task_1.status}");
+        nested.put("list", Arrays.asList("${workflow.workflowId}", 3));
+
+        Map<String, Object> template = new HashMap<>();
+        template.put("items", "${task_1.output.items}");
+        template.put("message", "request ${workflow.input.requestId} of ${workflow.workflowId}");
+        template.put("missing", "${task_2.output.items}");
+        template.put("nested", nested);
+
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> input = parametersUtils.getTaskInputV2(template, workflow, null, null);
+            assertEquals(Arrays.asList(1, 2), input.get("items"));
+            assertEquals("request r1 of workflow_1", input.get("message"));
+            assertNull(input.get("missing"));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> replacedNested = (Map<String, Object>) input.get("nested");
+            assertEquals("COMPLETED", replacedNested.get("status"));
+            assertEquals(Arrays.asList("workflow_1", 3), replacedNested.get("list"));
+        }
+        // the template is not modified by the replacement
+        assertEquals("${task_1.status}", nested.get("status"));
+    }
 }
@@ -21,6 +21,7 @@ import com.netflix.conductor.common.metadata.tasks.PollData;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.metadata.workflow.TaskType;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
@@ -42,8 +43,10 @@ import com.netflix.conductor.core.execution.tasks.Wait;
 import com.netflix.conductor.core.execution.tasks.WorkflowSystemTask;
 import com.netflix.conductor.core.metadata.MetadataMapperService;
 import com.netflix.conductor.core.orchestration.ExecutionDAOFacade;
+import com.netflix.conductor.core.orchestration.WorkflowPartitioner;
 import com.netflix.conductor.core.utils.ExternalPayloadStorageUtils;
 import com.netflix.conductor.core.utils.IDGenerator;
+import com.netflix.conductor.core.utils.LocalLockProvider;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
 import org.junit.Before;
@@ -59,6 +62,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -72,6 +79,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
@@ -117,7 +126,9 @@ public class TestWorkflowExecutor {
 
         DeciderService deciderService = new DeciderService(parametersUtils, queueDAO, metadataDAO, externalPayloadStorageUtils, taskMappers);
         MetadataMapperService metadataMapperService = new MetadataMapperService(metadataDAO);
-        workflowExecutor = new WorkflowExecutor(deciderService, metadataDAO, queueDAO, metadataMapperService, workflowStatusListener, executionDAOFacade, externalPayloadStorageUtils, config);
+        when(executionDAOFacade.checkOutWorkflow(anyString()))
+                .thenAnswer(invocation -> executionDAOFacade.getWorkflowById(invocation.getArgumentAt(0, String.class), true));
+        workflowExecutor = new WorkflowExecutor(deciderService, metadataDAO, queueDAO, metadataMapperService, workflowStatusListener, executionDAOFacade, externalPayloadStorageUtils, new LocalLockProvider(config), new WorkflowPartitioner(config, queueDAO), config);
     }
 
     @Test
@@ -261,7 +272,7 @@ public class TestWorkflowExecutor {
         doAnswer(invocation -> {
             updateWorkflowCalledCounter.incrementAndGet();
             return null;
-        }).when(executionDAOFacade).updateWorkflow(any());
+        }).when(executionDAOFacade).updateWorkflowAndTasks(any(), any());
 
         AtomicInteger updateTasksCalledCounter = new AtomicInteger(0);
         doAnswer(invocation -> {
@@ -278,7 +289,7 @@ public class TestWorkflowExecutor {
         workflowExecutor.completeWorkflow(workflow);
         assertEquals(Workflow.WorkflowStatus.COMPLETED, workflow.getStatus());
         assertEquals(1, updateWorkflowCalledCounter.get());
-        assertEquals(1, updateTasksCalledCounter.get());
+        assertEquals(0, updateTasksCalledCounter.get());
         assertEquals(1, removeQueueEntryCalledCounter.get());
 
         verify(workflowStatusListener, times(0)).onWorkflowCompleted(any(Workflow.class));
@@ -310,7 +321,7 @@ public class TestWorkflowExecutor {
         doAnswer(invocation -> {
             updateWorkflowCalledCounter.incrementAndGet();
             return null;
-        }).when(executionDAOFacade).updateWorkflow(any());
+        }).when(executionDAOFacade).updateWorkflowAndTasks(any(), any());
 
         AtomicInteger updateTasksCalledCounter = new AtomicInteger(0);
         doAnswer(invocation -> {
@@ -327,6 +338,7 @@ public class TestWorkflowExecutor {
         workflowExecutor.terminateWorkflow("workflowId", "reason");
         assertEquals(Workflow.WorkflowStatus.TERMINATED, workflow.getStatus());
         assertEquals(1, updateWorkflowCalledCounter.get());
+        assertEquals(1, updateTasksCalledCounter.get());
         assertEquals(1, removeQueueEntryCalledCounter.get());
 
         verify(workflowStatusListener, times(0)).onWorkflowTerminated(any(Workflow.class));
@@ -635,6 +647,190 @@ public class TestWorkflowExecutor {
         assertNull(activeDomain);
     }
 
+    @Test
+    public void testConcurrentDecidesAreCoalesced() {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName("test");
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setReferenceTaskName("task_ref");
+        task.setStatus(Status.IN_PROGRESS);
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.setWorkflowDefinition(workflowDef);
+        workflow.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow.setTasks(Collections.singletonList(task));
+
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean coalescedResult = new AtomicBoolean(true);
+        when(executionDAOFacade.getWorkflowById(anyString(), anyBoolean())).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                // requests arriving while the decide is in flight are queued, not evaluated
+                coalescedResult.set(workflowExecutor.decide("workflowId"));
+                workflowExecutor.decide("workflowId");
+            }
+            return workflow;
+        });
+
+        assertFalse(workflowExecutor.decide("workflowId"));
+        assertFalse(coalescedResult.get());
+        // one evaluation for the original request and a single re-evaluation for the queued ones
+        assertEquals(2, loads.get());
+
+        // once released, the next request is evaluated by its caller
+        assertFalse(workflowExecutor.decide("workflowId"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testDecidesFromOtherThreadsAreCoalesced() throws Exception {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName("test");
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setReferenceTaskName("task_ref");
+        task.setStatus(Status.IN_PROGRESS);
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.setWorkflowDefinition(workflowDef);
+        workflow.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow.setTasks(Collections.singletonList(task));
+
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch requested = new CountDownLatch(1);
+        when(executionDAOFacade.getWorkflowById(anyString(), anyBoolean())).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                // hold the first evaluation until the other threads requested a decide
+                evaluating.countDown();
+                assertTrue(requested.await(10, TimeUnit.SECONDS));
+            }
+            return workflow;
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            Future<Boolean> first = executorService.submit(() -> workflowExecutor.decide("workflowId"));
+            assertTrue(evaluating.await(10, TimeUnit.SECONDS));
+
+            Future<Boolean> second = executorService.submit(() -> workflowExecutor.decide("workflowId"));
+            Future<Boolean> third = executorService.submit(() -> workflowExecutor.decide("workflowId"));
+            // queued for re-evaluation by the in-flight decide, not evaluated by their callers
+            assertFalse(second.get(10, TimeUnit.SECONDS));
+            assertFalse(third.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+
+            requested.countDown();
+            assertFalse(first.get(10, TimeUnit.SECONDS));
+        } finally {
+            requested.countDown();
+            executorService.shutdownNow();
+        }
+        // one evaluation for the first request and a single re-evaluation for the two queued ones
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testUpdateTasksLoadsAndDecidesEachWorkflowOnce() {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName("test");
+        Task task1 = new Task();
+        task1.setTaskId("taskId1");
+        task1.setTaskType("simple");
+        task1.setReferenceTaskName("task1_ref");
+        task1.setStatus(Status.IN_PROGRESS);
+        Task task2 = new Task();
+        task2.setTaskId("taskId2");
+        task2.setTaskType("simple");
+        task2.setReferenceTaskName("task2_ref");
+        task2.setStatus(Status.IN_PROGRESS);
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.setWorkflowDefinition(workflowDef);
+        workflow.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow.setTasks(Arrays.asList(task1, task2));
+        when(executionDAOFacade.getWorkflowById(anyString(), anyBoolean())).thenReturn(workflow);
+
+        TaskResult result1 = new TaskResult(task1);
+        result1.setWorkflowInstanceId("workflowId");
+        result1.setStatus(TaskResult.Status.COMPLETED);
+        TaskResult result2 = new TaskResult(task2);
+        result2.setWorkflowInstanceId("workflowId");
+        result2.setStatus(TaskResult.Status.FAILED);
+        TaskResult unknownTask = new TaskResult();
+        unknownTask.setTaskId("unknownTaskId");
+        unknownTask.setWorkflowInstanceId("workflowId");
+        TaskResult noWorkflow = new TaskResult();
+        noWorkflow.setTaskId("taskId3");
+
+        Map<String, String> failedTasks = workflowExecutor.updateTasks(Arrays.asList(result1, result2, unknownTask, noWorkflow));
+
+        assertEquals(2, failedTasks.size());
+        assertTrue(failedTasks.containsKey("unknownTaskId"));
+        assertTrue(failedTasks.containsKey("taskId3"));
+        assertEquals(Status.COMPLETED, task1.getStatus());
+        assertEquals(Status.FAILED, task2.getStatus());
+        assertTrue(workflow.getFailedReferenceTaskNames().contains("task2_ref"));
+        // the updated tasks are persisted in one batch
+        verify(executionDAOFacade, never()).updateTask(any());
+        verify(executionDAOFacade, times(1)).updateTasks(Arrays.asList(task1, task2));
+        verify(executionDAOFacade, times(1)).updateWorkflow(workflow);
+        // one load to apply the results and one to decide the workflow
+        verify(executionDAOFacade, times(2)).getWorkflowById(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testUpdateTasksWhenPersistingFails() {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName("test");
+        Task task1 = new Task();
+        task1.setTaskId("taskId1");
+        task1.setTaskType("simple");
+        task1.setReferenceTaskName("task1_ref");
+        task1.setWorkflowInstanceId("workflowId1");
+        task1.setStatus(Status.IN_PROGRESS);
+        Task task2 = new Task();
+        task2.setTaskId("taskId2");
+        task2.setTaskType("simple");
+        task2.setReferenceTaskName("task2_ref");
+        task2.setWorkflowInstanceId("workflowId2");
+        task2.setStatus(Status.IN_PROGRESS);
+
+        Workflow workflow1 = new Workflow();
+        workflow1.setWorkflowId("workflowId1");
+        workflow1.setWorkflowDefinition(workflowDef);
+        workflow1.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow1.setTasks(Collections.singletonList(task1));
+        Workflow workflow2 = new Workflow();
+        workflow2.setWorkflowId("workflowId2");
+        workflow2.setWorkflowDefinition(workflowDef);
+        workflow2.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow2.setTasks(Collections.singletonList(task2));
+        when(executionDAOFacade.getWorkflowById(eq("workflowId1"), anyBoolean())).thenReturn(workflow1);
+        when(executionDAOFacade.getWorkflowById(eq("workflowId2"), anyBoolean())).thenReturn(workflow2);
+        doAnswer(invocation -> {
+            throw new IllegalStateException("store unavailable");
+        }).when(executionDAOFacade).updateTasks(Collections.singletonList(task1));
+
+        TaskResult result1 = new TaskResult(task1);
+        result1.setStatus(TaskResult.Status.COMPLETED);
+        TaskResult result2 = new TaskResult(task2);
+        result2.setStatus(TaskResult.Status.COMPLETED);
+
+        Map<String, String> failedTasks = workflowExecutor.updateTasks(Arrays.asList(result1, result2));
+
+        // the failure of a workflow does not prevent the others from being updated
+        assertEquals(1, failedTasks.size());
+        assertTrue(failedTasks.containsKey("taskId1"));
+        verify(executionDAOFacade, times(1)).updateTasks(Collections.singletonList(task2));
+        // a workflow whose tasks were not persisted is not decided
+        verify(executionDAOFacade, times(1)).getWorkflowById(eq("workflowId1"), anyBoolean());
+        verify(executionDAOFacade, times(2)).getWorkflowById(eq("workflowId2"), anyBoolean());
+    }
+
     @Test
     public void testDedupAndAddTasks() {
         Workflow workflow = new Workflow();
@@ -669,4 +865,208 @@ public class TestWorkflowExecutor {
         assertEquals(newTask, taskList.get(0));
         assertEquals(3, workflow.getTasks().size());
     }
+
+    @Test
+    public void testUpdateParentWorkflowTask() {
+        Task parentTask = new Task();
+        parentTask.setTaskId("parentTaskId");
+        parentTask.setWorkflowInstanceId("parentWorkflowId");
+        parentTask.setTaskType(TaskType.SUB_WORKFLOW.name());
+        parentTask.setReferenceTaskName("sub_workflow_ref");
+        parentTask.setStatus(Status.IN_PROGRESS);
+        parentTask.getOutputData().put("subWorkflowId", "subWorkflowId");
+
+        Workflow parent = new Workflow();
+        parent.setWorkflowId("parentWorkflowId");
+        parent.setWorkflowDefinition(new WorkflowDef());
+        parent.setStatus(Workflow.WorkflowStatus.RUNNING);
+        parent.getTasks().add(parentTask);
+
+        Workflow subWorkflow = new Workflow();
+        subWorkflow.setWorkflowId("subWorkflowId");
+        subWorkflow.setParentWorkflowId("parentWorkflowId");
+        subWorkflow.setParentWorkflowTaskId("parentTaskId");
+        subWorkflow.setStatus(Workflow.WorkflowStatus.COMPLETED);
+        subWorkflow.setOutput(Collections.singletonMap("result", "done"));
+
+        when(executionDAOFacade.getTaskById("parentTaskId")).thenReturn(parentTask);
+        when(executionDAOFacade.getWorkflowById(eq("parentWorkflowId"), anyBoolean())).thenReturn(parent);
+
+        workflowExecutor.updateParentWorkflowTask(subWorkflow);
+
+        assertEquals(Status.COMPLETED, parentTask.getStatus());
+        assertEquals("subWorkflowId", parentTask.getOutputData().get("subWorkflowId"));
+        assertEquals("done", parentTask.getOutputData().get("result"));
+        verify(executionDAOFacade, atLeastOnce()).updateTask(parentTask);
+        // the sub workflow is not read again
+        verify(executionDAOFacade, never()).getWorkflowById(eq("subWorkflowId"), anyBoolean());
+    }
+
+    @Test
+    public void testUpdateParentWorkflowTaskNotStarted() {
+        Task parentTask = new Task();
+        parentTask.setTaskId("parentTaskId");
+        parentTask.setStatus(Status.SCHEDULED);
+
+        Workflow subWorkflow = new Workflow();
+        subWorkflow.setWorkflowId("subWorkflowId");
+        subWorkflow.setParentWorkflowId("parentWorkflowId");
+        subWorkflow.setParentWorkflowTaskId("parentTaskId");
+        subWorkflow.setStatus(Workflow.WorkflowStatus.FAILED);
+
+        when(executionDAOFacade.getTaskById("parentTaskId")).thenReturn(parentTask);
+
+        workflowExecutor.updateParentWorkflowTask(subWorkflow);
+
+        assertEquals(Status.SCHEDULED, parentTask.getStatus());
+        verify(executionDAOFacade, never()).updateTask(any());
+        verify(executionDAOFacade, never()).getWorkflowById(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testGetSweepDelay() {
+        TestConfiguration config = new TestConfiguration() {
+            @Override
+            public boolean getBooleanProperty(String name, boolean defaultValue) {
+                return "workflow.sweeper.deadline.scheduling.enabled".equals(name);
+            }
+        };
+        ExternalPayloadStorageUtils externalPayloadStorageUtils = mock(ExternalPayloadStorageUtils.class);
+        DeciderService deciderService = new DeciderService(new ParametersUtils(), queueDAO, metadataDAO, externalPayloadStorageUtils, new HashMap<>());
+        WorkflowExecutor executor = new WorkflowExecutor(deciderService, metadataDAO, queueDAO, new MetadataMapperService(metadataDAO),
+                workflowStatusListener, executionDAOFacade, externalPayloadStorageUtils, new LocalLockProvider(config), new WorkflowPartitioner(config, queueDAO), config);
+
+        TaskDef taskDef = new TaskDef("task");
+        taskDef.setTimeoutSeconds(60);
+        taskDef.setResponseTimeoutSeconds(0);
+        WorkflowTask workflowTask = new WorkflowTask();
+        workflowTask.setTaskDefinition(taskDef);
+
+        Task task = new Task();
+        task.setTaskType("task");
+        task.setStatus(Status.IN_PROGRESS);
+        task.setStartTime(System.currentTimeMillis());
+        task.setWorkflowTask(workflowTask);
+
+        Workflow workflow = new Workflow();
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        workflow.getTasks().add(task);
+
+        // an idle workflow is due when its task times out
+        long sweepDelay = executor.getSweepDelay(workflow);
+        assertTrue(sweepDelay >= 59 && sweepDelay <= 60);
+        assertEquals(1, workflowExecutor.getSweepDelay(workflow));
+
+        // and after the max delay if none of its tasks can time out
+        taskDef.setTimeoutSeconds(0);
+        assertEquals(100, executor.getSweepDelay(workflow));
+
+        // a task which already timed out is evaluated at the sweep frequency
+        taskDef.setTimeoutSeconds(60);
+        task.setStartTime(System.currentTimeMillis() - 61000);
+        assertEquals(1, executor.getSweepDelay(workflow));
+
+        // so is a workflow running a synchronous system task
+        new Wait();
+        task.setStartTime(System.currentTimeMillis());
+        Task waitTask = new Task();
+        waitTask.setTaskType(Wait.NAME);
+        waitTask.setStatus(Status.IN_PROGRESS);
+        workflow.getTasks().add(waitTask);
+        assertEquals(1, executor.getSweepDelay(workflow));
+    }
+
+    @Test
+    public void testGetSweepDelayOfScheduledTask() {
+        TestConfiguration config = new TestConfiguration() {
+            @Override
+            public boolean getBooleanProperty(String name, boolean defaultValue) {
+                return "workflow.sweeper.deadline.scheduling.enabled".equals(name);
+            }
+        };
+        ExternalPayloadStorageUtils externalPayloadStorageUtils = mock(ExternalPayloadStorageUtils.class);
+        DeciderService deciderService = new DeciderService(new ParametersUtils(), queueDAO, metadataDAO, externalPayloadStorageUtils, new HashMap<>());
+        WorkflowExecutor executor = new WorkflowExecutor(deciderService, metadataDAO, queueDAO, new MetadataMapperService(metadataDAO),
+                workflowStatusListener, executionDAOFacade, externalPayloadStorageUtils, new LocalLockProvider(config), new WorkflowPartitioner(config, queueDAO), config);
+
+        TaskDef taskDef = new TaskDef("task");
+        taskDef.setTimeoutSeconds(60);
+        taskDef.setResponseTimeoutSeconds(30);
+        WorkflowTask workflowTask = new WorkflowTask();
+        workflowTask.setTaskDefinition(taskDef);
+
+        Task task = new Task();
+        task.setTaskType("task");
+        task.setStatus(Status.SCHEDULED);
+        task.setWorkflowTask(workflowTask);
+
+        Workflow workflow = new Workflow();
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        workflow.getTasks().add(task);
+
+        // a workflow waiting for its task to be polled is due when the task would time out if it was polled now
+        long sweepDelay = executor.getSweepDelay(workflow);
+        assertTrue(sweepDelay >= 29 && sweepDelay <= 30);
+
+        // the task polled after the workflow was postponed is timed out from the evaluation at that bound
+        task.setStatus(Status.IN_PROGRESS);
+        task.setStartTime(System.currentTimeMillis() - 25000);
+        task.setUpdateTime(System.currentTimeMillis() - 25000);
+        sweepDelay = executor.getSweepDelay(workflow);
+        assertTrue(sweepDelay >= 4 && sweepDelay <= 5);
+
+        // a scheduled task which cannot time out does not bound the delay
+        task.setStatus(Status.SCHEDULED);
+        taskDef.setTimeoutSeconds(0);
+        taskDef.setResponseTimeoutSeconds(0);
+        assertEquals(100, executor.getSweepDelay(workflow));
+    }
+
+    @Test
+    public void testSweepOfWorkflowOwnedByAnotherNode() {
+        TestConfiguration config = new TestConfiguration() {
+            @Override
+            public String getProperty(String name, String defaultValue) {
+                return "workflow.partitioning.members".equals(name) ? "server_id,other_server_id" : defaultValue;
+            }
+
+            @Override
+            public boolean getBooleanProperty(String name, boolean defaultValue) {
+                return "workflow.partitioning.enabled".equals(name);
+            }
+        };
+        WorkflowPartitioner partitioner = new WorkflowPartitioner(config, queueDAO);
+        DeciderService deciderService = new DeciderService(new ParametersUtils(), queueDAO, metadataDAO, mock(ExternalPayloadStorageUtils.class), new HashMap<>());
+        WorkflowExecutor executor = new WorkflowExecutor(deciderService, metadataDAO, queueDAO, new MetadataMapperService(metadataDAO),
+                workflowStatusListener, executionDAOFacade, mock(ExternalPayloadStorageUtils.class), new LocalLockProvider(config), partitioner, config);
+
+        String workflowId;
+        do {
+            workflowId = UUID.randomUUID().toString();
+        } while (partitioner.isOwner(workflowId));
+        String ownerQueue = WorkflowPartitioner.getDeciderQueue("other_server_id");
+
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName("test");
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setReferenceTaskName("task_ref");
+        task.setStatus(Status.IN_PROGRESS);
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId(workflowId);
+        workflow.setWorkflowDefinition(workflowDef);
+        workflow.setStatus(Workflow.WorkflowStatus.PAUSED);
+        workflow.setTasks(Collections.singletonList(task));
+        when(executionDAOFacade.getWorkflowById(anyString(), anyBoolean())).thenReturn(workflow);
+
+        // forwarded to the owner, and swept again once the owner had the time to decide it
+        when(queueDAO.pushIfNotExists(ownerQueue, workflowId, 0)).thenReturn(true);
+        assertEquals(partitioner.getForwardTimeoutSeconds(), executor.decideAndGetSweepDelay(workflowId));
+        verify(executionDAOFacade, never()).getWorkflowById(anyString(), anyBoolean());
+
+        // the request forwarded to the owner is still pending, the owner is presumed down
+        when(queueDAO.pushIfNotExists(ownerQueue, workflowId, 0)).thenReturn(false);
+        assertEquals(config.getSweepFrequency(), executor.decideAndGetSweepDelay(workflowId));
+        verify(executionDAOFacade).getWorkflowById(workflowId, true);
+    }
 }
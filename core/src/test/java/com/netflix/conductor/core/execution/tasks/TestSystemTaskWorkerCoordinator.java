@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.execution.tasks;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSystemTaskWorkerCoordinator {
+
+    @Test
+    public void testParseLanes() {
+        Map<String, Integer> lanes = SystemTaskWorkerCoordinator.parseLanes("HTTP=20; SUB_WORKFLOW, EVENT = 5;");
+        assertEquals(2, lanes.size());
+        assertEquals(20, lanes.get("HTTP").intValue());
+        assertEquals(5, lanes.get("SUB_WORKFLOW,EVENT").intValue());
+
+        assertTrue(SystemTaskWorkerCoordinator.parseLanes("").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLane() {
+        SystemTaskWorkerCoordinator.parseLanes("HTTP");
+    }
+
+    @Test
+    public void testPollDelayAdapts() {
+        // a full batch is followed by an immediate poll
+        assertEquals(0, SystemTaskWorkerCoordinator.nextPollDelay(10, 10, 50, 50, 1000));
+        // a partial batch keeps the base interval
+        assertEquals(50, SystemTaskWorkerCoordinator.nextPollDelay(3, 10, 0, 50, 1000));
+        // empty polls back off up to the max interval
+        assertEquals(50, SystemTaskWorkerCoordinator.nextPollDelay(0, 10, 0, 50, 1000));
+        assertEquals(100, SystemTaskWorkerCoordinator.nextPollDelay(0, 10, 50, 50, 1000));
+        assertEquals(1000, SystemTaskWorkerCoordinator.nextPollDelay(0, 10, 800, 50, 1000));
+    }
+}
@@ -0,0 +1,118 @@
+package com.netflix.conductor.core.metadata;
+
+import com.netflix.conductor.common.metadata.events.EventHandler;
+import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
+import com.netflix.conductor.common.utils.JsonMapperProvider;
+import com.netflix.conductor.dao.MetadataDAO;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingMetadataDAOTest {
+
+    private MetadataDAO metadataDAO;
+    private MetadataChangeNotifier changeNotifier;
+    private CachingMetadataDAO cachingMetadataDAO;
+    private Runnable changeListener;
+
+    @Before
+    public void setUp() {
+        metadataDAO = mock(MetadataDAO.class);
+        changeNotifier = mock(MetadataChangeNotifier.class);
+        cachingMetadataDAO = new CachingMetadataDAO(metadataDAO, changeNotifier, new JsonMapperProvider().get());
+
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(changeNotifier).subscribe(listener.capture());
+        changeListener = listener.getValue();
+    }
+
+    @Test
+    public void testWorkflowDefIsCachedByVersion() {
+        when(metadataDAO.get("workflow", 1)).thenReturn(Optional.of(workflowDef("workflow", 1)));
+
+        WorkflowDef first = cachingMetadataDAO.get("workflow", 1).get();
+        WorkflowDef second = cachingMetadataDAO.get("workflow", 1).get();
+
+        verify(metadataDAO, times(1)).get("workflow", 1);
+        assertEquals(first, second);
+        // callers populate the definitions they get, each lookup returns its own instance
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testLatestWorkflowDef() {
+        when(metadataDAO.getLatest("workflow")).thenReturn(Optional.of(workflowDef("workflow", 2)));
+
+        assertEquals(2, cachingMetadataDAO.getLatest("workflow").get().getVersion());
+        assertEquals(2, cachingMetadataDAO.getLatest("workflow").get().getVersion());
+        assertEquals(2, cachingMetadataDAO.get("workflow", 2).get().getVersion());
+        verify(metadataDAO, times(1)).getLatest("workflow");
+        verify(metadataDAO, times(0)).get("workflow", 2);
+
+        WorkflowDef newVersion = workflowDef("workflow", 3);
+        cachingMetadataDAO.create(newVersion);
+        verify(changeNotifier).publish();
+
+        when(metadataDAO.getLatest("workflow")).thenReturn(Optional.of(newVersion));
+        assertEquals(3, cachingMetadataDAO.getLatest("workflow").get().getVersion());
+        verify(metadataDAO, times(2)).getLatest("workflow");
+    }
+
+    @Test
+    public void testChangeOnOtherNodeInvalidatesCache() {
+        when(metadataDAO.get("workflow", 1)).thenReturn(Optional.of(workflowDef("workflow", 1)));
+        cachingMetadataDAO.get("workflow", 1);
+        cachingMetadataDAO.get("workflow", 1);
+        verify(metadataDAO, times(1)).get("workflow", 1);
+
+        changeListener.run();
+        cachingMetadataDAO.get("workflow", 1);
+        verify(metadataDAO, times(2)).get("workflow", 1);
+    }
+
+    @Test
+    public void testEventHandlersForEvent() {
+        EventHandler active = eventHandler("active", true);
+        EventHandler inactive = eventHandler("inactive", false);
+        when(metadataDAO.getEventHandlersForEvent("event", false)).thenReturn(Arrays.asList(active, inactive));
+
+        List<EventHandler> activeHandlers = cachingMetadataDAO.getEventHandlersForEvent("event", true);
+        List<EventHandler> allHandlers = cachingMetadataDAO.getEventHandlersForEvent("event", false);
+
+        assertEquals(1, activeHandlers.size());
+        assertTrue(activeHandlers.contains(active));
+        assertEquals(2, allHandlers.size());
+        verify(metadataDAO, times(1)).getEventHandlersForEvent("event", false);
+
+        cachingMetadataDAO.updateEventHandler(inactive);
+        cachingMetadataDAO.getEventHandlersForEvent("event", true);
+        verify(metadataDAO, times(2)).getEventHandlersForEvent("event", false);
+    }
+
+    private WorkflowDef workflowDef(String name, int version) {
+        WorkflowDef workflowDef = new WorkflowDef();
+        workflowDef.setName(name);
+        workflowDef.setVersion(version);
+        return workflowDef;
+    }
+
+    private EventHandler eventHandler(String name, boolean active) {
+        EventHandler eventHandler = new EventHandler();
+        eventHandler.setName(name);
+        eventHandler.setEvent("event");
+        eventHandler.setActive(active);
+        return eventHandler;
+    }
+}
@@ -15,19 +15,25 @@ package com.netflix.conductor.core.orchestration;
 import com.amazonaws.util.IOUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.common.metadata.events.EventExecution;
+import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.run.SearchResult;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.common.utils.JsonMapperProvider;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.execution.TestConfiguration;
 import com.netflix.conductor.core.execution.TestDeciderService;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.IndexDAO;
+import com.netflix.conductor.dao.QueueDAO;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -36,7 +42,9 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -55,7 +63,12 @@ public class ExecutionDAOFacadeTest {
         executionDAO = mock(ExecutionDAO.class);
         indexDAO = mock(IndexDAO.class);
         objectMapper = new JsonMapperProvider().get();
-        executionDAOFacade = new ExecutionDAOFacade(executionDAO, indexDAO, objectMapper);
+        IndexingPipeline indexingPipeline = new IndexingPipeline(indexDAO, new TestConfiguration());
+        PollDataTracker pollDataTracker = new PollDataTracker(executionDAO, new TestConfiguration());
+        WorkflowPartitioner workflowPartitioner = new WorkflowPartitioner(new TestConfiguration(), mock(QueueDAO.class));
+        WorkflowCache workflowCache = new WorkflowCache(workflowPartitioner, new TestConfiguration());
+        executionDAOFacade = new ExecutionDAOFacade(executionDAO, indexDAO, objectMapper, indexingPipeline, pollDataTracker,
+                workflowCache, workflowPartitioner);
     }
 
     @Test
@@ -127,4 +140,147 @@ public class ExecutionDAOFacadeTest {
         assertTrue(added);
         verify(indexDAO, times(1)).addEventExecution(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateTasksInOneBatch() {
+        Task task1 = new Task();
+        task1.setTaskId("task1");
+        Task task2 = new Task();
+        task2.setTaskId("task2");
+        List<Task> tasks = Arrays.asList(task1, task2);
+
+        executionDAOFacade.updateTasks(tasks);
+        verify(executionDAO, times(1)).updateTasks(tasks);
+        verify(executionDAO, never()).updateTask(any());
+        verify(indexDAO, times(1)).indexTasks(tasks);
+        verify(indexDAO, never()).indexTask(any());
+    }
+
+    @Test
+    public void testUnchangedTasksAreNotWritten() {
+        Task unchanged = new Task();
+        unchanged.setTaskId("unchanged");
+        unchanged.setStatus(Task.Status.IN_PROGRESS);
+        Task changed = new Task();
+        changed.setTaskId("changed");
+        changed.setStatus(Task.Status.IN_PROGRESS);
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.getTasks().addAll(Arrays.asList(unchanged, changed));
+        when(executionDAO.getWorkflow(anyString(), anyBoolean())).thenReturn(workflow);
+
+        executionDAOFacade.checkOutWorkflow("workflowId");
+        changed.setStatus(Task.Status.COMPLETED);
+        executionDAOFacade.updateTasks(Arrays.asList(unchanged, changed));
+        verify(executionDAO, times(1)).updateTasks(Collections.singletonList(changed));
+        verify(indexDAO, times(1)).indexTasks(Collections.singletonList(changed));
+
+        // in place changes of the output are detected as well
+        unchanged.getOutputData().put("key", "value");
+        executionDAOFacade.updateTasks(Arrays.asList(unchanged, changed));
+        verify(executionDAO, times(1)).updateTasks(Collections.singletonList(unchanged));
+
+        executionDAOFacade.updateTasks(Arrays.asList(unchanged, changed));
+        verify(executionDAO, times(2)).updateTasks(any());
+    }
+
+    @Test
+    public void testUnchangedWorkflowIsNotWritten() {
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        when(executionDAO.getWorkflow(anyString(), anyBoolean())).thenReturn(workflow);
+
+        executionDAOFacade.checkOutWorkflow("workflowId");
+        executionDAOFacade.updateWorkflow(workflow);
+        verify(executionDAO, never()).updateWorkflow(any());
+
+        workflow.setStatus(Workflow.WorkflowStatus.COMPLETED);
+        assertTrue(workflow.hasStatusChangedSincePersisted());
+        executionDAOFacade.updateWorkflow(workflow);
+        verify(executionDAO, times(1)).updateWorkflow(workflow);
+        assertFalse(workflow.hasStatusChangedSincePersisted());
+    }
+
+    @Test
+    public void testUpdateWorkflowAndTasksWritesChangedTasksOnly() {
+        Task completed = new Task();
+        completed.setTaskId("completed");
+        completed.setStatus(Task.Status.COMPLETED);
+        Task inProgress = new Task();
+        inProgress.setTaskId("inProgress");
+        inProgress.setStatus(Task.Status.IN_PROGRESS);
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        workflow.getTasks().addAll(Arrays.asList(completed, inProgress));
+        when(executionDAO.getWorkflow(anyString(), anyBoolean())).thenReturn(workflow);
+
+        executionDAOFacade.checkOutWorkflow("workflowId");
+        workflow.setStatus(Workflow.WorkflowStatus.TERMINATED);
+        inProgress.setStatus(Task.Status.CANCELED);
+        executionDAOFacade.updateWorkflowAndTasks(workflow, workflow.getTasks());
+
+        verify(executionDAO, times(1)).updateWorkflowAndTasks(workflow, Collections.singletonList(inProgress));
+        verify(executionDAO, never()).updateWorkflow(any());
+        verify(executionDAO, never()).updateTasks(any());
+        verify(indexDAO, times(1)).indexTasks(Collections.singletonList(inProgress));
+        assertFalse(workflow.hasChangesToPersist());
+        assertFalse(inProgress.hasChangesToPersist());
+    }
+
+    @Test
+    public void testReadsAreNotMarkedAsPersisted() {
+        Task task = new Task();
+        task.setTaskId("taskId");
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId("workflowId");
+        workflow.getTasks().add(task);
+        when(executionDAO.getWorkflow(anyString(), anyBoolean())).thenReturn(workflow);
+        when(executionDAO.getTask(anyString())).thenReturn(task);
+
+        executionDAOFacade.getWorkflowById("workflowId", true);
+        executionDAOFacade.getTaskById("taskId");
+        assertFalse(workflow.wasPersisted());
+        assertFalse(task.wasPersisted());
+
+        executionDAOFacade.checkOutWorkflow("workflowId");
+        assertTrue(workflow.wasPersisted());
+        assertTrue(task.wasPersisted());
+    }
+
+    @Test
+    public void testPolledTasksAreNotForwarded() {
+        Configuration config = mock(Configuration.class);
+        when(config.getServerId()).thenReturn("node1");
+        when(config.getBooleanProperty(eq("workflow.partitioning.enabled"), anyBoolean())).thenReturn(true);
+        when(config.getProperty(eq("workflow.partitioning.members"), anyString())).thenReturn("node1,node2");
+        when(config.getIntProperty(eq("workflow.partitioning.virtual.nodes"), anyInt())).thenReturn(64);
+        when(config.getIntProperty(eq("workflow.partitioning.cache.size"), anyInt())).thenReturn(100);
+        when(config.getIntProperty(eq("workflow.partitioning.cache.ttl.seconds"), anyInt())).thenReturn(600);
+        QueueDAO queueDAO = mock(QueueDAO.class);
+        WorkflowPartitioner workflowPartitioner = new WorkflowPartitioner(config, queueDAO);
+        WorkflowCache workflowCache = new WorkflowCache(workflowPartitioner, config);
+        IndexingPipeline indexingPipeline = new IndexingPipeline(indexDAO, new TestConfiguration());
+        PollDataTracker pollDataTracker = new PollDataTracker(executionDAO, new TestConfiguration());
+        ExecutionDAOFacade facade = new ExecutionDAOFacade(executionDAO, indexDAO, objectMapper, indexingPipeline,
+                pollDataTracker, workflowCache, workflowPartitioner);
+
+        String workflowId;
+        do {
+            workflowId = UUID.randomUUID().toString();
+        } while (workflowPartitioner.isOwner(workflowId));
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setWorkflowInstanceId(workflowId);
+        task.setStatus(Task.Status.IN_PROGRESS);
+
+        facade.updatePolledTasks(Collections.singletonList(task));
+        verify(queueDAO, never()).pushIfNotExists(anyString(), anyString(), anyLong());
+
+        task.setStatus(Task.Status.COMPLETED);
+        facade.updateTasks(Collections.singletonList(task));
+        verify(queueDAO, times(1)).pushIfNotExists(WorkflowPartitioner.getDeciderQueue("node2"), workflowId, 0);
+    }
+}
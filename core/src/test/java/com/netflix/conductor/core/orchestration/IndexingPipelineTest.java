@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.IndexDAO;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IndexingPipelineTest {
+
+    private IndexDAO indexDAO;
+    private IndexingPipeline indexingPipeline;
+
+    @Before
+    public void setUp() {
+        indexDAO = mock(IndexDAO.class);
+        Configuration config = mock(Configuration.class);
+        when(config.getBooleanProperty(eq(IndexingPipeline.ENABLED_PROPERTY_NAME), anyBoolean())).thenReturn(true);
+        when(config.getIntProperty(eq(IndexingPipeline.CAPACITY_PROPERTY_NAME), anyInt())).thenReturn(3);
+        when(config.getIntProperty(eq(IndexingPipeline.BATCH_SIZE_PROPERTY_NAME), anyInt())).thenReturn(100);
+        when(config.getIntProperty(eq(IndexingPipeline.FLUSH_INTERVAL_PROPERTY_NAME), anyInt())).thenReturn(60000);
+        when(config.getIntProperty(eq(IndexingPipeline.BACKPRESSURE_TIMEOUT_PROPERTY_NAME), anyInt())).thenReturn(1);
+        indexingPipeline = new IndexingPipeline(indexDAO, config);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testUpdatesAreCoalesced() {
+        Task first = createTask("t1", "w1");
+        Task second = createTask("t1", "w1");
+        second.setStatus(Task.Status.COMPLETED);
+        indexingPipeline.indexTask(first);
+        indexingPipeline.indexTask(second);
+        assertEquals(1, indexingPipeline.size());
+
+        indexingPipeline.flushAll();
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(indexDAO, times(1)).indexTasks(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(second, captor.getValue().get(0));
+        assertEquals(0, indexingPipeline.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBufferedDocumentsAreCopies() {
+        Workflow workflow = createWorkflow("w1");
+        workflow.getTasks().add(createTask("t1", "w1"));
+        Task task = createTask("t1", "w1");
+        task.getOutputData().put("key", "value");
+        indexingPipeline.indexWorkflow(workflow);
+        indexingPipeline.indexTask(task);
+
+        // changes made after the documents were buffered are not indexed
+        workflow.setStatus(Workflow.WorkflowStatus.COMPLETED);
+        task.getOutputData().put("key", "other value");
+        indexingPipeline.flushAll();
+
+        ArgumentCaptor<List> workflows = ArgumentCaptor.forClass(List.class);
+        verify(indexDAO).indexWorkflows(workflows.capture());
+        Workflow indexedWorkflow = (Workflow) workflows.getValue().get(0);
+        assertEquals(Workflow.WorkflowStatus.RUNNING, indexedWorkflow.getStatus());
+        assertTrue(indexedWorkflow.getTasks().isEmpty());
+
+        ArgumentCaptor<List> tasks = ArgumentCaptor.forClass(List.class);
+        verify(indexDAO).indexTasks(tasks.capture());
+        assertEquals("value", ((Task) tasks.getValue().get(0)).getOutputData().get("key"));
+    }
+
+    @Test
+    public void testFailedWorkflowFlushDoesNotSkipTasks() {
+        indexingPipeline.indexWorkflow(createWorkflow("w1"));
+        indexingPipeline.indexTask(createTask("t1", "w1"));
+        doThrow(new RuntimeException("index unavailable")).when(indexDAO).indexWorkflows(anyListOf(Workflow.class));
+
+        indexingPipeline.flushAll();
+        verify(indexDAO, times(1)).indexTasks(anyListOf(Task.class));
+        // only the workflow is put back in the buffer
+        assertEquals(1, indexingPipeline.size());
+    }
+
+    @Test
+    public void testDropsWhenFull() {
+        indexingPipeline.indexTask(createTask("t1", "w1"));
+        indexingPipeline.indexTask(createTask("t2", "w1"));
+        indexingPipeline.indexWorkflow(createWorkflow("w1"));
+        indexingPipeline.indexTask(createTask("t3", "w1"));
+        assertEquals(3, indexingPipeline.size());
+
+        // updates of documents already buffered are still accepted
+        indexingPipeline.indexTask(createTask("t2", "w1"));
+        assertEquals(3, indexingPipeline.size());
+    }
+
+    @Test
+    public void testDiscardWorkflow() {
+        indexingPipeline.indexWorkflow(createWorkflow("w1"));
+        indexingPipeline.indexTask(createTask("t1", "w1"));
+        indexingPipeline.indexTask(createTask("t2", "w2"));
+
+        indexingPipeline.discardWorkflow("w1");
+        assertEquals(1, indexingPipeline.size());
+
+        indexingPipeline.flushAll();
+        verify(indexDAO, never()).indexWorkflows(anyListOf(Workflow.class));
+        verify(indexDAO, times(1)).indexTasks(anyListOf(Task.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFailedFlushIsRetried() {
+        Task first = createTask("t1", "w1");
+        indexingPipeline.indexTask(first);
+        indexingPipeline.indexTask(createTask("t2", "w1"));
+        doThrow(new RuntimeException("index unavailable")).when(indexDAO).indexTasks(anyListOf(Task.class));
+
+        indexingPipeline.flushAll();
+        assertEquals(2, indexingPipeline.size());
+
+        // the newer version of a document wins over the one put back in the buffer
+        Task second = createTask("t2", "w1");
+        second.setStatus(Task.Status.COMPLETED);
+        indexingPipeline.indexTask(second);
+        assertEquals(2, indexingPipeline.size());
+
+        doNothing().when(indexDAO).indexTasks(anyListOf(Task.class));
+        indexingPipeline.flushAll();
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(indexDAO, times(2)).indexTasks(captor.capture());
+        List<Task> indexed = captor.getAllValues().get(1);
+        assertEquals(2, indexed.size());
+        assertTrue(indexed.contains(first));
+        assertTrue(indexed.contains(second));
+        assertEquals(0, indexingPipeline.size());
+    }
+
+    private Task createTask(String taskId, String workflowId) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setWorkflowInstanceId(workflowId);
+        return task;
+    }
+
+    private Workflow createWorkflow(String workflowId) {
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId(workflowId);
+        return workflow;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.netflix.conductor.common.metadata.tasks.PollData;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.ExecutionDAO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PollDataTrackerTest {
+
+    private ExecutionDAO executionDAO;
+    private PollDataTracker pollDataTracker;
+
+    @Before
+    public void setUp() {
+        executionDAO = mock(ExecutionDAO.class);
+        Configuration config = mock(Configuration.class);
+        when(config.getBooleanProperty(eq(PollDataTracker.ENABLED_PROPERTY_NAME), anyBoolean())).thenReturn(true);
+        when(config.getIntProperty(eq(PollDataTracker.FLUSH_INTERVAL_PROPERTY_NAME), anyInt())).thenReturn(60000);
+        when(config.getIntProperty(eq(PollDataTracker.CACHE_TTL_PROPERTY_NAME), anyInt())).thenReturn(60000);
+        pollDataTracker = new PollDataTracker(executionDAO, config);
+    }
+
+    @Test
+    public void testPollsAreCoalesced() {
+        pollDataTracker.recordPoll("task", "domain", "worker1");
+        pollDataTracker.recordPoll("task", "domain", "worker2");
+        pollDataTracker.recordPoll("task", null, "worker1");
+        verify(executionDAO, never()).updateLastPoll(anyString(), anyString(), anyString());
+
+        pollDataTracker.flush();
+        verify(executionDAO, times(1)).updateLastPoll("task", "domain", "worker2");
+        verify(executionDAO, times(1)).updateLastPoll("task", null, "worker1");
+        verify(executionDAO, times(2)).updateLastPoll(anyString(), any(), anyString());
+
+        pollDataTracker.flush();
+        verify(executionDAO, times(2)).updateLastPoll(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void testPollDataIsServedLocally() {
+        pollDataTracker.recordPoll("task", "domain", "worker1");
+        PollData pollData = pollDataTracker.getPollData("task", "domain");
+        assertEquals("worker1", pollData.getWorkerId());
+        verify(executionDAO, never()).getPollData(anyString(), anyString());
+
+        assertNull(pollDataTracker.getPollData("task", "other"));
+        assertNull(pollDataTracker.getPollData("task", "other"));
+        verify(executionDAO, times(1)).getPollData("task", "other");
+    }
+
+    @Test
+    public void testPollDataIsMergedWithStoredValues() {
+        PollData stored = new PollData("task", "other", "worker2", System.currentTimeMillis());
+        when(executionDAO.getPollData("task")).thenReturn(Collections.singletonList(stored));
+        pollDataTracker.recordPoll("task", "domain", "worker1");
+
+        List<PollData> pollData = pollDataTracker.getPollData("task");
+        assertEquals(2, pollData.size());
+    }
+}
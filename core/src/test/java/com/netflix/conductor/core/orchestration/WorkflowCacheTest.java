@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.core.orchestration;
+
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.QueueDAO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorkflowCacheTest {
+
+    private QueueDAO queueDAO;
+    private WorkflowPartitioner partitioner;
+    private WorkflowCache workflowCache;
+
+    @Before
+    public void setUp() {
+        queueDAO = mock(QueueDAO.class);
+        Configuration config = mock(Configuration.class);
+        when(config.getServerId()).thenReturn("node1");
+        when(config.getBooleanProperty(eq("workflow.partitioning.enabled"), anyBoolean())).thenReturn(true);
+        when(config.getProperty(eq("workflow.partitioning.members"), anyString())).thenReturn("node1");
+        when(config.getIntProperty(eq("workflow.partitioning.virtual.nodes"), anyInt())).thenReturn(64);
+        when(config.getIntProperty(eq("workflow.partitioning.cache.size"), anyInt())).thenReturn(100);
+        when(config.getIntProperty(eq("workflow.partitioning.cache.ttl.seconds"), anyInt())).thenReturn(600);
+        partitioner = new WorkflowPartitioner(config, queueDAO);
+        workflowCache = new WorkflowCache(partitioner, config);
+    }
+
+    @Test
+    public void testOwnershipMovesOnlyToNewMember() {
+        partitioner.setMembers(Arrays.asList("node1", "node2"));
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String workflowId = UUID.randomUUID().toString();
+            owners.put(workflowId, partitioner.getOwner(workflowId));
+        }
+        assertTrue(owners.containsValue("node1"));
+        assertTrue(owners.containsValue("node2"));
+
+        partitioner.setMembers(Arrays.asList("node1", "node2", "node3"));
+        owners.forEach((workflowId, owner) -> {
+            String newOwner = partitioner.getOwner(workflowId);
+            assertTrue(newOwner.equals(owner) || newOwner.equals("node3"));
+        });
+    }
+
+    @Test
+    public void testForward() {
+        partitioner.setMembers(Arrays.asList("node1", "node2"));
+        String workflowId = workflowOwnedBy("node2");
+        assertFalse(partitioner.isOwner(workflowId));
+        assertNull(workflowCache.checkOut(workflowId));
+
+        partitioner.forward(workflowId);
+        verify(queueDAO).pushIfNotExists(WorkflowPartitioner.getDeciderQueue("node2"), workflowId, 0);
+    }
+
+    @Test
+    public void testCheckOutAndCheckIn() {
+        Workflow workflow = workflow("workflowId");
+        assertNull(workflowCache.checkOut("workflowId"));
+        workflowCache.loaded("workflowId", workflow);
+        workflowCache.checkIn(workflow);
+
+        Workflow cached = workflowCache.checkOut("workflowId");
+        assertSame(workflow, cached);
+        // a checked out workflow is not shared
+        assertNull(workflowCache.checkOut("workflowId"));
+    }
+
+    @Test
+    public void testWorkflowWithChangesIsNotCheckedIn() {
+        Workflow workflow = workflow("workflowId");
+        workflowCache.checkOut("workflowId");
+        workflowCache.loaded("workflowId", workflow);
+        workflow.getTasks().get(0).setStatus(Task.Status.COMPLETED);
+        workflowCache.checkIn(workflow);
+
+        assertNull(workflowCache.checkOut("workflowId"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        Workflow workflow = workflow("workflowId");
+        workflowCache.checkOut("workflowId");
+        workflowCache.loaded("workflowId", workflow);
+
+        // writing the checked out instances keeps the workflow valid
+        workflowCache.invalidate("workflowId", workflow.getTasks().get(0));
+        workflowCache.invalidate("workflowId", workflow);
+        workflowCache.checkIn(workflow);
+        assertSame(workflow, workflowCache.checkOut("workflowId"));
+
+        // writing another instance does not
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setWorkflowInstanceId("workflowId");
+        workflowCache.invalidate("workflowId", task);
+        workflowCache.checkIn(workflow);
+        assertNull(workflowCache.checkOut("workflowId"));
+    }
+
+    @Test
+    public void testWorkflowChangedByAnotherNodeIsNotServed() {
+        Workflow workflow = workflow("workflowId");
+        workflowCache.checkOut("workflowId");
+        workflowCache.loaded("workflowId", workflow);
+        workflowCache.checkIn(workflow);
+        assertSame(workflow, workflowCache.checkOut("workflowId"));
+        workflowCache.checkIn(workflow);
+        verify(queueDAO, never()).exists(anyString(), anyString());
+
+        // the request forwarded by the other node is popped
+        workflowCache.release("workflowId");
+        assertNull(workflowCache.checkOut("workflowId"));
+    }
+
+    @Test
+    public void testMembershipChangeClearsCache() {
+        Workflow workflow = workflow("workflowId");
+        workflowCache.checkOut("workflowId");
+        workflowCache.loaded("workflowId", workflow);
+        workflowCache.checkIn(workflow);
+
+        partitioner.setMembers(Arrays.asList("node1"));
+        assertNull(workflowCache.checkOut("workflowId"));
+        assertEquals("node1", partitioner.getOwner("workflowId"));
+    }
+
+    private String workflowOwnedBy(String member) {
+        String workflowId;
+        do {
+            workflowId = UUID.randomUUID().toString();
+        } while (!member.equals(partitioner.getOwner(workflowId)));
+        return workflowId;
+    }
+
+    private Workflow workflow(String workflowId) {
+        Task task = new Task();
+        task.setTaskId("taskId");
+        task.setWorkflowInstanceId(workflowId);
+        task.setStatus(Task.Status.IN_PROGRESS);
+        task.markPersisted();
+
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId(workflowId);
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        workflow.getTasks().add(task);
+        workflow.markPersisted();
+        return workflow;
+    }
+}
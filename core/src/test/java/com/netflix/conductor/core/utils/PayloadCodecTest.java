@@ -0,0 +1,98 @@
+package com.netflix.conductor.core.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.utils.JsonMapperProvider;
+import com.netflix.conductor.core.config.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PayloadCodecTest {
+
+    private ObjectMapper objectMapper;
+    private PayloadCodec plainCodec;
+    private PayloadCodec compressingCodec;
+
+    @Before
+    public void setUp() {
+        objectMapper = new JsonMapperProvider().get();
+
+        Configuration plainConfig = mock(Configuration.class);
+        when(plainConfig.getIntProperty(eq("workflow.payload.codec.test.compression.threshold.bytes"), anyInt())).thenReturn(4096);
+        when(plainConfig.getIntProperty(eq("workflow.payload.codec.test.compression.level"), anyInt())).thenReturn(1);
+        plainCodec = new PayloadCodec(objectMapper, plainConfig, "test");
+
+        Configuration config = mock(Configuration.class);
+        when(config.getBooleanProperty(eq("workflow.payload.codec.test.compression.enabled"), anyBoolean())).thenReturn(true);
+        when(config.getIntProperty(eq("workflow.payload.codec.test.compression.threshold.bytes"), anyInt())).thenReturn(1024);
+        when(config.getIntProperty(eq("workflow.payload.codec.test.compression.level"), anyInt())).thenReturn(1);
+        compressingCodec = new PayloadCodec(objectMapper, config, "test");
+    }
+
+    @Test
+    public void testLargePayloadIsCompressed() throws Exception {
+        Task task = task(500);
+
+        String encoded = compressingCodec.encode(task);
+        assertTrue(encoded.startsWith(PayloadCodec.DEFLATE_HEADER));
+        assertTrue(encoded.length() < objectMapper.writeValueAsString(task).length() / 2);
+
+        Task decoded = compressingCodec.decode(encoded, Task.class);
+        assertEquals(task.getTaskId(), decoded.getTaskId());
+        assertEquals(task.getOutputData(), decoded.getOutputData());
+
+        // a server with compression disabled still reads compressed documents
+        assertEquals(task.getOutputData(), plainCodec.decode(encoded, Task.class).getOutputData());
+    }
+
+    @Test
+    public void testSmallPayloadIsPlainJson() throws Exception {
+        Task task = task(1);
+
+        String encoded = compressingCodec.encode(task);
+        assertFalse(encoded.startsWith(PayloadCodec.DEFLATE_HEADER));
+        assertEquals(objectMapper.writeValueAsString(task), encoded);
+    }
+
+    @Test
+    public void testCompressionDisabled() throws Exception {
+        Task task = task(500);
+
+        String encoded = plainCodec.encode(task);
+        assertEquals(objectMapper.writeValueAsString(task), encoded);
+    }
+
+    @Test
+    public void testLegacyJsonIsReadable() throws Exception {
+        Task task = task(500);
+        String json = objectMapper.writeValueAsString(task);
+
+        assertEquals(task.getOutputData(), compressingCodec.decode(json, Task.class).getOutputData());
+        assertNull(compressingCodec.decode(null, Task.class));
+    }
+
+    private Task task(int outputEntries) {
+        Task task = new Task();
+        task.setTaskId("t1");
+        task.setTaskType("task");
+        Map<String, Object> output = new HashMap<>();
+        for (int i = 0; i < outputEntries; i++) {
+            output.put("key" + i, "some repetitive output value " + i);
+        }
+        task.setOutputData(output);
+        return task;
+    }
+}
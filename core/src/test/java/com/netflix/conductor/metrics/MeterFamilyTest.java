@@ -0,0 +1,61 @@
+package com.netflix.conductor.metrics;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MeterFamilyTest {
+
+    private Registry registry;
+    private MeterFamily<Counter> counters;
+
+    @Before
+    public void setUp() {
+        registry = new DefaultRegistry();
+        counters = new MeterFamily<>(registry, "dao_requests", Collections.singletonMap("class", "WorkflowMonitor"),
+                new String[]{"dao", "action"}, registry::counter);
+    }
+
+    @Test
+    public void testMetersAreInterned() {
+        Counter counter = counters.get("redis", "getTask");
+        assertSame(counter, counters.get("redis", "getTask"));
+        assertSame(counter, counters.get(new String[]{"redis", "getTask"}));
+        assertNotSame(counter, counters.get("redis", "updateTask"));
+
+        counter.increment();
+        counters.get("redis", "getTask").increment();
+        assertEquals(2, registry.counter("dao_requests", "class", "WorkflowMonitor", "dao", "redis", "action", "getTask").count());
+    }
+
+    @Test
+    public void testNullAndEmptyValues() {
+        counters.get("redis", null).increment();
+        assertEquals(1, registry.counter("dao_requests", "class", "WorkflowMonitor", "dao", "redis", "action", "null").count());
+
+        counters.get("redis", "").increment();
+        assertEquals(1, registry.counter("dao_requests", "class", "WorkflowMonitor", "dao", "redis").count());
+    }
+
+    @Test
+    public void testNoTags() {
+        MeterFamily<Counter> untagged = new MeterFamily<>(registry, "workflow_lock_failure",
+                Collections.singletonMap("class", "WorkflowMonitor"), new String[0], registry::counter);
+        assertSame(untagged.get(), untagged.get());
+        untagged.get().increment();
+        assertEquals(1, registry.counter("workflow_lock_failure", "class", "WorkflowMonitor").count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfValues() {
+        counters.get("redis");
+    }
+}
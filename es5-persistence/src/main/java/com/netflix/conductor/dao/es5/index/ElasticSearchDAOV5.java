@@ -319,6 +319,49 @@ public class ElasticSearchDAOV5 implements IndexDAO {
         return CompletableFuture.runAsync(() -> indexTask(task), executorService);
     }
 
+    @Override
+    public void indexWorkflows(List<Workflow> workflows) {
+        if (workflows.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkRequestBuilder bulkRequestBuilder = elasticSearchClient.prepareBulk();
+            for (Workflow workflow : workflows) {
+                byte[] doc = objectMapper.writeValueAsBytes(new WorkflowSummary(workflow));
+                UpdateRequest req = new UpdateRequest(indexName, WORKFLOW_DOC_TYPE, workflow.getWorkflowId());
+                req.doc(doc, XContentType.JSON);
+                req.upsert(doc, XContentType.JSON);
+                req.retryOnConflict(5);
+                bulkRequestBuilder.add(req);
+            }
+            bulkUpdateWithRetry(bulkRequestBuilder, "Bulk index workflows into doc_type workflow");
+        } catch (Exception e) {
+            logger.error("Failed to index {} workflows", workflows.size(), e);
+        }
+    }
+
+    @Override
+    public void indexTasks(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkRequestBuilder bulkRequestBuilder = elasticSearchClient.prepareBulk();
+            for (Task task : tasks) {
+                byte[] doc = objectMapper.writeValueAsBytes(new TaskSummary(task));
+                UpdateRequest req = new UpdateRequest(indexName, TASK_DOC_TYPE, task.getTaskId());
+                req.doc(doc, XContentType.JSON);
+                req.upsert(doc, XContentType.JSON);
+                bulkRequestBuilder.add(req);
+            }
+            bulkUpdateWithRetry(bulkRequestBuilder, "Bulk index tasks into doc_type task");
+        } catch (Exception e) {
+            logger.error("Failed to index {} tasks", tasks.size(), e);
+        }
+    }
+
     @Override
     public void addTaskExecutionLogs(List<TaskExecLog> taskExecLogs) {
         if (taskExecLogs.isEmpty()) {
@@ -435,6 +478,22 @@ public class ElasticSearchDAOV5 implements IndexDAO {
         return CompletableFuture.runAsync(() -> addEventExecution(eventExecution), executorService);
     }
 
+    private void bulkUpdateWithRetry(BulkRequestBuilder bulkRequestBuilder, String operationDescription) {
+        try {
+            new RetryUtil<BulkResponse>().retryOnException(
+                () -> bulkRequestBuilder.execute().actionGet(),
+                null,
+                BulkResponse::hasFailures,
+                RETRY_COUNT,
+                operationDescription,
+                "bulkUpdateWithRetry"
+            );
+        } catch (Exception e) {
+            Monitors.error(className, "index");
+            logger.error("Failed to bulk index {} requests", bulkRequestBuilder.numberOfActions(), e);
+        }
+    }
+
     private void updateWithRetry(UpdateRequest request, String operationDescription) {
         try {
             new RetryUtil<UpdateResponse>().retryOnException(
@@ -329,6 +329,20 @@ public class ElasticSearchRestDAOV5 implements IndexDAO {
         return CompletableFuture.runAsync(() -> indexTask(task), executorService);
     }
 
+    @Override
+    public void indexWorkflows(List<Workflow> workflows) {
+        Map<String, Object> summaries = new LinkedHashMap<>();
+        workflows.forEach(workflow -> summaries.put(workflow.getWorkflowId(), new WorkflowSummary(workflow)));
+        indexObjects(indexName, WORKFLOW_DOC_TYPE, summaries);
+    }
+
+    @Override
+    public void indexTasks(List<Task> tasks) {
+        Map<String, Object> summaries = new LinkedHashMap<>();
+        tasks.forEach(task -> summaries.put(task.getTaskId(), new TaskSummary(task)));
+        indexObjects(indexName, TASK_DOC_TYPE, summaries);
+    }
+
     @Override
     public void addTaskExecutionLogs(List<TaskExecLog> taskExecLogs) {
         if (taskExecLogs.isEmpty()) {
@@ -653,6 +667,42 @@ public class ElasticSearchRestDAOV5 implements IndexDAO {
         indexWithRetry(request, "Indexing " + docType + ": " + docId);
     }
 
+    /**
+     * Indexes the given documents with a single bulk request.
+     * @param index The index the documents belong to.
+     * @param docType The type of the documents.
+     * @param docs The documents to be indexed, keyed by their ids.
+     */
+    private void indexObjects(final String index, final String docType, final Map<String, Object> docs) {
+        if (docs.isEmpty()) {
+            return;
+        }
+
+        BulkRequest bulkRequest = new BulkRequest();
+        docs.forEach((docId, doc) -> {
+            try {
+                IndexRequest request = new IndexRequest(index, docType, docId);
+                request.source(objectMapper.writeValueAsBytes(doc), XContentType.JSON);
+                bulkRequest.add(request);
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to convert {} '{}' to byte string", docType, docId);
+            }
+        });
+
+        try {
+            new RetryUtil<BulkResponse>().retryOnException(() -> {
+                try {
+                    return elasticSearchClient.bulk(bulkRequest);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }, null, BulkResponse::hasFailures, RETRY_COUNT, "Bulk indexing " + docs.size() + " documents into doc_type " + docType, "indexObjects");
+        } catch (Exception e) {
+            Monitors.error(className, "index");
+            logger.error("Failed to bulk index {} documents of type: {}", docs.size(), docType, e);
+        }
+    }
+
     /**
      * Performs an index operation with a retry.
      * @param request The index request that we want to perform.
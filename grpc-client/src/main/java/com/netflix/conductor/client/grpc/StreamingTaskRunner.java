@@ -0,0 +1,169 @@
+package com.netflix.conductor.client.grpc;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Executes tasks of a single type delivered over a {@link TaskStream}.
+ * <p>
+ * The runner grants one credit per execution thread, so the server never pushes more tasks than can be executed
+ * right away, and grants a credit back as each task completes. Results are sent on the stream; if the stream was
+ * lost in the meantime they are sent with {@link TaskClient#updateTask} instead. A lost stream is re-opened after
+ * the reconnect delay, with credit for the threads that are idle at that time.
+ */
+public class StreamingTaskRunner {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingTaskRunner.class);
+
+    private final TaskClient taskClient;
+    private final String taskType;
+    private final String workerId;
+    private final String domain;
+    private final int threadCount;
+    private final long reconnectDelayMs;
+    private final Function<Task, TaskResult> worker;
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private ExecutorService executorService;
+    private ScheduledExecutorService reconnectExecutor;
+    private volatile TaskStream stream;
+    private volatile boolean shutdown;
+
+    /**
+     * @param taskClient       the client used to open the streams
+     * @param taskType         the type of the tasks to execute
+     * @param workerId         name of the worker. Used for logging.
+     * @param domain           the domain of the task type, NULL for no domain
+     * @param threadCount      number of tasks executed concurrently
+     * @param reconnectDelayMs time to wait before re-opening a lost stream
+     * @param worker           executes a task and returns its result
+     */
+    public StreamingTaskRunner(TaskClient taskClient, String taskType, String workerId, @Nullable String domain,
+                               int threadCount, long reconnectDelayMs, Function<Task, TaskResult> worker) {
+        Preconditions.checkNotNull(taskClient, "TaskClient cannot be null");
+        Preconditions.checkNotNull(worker, "Worker cannot be null");
+        Preconditions.checkArgument(threadCount > 0, "Thread count must be greater than 0");
+        this.taskClient = taskClient;
+        this.taskType = taskType;
+        this.workerId = workerId;
+        this.domain = domain;
+        this.threadCount = threadCount;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.worker = worker;
+    }
+
+    public synchronized void start() {
+        Preconditions.checkState(executorService == null, "Runner is already started");
+        executorService = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat("stream-worker-" + taskType + "-%d").build());
+        reconnectExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("stream-reconnect-" + taskType).setDaemon(true).build());
+        connect();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (stream != null) {
+            stream.close();
+        }
+        if (reconnectExecutor != null) {
+            reconnectExecutor.shutdownNow();
+        }
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized void connect() {
+        if (shutdown) {
+            return;
+        }
+        try {
+            stream = taskClient.streamTasks(taskType, workerId, domain, threadCount - inProgress.get(), new TaskStream.Listener() {
+                @Override
+                public void onTask(Task task) {
+                    inProgress.incrementAndGet();
+                    executorService.execute(() -> execute(task));
+                }
+
+                @Override
+                public void onTaskUpdated(String taskId, @Nullable String error) {
+                    if (error != null) {
+                        logger.error("Failed to update task {}: {}", taskId, error);
+                    }
+                }
+
+                @Override
+                public void onClosed(@Nullable Throwable error) {
+                    if (!shutdown) {
+                        logger.warn("Task stream for {} closed, reconnecting in {} ms", taskType, reconnectDelayMs, error);
+                        scheduleReconnect();
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Unable to open a task stream for {}", taskType, e);
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (!shutdown) {
+            reconnectExecutor.schedule(this::connect, reconnectDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void execute(Task task) {
+        TaskResult result;
+        try {
+            result = worker.apply(task);
+        } catch (Exception e) {
+            logger.error("Unable to execute task {} of type {}", task.getTaskId(), taskType, e);
+            result = new TaskResult(task);
+            result.setStatus(TaskResult.Status.FAILED);
+            result.setReasonForIncompletion(e.getMessage());
+        }
+
+        TaskStream current;
+        synchronized (this) {
+            // taken together with the stream, so that a thread freed while a new stream is opened is granted as
+            // credit either by connect() or below, never by both
+            inProgress.decrementAndGet();
+            current = stream;
+        }
+        try {
+            current.updateTask(result);
+        } catch (IllegalStateException e) {
+            updateTask(result);
+        }
+        try {
+            current.grantCredit(1);
+        } catch (IllegalStateException e) {
+            // the stream was lost, the credit is granted again when it is re-opened
+        }
+    }
+
+    private void updateTask(TaskResult result) {
+        try {
+            taskClient.updateTask(result);
+        } catch (Exception e) {
+            logger.error("Failed to update task {}", result.getTaskId(), e);
+        }
+    }
+}
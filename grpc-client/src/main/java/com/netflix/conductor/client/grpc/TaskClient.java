@@ -18,10 +18,12 @@ import java.util.stream.Collectors;
 
 public class TaskClient extends ClientBase {
     private TaskServiceGrpc.TaskServiceBlockingStub stub;
+    private TaskServiceGrpc.TaskServiceStub asyncStub;
 
     public TaskClient(String address, int port) {
         super(address, port);
         this.stub = TaskServiceGrpc.newBlockingStub(this.channel);
+        this.asyncStub = TaskServiceGrpc.newStub(this.channel);
     }
 
     /**
@@ -87,6 +89,29 @@ public class TaskClient extends ClientBase {
         return Iterators.transform(it, protoMapper::fromProto);
     }
 
+    /**
+     * Open a long-lived stream on which the server pushes tasks of the given type as they become available,
+     * as long as the worker has granted credit for them. Task results can be sent back on the same stream.
+     *
+     * @param taskType Type of task to receive
+     * @param workerId Name of the client worker. Used for logging.
+     * @param domain   The domain of the task type, NULL for no domain
+     * @param credit   Number of tasks the worker is initially ready to accept
+     * @param listener Receives the tasks, the result acknowledgements and the end of the stream
+     * @return the open {@link TaskStream}
+     */
+    public TaskStream streamTasks(String taskType, String workerId, @Nullable String domain, int credit, TaskStream.Listener listener) {
+        Preconditions.checkArgument(StringUtils.isNotBlank(taskType), "Task type cannot be blank");
+        Preconditions.checkArgument(StringUtils.isNotBlank(workerId), "Worker id cannot be blank");
+        Preconditions.checkArgument(credit >= 0, "Credit cannot be negative");
+        Preconditions.checkNotNull(listener, "Listener cannot be null");
+
+        TaskStream stream = new TaskStream(listener);
+        stream.open(asyncStub::streamTasks);
+        stream.subscribe(taskType, workerId, domain, credit);
+        return stream;
+    }
+
     /**
      * Retrieve pending tasks by type
      *
@@ -147,6 +172,20 @@ public class TaskClient extends ClientBase {
         );
     }
 
+    /**
+     * Updates the results of a batch of tasks, the results are applied per workflow on the server.
+     *
+     * @param taskResults the results of the tasks to be updated
+     * @return the ids of the tasks which could not be updated, mapped to the reason
+     */
+    public Map<String, String> updateTasks(List<TaskResult> taskResults) {
+        Preconditions.checkArgument(taskResults != null && !taskResults.isEmpty(), "Task results cannot be null or empty");
+        return stub.updateTasks(TaskServicePb.UpdateTasksRequest.newBuilder()
+                .addAllResults(taskResults.stream().map(protoMapper::toProto)::iterator)
+                .build()
+        ).getFailedTasksMap();
+    }
+
     /**
      * Ack for the task poll.
      *
@@ -0,0 +1,137 @@
+package com.netflix.conductor.client.grpc;
+
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+import com.netflix.conductor.grpc.ProtoMapper;
+import com.netflix.conductor.grpc.TaskServicePb;
+import io.grpc.stub.StreamObserver;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import java.util.function.Function;
+
+/**
+ * Worker side of a task stream opened with {@link TaskClient#streamTasks}.
+ * <p>
+ * The server only pushes as many tasks as the worker has granted credit for; each task received consumes one credit,
+ * so a worker typically grants one credit back every time it has finished executing a task.
+ */
+public class TaskStream {
+    private static final ProtoMapper protoMapper = ProtoMapper.INSTANCE;
+
+    /**
+     * Receives the messages pushed by the server. Callbacks are invoked on the gRPC transport threads and should
+     * hand off any long running work.
+     */
+    public interface Listener {
+        void onTask(Task task);
+
+        /**
+         * @param taskId the id of the updated task
+         * @param error  the reason the update failed, NULL if the update succeeded
+         */
+        default void onTaskUpdated(String taskId, @Nullable String error) {
+        }
+
+        /**
+         * @param error the error that terminated the stream, NULL if the server closed it
+         */
+        void onClosed(@Nullable Throwable error);
+    }
+
+    private final Listener listener;
+    private StreamObserver<TaskServicePb.TaskStreamRequest> requests;
+    private boolean closed;
+
+    TaskStream(Listener listener) {
+        this.listener = listener;
+    }
+
+    void open(Function<StreamObserver<TaskServicePb.TaskStreamResponse>, StreamObserver<TaskServicePb.TaskStreamRequest>> call) {
+        this.requests = call.apply(new StreamObserver<TaskServicePb.TaskStreamResponse>() {
+            @Override
+            public void onNext(TaskServicePb.TaskStreamResponse response) {
+                switch (response.getResponseCase()) {
+                    case TASK:
+                        listener.onTask(protoMapper.fromProto(response.getTask()));
+                        break;
+                    case ACK:
+                        listener.onTaskUpdated(response.getAck().getTaskId(),
+                                StringUtils.defaultIfEmpty(response.getAck().getError(), null));
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                markClosed();
+                listener.onClosed(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                markClosed();
+                listener.onClosed(null);
+            }
+        });
+    }
+
+    void subscribe(String taskType, String workerId, @Nullable String domain, int credit) {
+        TaskServicePb.TaskStreamRequest.Subscribe.Builder subscribe = TaskServicePb.TaskStreamRequest.Subscribe.newBuilder()
+                .setTaskType(taskType)
+                .setWorkerId(workerId)
+                .setCredit(credit);
+        if (domain != null) {
+            subscribe.setDomain(domain);
+        }
+        send(TaskServicePb.TaskStreamRequest.newBuilder().setSubscribe(subscribe).build());
+    }
+
+    /**
+     * Allow the server to push more tasks on this stream.
+     *
+     * @param credit number of additional tasks the worker is ready to accept
+     */
+    public void grantCredit(int credit) {
+        if (credit > 0) {
+            send(TaskServicePb.TaskStreamRequest.newBuilder().setCredit(credit).build());
+        }
+    }
+
+    /**
+     * Send the result of a task on this stream. The outcome is reported to {@link Listener#onTaskUpdated}.
+     *
+     * @param taskResult the result of the task
+     */
+    public void updateTask(TaskResult taskResult) {
+        send(TaskServicePb.TaskStreamRequest.newBuilder().setResult(protoMapper.toProto(taskResult)).build());
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the stream. Tasks already pushed by the server remain IN_PROGRESS and their results can still be
+     * sent with {@link TaskClient#updateTask}.
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            requests.onCompleted();
+        }
+    }
+
+    private synchronized void markClosed() {
+        closed = true;
+    }
+
+    private synchronized void send(TaskServicePb.TaskStreamRequest request) {
+        if (closed) {
+            throw new IllegalStateException("Task stream is closed");
+        }
+        requests.onNext(request);
+    }
+}
@@ -12,6 +12,15 @@ public interface GRPCServerConfiguration extends Configuration {
     String SERVICE_REFLECTION_ENABLED_PROPERTY_NAME = "conductor.grpc.server.reflection.enabled";
     boolean SERVICE_REFLECTION_ENABLED_DEFAULT_VALUE = true;
 
+    String TASK_STREAM_THREAD_COUNT_PROPERTY_NAME = "conductor.grpc.server.task.stream.thread.count";
+    int TASK_STREAM_THREAD_COUNT_DEFAULT_VALUE = 10;
+
+    String TASK_STREAM_POLL_DELAY_PROPERTY_NAME = "conductor.grpc.server.task.stream.poll.delay.ms";
+    int TASK_STREAM_POLL_DELAY_DEFAULT_VALUE = 100;
+
+    String TASK_STREAM_MAX_BATCH_PROPERTY_NAME = "conductor.grpc.server.task.stream.max.batch";
+    int TASK_STREAM_MAX_BATCH_DEFAULT_VALUE = 100;
+
     default boolean isEnabled(){
        return getBooleanProperty(ENABLED_PROPERTY_NAME, ENABLED_DEFAULT_VALUE);
     }
@@ -23,4 +32,16 @@ public interface GRPCServerConfiguration extends Configuration {
     default boolean isReflectionEnabled() {
         return getBooleanProperty(SERVICE_REFLECTION_ENABLED_PROPERTY_NAME, SERVICE_REFLECTION_ENABLED_DEFAULT_VALUE);
     }
+
+    default int getTaskStreamThreadCount() {
+        return getIntProperty(TASK_STREAM_THREAD_COUNT_PROPERTY_NAME, TASK_STREAM_THREAD_COUNT_DEFAULT_VALUE);
+    }
+
+    default int getTaskStreamPollDelay() {
+        return getIntProperty(TASK_STREAM_POLL_DELAY_PROPERTY_NAME, TASK_STREAM_POLL_DELAY_DEFAULT_VALUE);
+    }
+
+    default int getTaskStreamMaxBatch() {
+        return getIntProperty(TASK_STREAM_MAX_BATCH_PROPERTY_NAME, TASK_STREAM_MAX_BATCH_DEFAULT_VALUE);
+    }
 }
@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class TaskServiceImpl extends TaskServiceGrpc.TaskServiceImplBase {
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskServiceImpl.class);
@@ -31,10 +32,13 @@ public class TaskServiceImpl extends TaskServiceGrpc.TaskServiceImplBase {
 
     private final ExecutionService executionService;
 
+    private final TaskStreamDispatcher taskStreamDispatcher;
+
     @Inject
-    public TaskServiceImpl(ExecutionService executionService, TaskService taskService) {
+    public TaskServiceImpl(ExecutionService executionService, TaskService taskService, TaskStreamDispatcher taskStreamDispatcher) {
         this.executionService = executionService;
         this.taskService = taskService;
+        this.taskStreamDispatcher = taskStreamDispatcher;
     }
 
     @Override
@@ -79,6 +83,11 @@ public class TaskServiceImpl extends TaskServiceGrpc.TaskServiceImplBase {
         }
     }
 
+    @Override
+    public StreamObserver<TaskServicePb.TaskStreamRequest> streamTasks(StreamObserver<TaskServicePb.TaskStreamResponse> response) {
+        return taskStreamDispatcher.open(response);
+    }
+
     @Override
     public void getTasksInProgress(TaskServicePb.TasksInProgressRequest req, StreamObserver<TaskServicePb.TasksInProgressResponse> response) {
         final String startKey = GRPC_HELPER.optional(req.getStartKey());
@@ -130,6 +139,25 @@ public class TaskServiceImpl extends TaskServiceGrpc.TaskServiceImplBase {
         }
     }
 
+    @Override
+    public void updateTasks(TaskServicePb.UpdateTasksRequest req, StreamObserver<TaskServicePb.UpdateTasksResponse> response) {
+        try {
+            List<TaskResult> taskResults = req.getResultsList().stream()
+                    .map(PROTO_MAPPER::fromProto)
+                    .collect(Collectors.toList());
+            Map<String, String> failedTasks = taskService.updateTasks(taskResults);
+
+            response.onNext(
+                    TaskServicePb.UpdateTasksResponse.newBuilder()
+                            .putAllFailedTasks(failedTasks)
+                            .build()
+            );
+            response.onCompleted();
+        } catch (Exception e) {
+            GRPC_HELPER.onError(response, e);
+        }
+    }
+
     @Override
     public void ackTask(TaskServicePb.AckTaskRequest req, StreamObserver<TaskServicePb.AckTaskResponse> response) {
         try {
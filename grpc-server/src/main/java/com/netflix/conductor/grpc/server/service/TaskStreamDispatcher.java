@@ -0,0 +1,264 @@
+package com.netflix.conductor.grpc.server.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+import com.netflix.conductor.core.utils.QueueUtils;
+import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.grpc.ProtoMapper;
+import com.netflix.conductor.grpc.TaskServicePb;
+import com.netflix.conductor.grpc.server.GRPCServerConfiguration;
+import com.netflix.conductor.proto.TaskPb;
+import com.netflix.conductor.service.ExecutionService;
+import com.netflix.conductor.service.TaskService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the bidirectional task streams opened by workers.
+ * <p>
+ * A worker subscribes to a task type and grants credit, i.e. the number of tasks it is ready to accept. While a
+ * stream has credit and its transport is ready to send, the stream is dispatched on a shared pool: tasks are popped
+ * from the queue without waiting and pushed to the worker, consuming credit. After an empty pop the stream is
+ * dispatched again once the configured poll delay elapsed, without holding a thread meanwhile. A stream without
+ * credit, or whose transport is not ready, is parked until the worker grants more credit or the transport drains.
+ * Tasks popped for a stream which was closed, or failed, before they could be sent are made visible again in the
+ * queue. Task results sent on the stream are applied and acknowledged on the same stream.
+ */
+@Singleton
+public class TaskStreamDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskStreamDispatcher.class);
+    private static final ProtoMapper PROTO_MAPPER = ProtoMapper.INSTANCE;
+
+    private final ExecutionService executionService;
+    private final TaskService taskService;
+    private final QueueDAO queueDAO;
+    private final ScheduledExecutorService dispatchExecutor;
+    private final int pollDelay;
+    private final int maxBatch;
+
+    @Inject
+    public TaskStreamDispatcher(ExecutionService executionService, TaskService taskService, QueueDAO queueDAO,
+                                GRPCServerConfiguration config) {
+        this.executionService = executionService;
+        this.taskService = taskService;
+        this.queueDAO = queueDAO;
+        this.pollDelay = config.getTaskStreamPollDelay();
+        this.maxBatch = Math.max(1, config.getTaskStreamMaxBatch());
+        this.dispatchExecutor = Executors.newScheduledThreadPool(Math.max(1, config.getTaskStreamThreadCount()),
+                new ThreadFactoryBuilder().setNameFormat("grpc-task-stream-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Opens a new task stream session.
+     *
+     * @param response the outbound side of the stream
+     * @return the observer for the requests sent by the worker
+     */
+    public StreamObserver<TaskServicePb.TaskStreamRequest> open(StreamObserver<TaskServicePb.TaskStreamResponse> response) {
+        Session session = new Session(response);
+        if (response instanceof ServerCallStreamObserver) {
+            ServerCallStreamObserver<TaskServicePb.TaskStreamResponse> serverResponse =
+                    (ServerCallStreamObserver<TaskServicePb.TaskStreamResponse>) response;
+            serverResponse.setOnReadyHandler(session::wakeUp);
+            serverResponse.setOnCancelHandler(session::close);
+        }
+        return session;
+    }
+
+    private class Session implements StreamObserver<TaskServicePb.TaskStreamRequest> {
+        private final StreamObserver<TaskServicePb.TaskStreamResponse> response;
+        private final AtomicInteger credit = new AtomicInteger();
+        private final AtomicBoolean dispatching = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private volatile String taskType;
+        private volatile String workerId;
+        private volatile String domain;
+
+        private Session(StreamObserver<TaskServicePb.TaskStreamResponse> response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onNext(TaskServicePb.TaskStreamRequest request) {
+            switch (request.getRequestCase()) {
+                case SUBSCRIBE:
+                    subscribe(request.getSubscribe());
+                    break;
+                case CREDIT:
+                    grant(request.getCredit());
+                    break;
+                case RESULT:
+                    update(PROTO_MAPPER.fromProto(request.getResult()));
+                    break;
+                default:
+                    fail(Status.INVALID_ARGUMENT.withDescription("Empty task stream request"));
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.debug("Task stream of worker {} for {} failed", workerId, taskType, t);
+            close();
+        }
+
+        @Override
+        public void onCompleted() {
+            finish(null);
+        }
+
+        private void subscribe(TaskServicePb.TaskStreamRequest.Subscribe subscribe) {
+            if (taskType != null) {
+                fail(Status.FAILED_PRECONDITION.withDescription("Task stream is already subscribed to " + taskType));
+                return;
+            }
+            if (StringUtils.isBlank(subscribe.getTaskType())) {
+                fail(Status.INVALID_ARGUMENT.withDescription("Task type cannot be blank"));
+                return;
+            }
+            taskType = subscribe.getTaskType();
+            workerId = subscribe.getWorkerId();
+            domain = StringUtils.defaultIfEmpty(subscribe.getDomain(), null);
+            LOGGER.debug("Worker {} opened a task stream for {}", workerId, taskType);
+            grant(subscribe.getCredit());
+        }
+
+        private void grant(int count) {
+            if (count > 0) {
+                credit.addAndGet(count);
+                wakeUp();
+            }
+        }
+
+        private void update(TaskResult taskResult) {
+            TaskServicePb.TaskStreamResponse.ResultAck.Builder ack = TaskServicePb.TaskStreamResponse.ResultAck.newBuilder()
+                    .setTaskId(taskResult.getTaskId());
+            try {
+                taskService.updateTask(taskResult);
+            } catch (Exception e) {
+                LOGGER.error("Error updating task {} from the task stream", taskResult.getTaskId(), e);
+                ack.setError(StringUtils.defaultString(e.getMessage(), e.getClass().getName()));
+            }
+            send(TaskServicePb.TaskStreamResponse.newBuilder().setAck(ack).build());
+        }
+
+        private boolean canDispatch() {
+            if (closed || taskType == null || credit.get() <= 0) {
+                return false;
+            }
+            return !(response instanceof ServerCallStreamObserver)
+                    || ((ServerCallStreamObserver<TaskServicePb.TaskStreamResponse>) response).isReady();
+        }
+
+        private void wakeUp() {
+            if (canDispatch() && dispatching.compareAndSet(false, true)) {
+                dispatchExecutor.execute(this::dispatch);
+            }
+        }
+
+        private void dispatch() {
+            if (!canDispatch()) {
+                park();
+                return;
+            }
+            boolean backOff = true;
+            List<Task> tasks = Collections.emptyList();
+            int sent = 0;
+            try {
+                tasks = executionService.poll(taskType, workerId, domain, Math.min(credit.get(), maxBatch), 0);
+                backOff = tasks.isEmpty();
+                for (; sent < tasks.size(); sent++) {
+                    TaskPb.Task task = PROTO_MAPPER.toProto(tasks.get(sent));
+                    if (!send(TaskServicePb.TaskStreamResponse.newBuilder().setTask(task).build())) {
+                        break;
+                    }
+                    credit.decrementAndGet();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error dispatching {} tasks to worker {}", taskType, workerId, e);
+                backOff = true;
+            }
+            if (sent < tasks.size()) {
+                requeue(tasks.subList(sent, tasks.size()));
+            }
+
+            if (!canDispatch()) {
+                park();
+            } else if (backOff) {
+                // back off on an empty queue or a failure instead of spinning on it
+                dispatchExecutor.schedule(this::dispatch, pollDelay, TimeUnit.MILLISECONDS);
+            } else {
+                dispatchExecutor.execute(this::dispatch);
+            }
+        }
+
+        private void park() {
+            dispatching.set(false);
+            // credit may have been granted, or the transport drained, after the last check
+            wakeUp();
+        }
+
+        /**
+         * Makes the tasks popped for this stream, which could not be sent because the stream was closed or failed,
+         * visible again in the queue so that they are not left to their response timeout.
+         */
+        private void requeue(List<Task> tasks) {
+            String queueName = QueueUtils.getQueueName(taskType, domain);
+            List<String> taskIds = tasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+            try {
+                queueDAO.setUnackTimeout(queueName, taskIds, 0);
+                LOGGER.debug("Tasks {} were not sent to worker {}, requeued", taskIds, workerId);
+            } catch (Exception e) {
+                LOGGER.error("Error requeueing tasks {} not sent to worker {}", taskIds, workerId, e);
+            }
+        }
+
+        private boolean send(TaskServicePb.TaskStreamResponse message) {
+            synchronized (response) {
+                if (closed) {
+                    return false;
+                }
+                response.onNext(message);
+                return true;
+            }
+        }
+
+        private void fail(Status status) {
+            finish(status);
+        }
+
+        private void finish(Status status) {
+            synchronized (response) {
+                if (closed) {
+                    return;
+                }
+                close();
+                if (status == null) {
+                    response.onCompleted();
+                } else {
+                    response.onError(status.asRuntimeException());
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+        }
+    }
+}
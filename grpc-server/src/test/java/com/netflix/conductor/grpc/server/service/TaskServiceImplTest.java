@@ -0,0 +1,211 @@
+package com.netflix.conductor.grpc.server.service;
+
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.grpc.TaskServiceGrpc;
+import com.netflix.conductor.grpc.TaskServicePb;
+import com.netflix.conductor.grpc.server.GRPCServerConfiguration;
+import com.netflix.conductor.proto.TaskResultPb;
+import com.netflix.conductor.service.ExecutionService;
+import com.netflix.conductor.service.TaskService;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskServiceImplTest {
+
+    @Rule
+    public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+    private ExecutionService executionService;
+    private TaskService taskService;
+    private QueueDAO queueDAO;
+    private TaskServiceGrpc.TaskServiceStub stub;
+
+    @Before
+    public void setUp() throws Exception {
+        executionService = mock(ExecutionService.class);
+        taskService = mock(TaskService.class);
+        queueDAO = mock(QueueDAO.class);
+        GRPCServerConfiguration config = mock(GRPCServerConfiguration.class);
+        when(config.getTaskStreamThreadCount()).thenReturn(2);
+        when(config.getTaskStreamPollDelay()).thenReturn(10);
+        when(config.getTaskStreamMaxBatch()).thenReturn(10);
+
+        TaskStreamDispatcher dispatcher = new TaskStreamDispatcher(executionService, taskService, queueDAO, config);
+        TaskServiceImpl taskServiceImpl = new TaskServiceImpl(executionService, taskService, dispatcher);
+
+        String serverName = InProcessServerBuilder.generateName();
+        grpcCleanup.register(InProcessServerBuilder
+                .forName(serverName).directExecutor().addService(taskServiceImpl).build().start());
+        stub = TaskServiceGrpc.newStub(
+                grpcCleanup.register(InProcessChannelBuilder.forName(serverName).directExecutor().build()));
+    }
+
+    @Test
+    public void streamTasks() throws Exception {
+        Task task = new Task();
+        task.setTaskId("t1");
+        task.setTaskType("stream_task");
+        when(executionService.poll(anyString(), anyString(), any(), anyInt(), anyInt()))
+                .thenReturn(Collections.singletonList(task))
+                .thenReturn(Collections.emptyList());
+
+        BlockingQueue<TaskServicePb.TaskStreamResponse> responses = new LinkedBlockingQueue<>();
+        StreamObserver<TaskServicePb.TaskStreamRequest> requests = stub.streamTasks(new StreamObserver<TaskServicePb.TaskStreamResponse>() {
+            @Override
+            public void onNext(TaskServicePb.TaskStreamResponse response) {
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        requests.onNext(TaskServicePb.TaskStreamRequest.newBuilder()
+                .setSubscribe(TaskServicePb.TaskStreamRequest.Subscribe.newBuilder()
+                        .setTaskType("stream_task")
+                        .setWorkerId("worker")
+                        .setCredit(1))
+                .build());
+
+        TaskServicePb.TaskStreamResponse pushed = responses.poll(5, TimeUnit.SECONDS);
+        assertNotNull(pushed);
+        assertEquals("t1", pushed.getTask().getTaskId());
+
+        // without credit left no more tasks are polled for this stream
+        Thread.sleep(100);
+        verify(executionService, atLeastOnce()).poll("stream_task", "worker", null, 1, 0);
+        assertTrue(responses.isEmpty());
+
+        requests.onNext(TaskServicePb.TaskStreamRequest.newBuilder()
+                .setResult(TaskResultPb.TaskResult.newBuilder()
+                        .setTaskId("t1")
+                        .setStatus(TaskResultPb.TaskResult.Status.COMPLETED))
+                .build());
+
+        TaskServicePb.TaskStreamResponse ack = responses.poll(5, TimeUnit.SECONDS);
+        assertNotNull(ack);
+        assertEquals("t1", ack.getAck().getTaskId());
+        assertTrue(ack.getAck().getError().isEmpty());
+        verify(taskService).updateTask(any(TaskResult.class));
+
+        requests.onCompleted();
+        assertNull(responses.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void streamTasksRequeuesTasksNotSent() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        StreamObserver<TaskServicePb.TaskStreamRequest> requests = stub.streamTasks(new StreamObserver<TaskServicePb.TaskStreamResponse>() {
+            @Override
+            public void onNext(TaskServicePb.TaskStreamResponse response) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                closed.countDown();
+            }
+        });
+
+        Task task = new Task();
+        task.setTaskId("t1");
+        task.setTaskType("stream_task");
+        // the worker closes the stream while the task is being popped for it
+        when(executionService.poll(anyString(), anyString(), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            requests.onCompleted();
+            closed.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(task);
+        });
+
+        requests.onNext(TaskServicePb.TaskStreamRequest.newBuilder()
+                .setSubscribe(TaskServicePb.TaskStreamRequest.Subscribe.newBuilder()
+                        .setTaskType("stream_task")
+                        .setWorkerId("worker")
+                        .setCredit(1))
+                .build());
+
+        verify(queueDAO, timeout(5000)).setUnackTimeout("stream_task", Collections.singletonList("t1"), 0);
+    }
+
+    @Test
+    public void streamTasksRequeuesTasksNotSentAfterFailure() throws Exception {
+        BlockingQueue<TaskServicePb.TaskStreamResponse> responses = new LinkedBlockingQueue<>();
+        StreamObserver<TaskServicePb.TaskStreamRequest> requests = stub.streamTasks(new StreamObserver<TaskServicePb.TaskStreamResponse>() {
+            @Override
+            public void onNext(TaskServicePb.TaskStreamResponse response) {
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        Task first = new Task();
+        first.setTaskId("t1");
+        first.setTaskType("stream_task");
+        // the second task cannot be sent
+        Task second = new Task();
+        second.setTaskId("t2");
+        second.setTaskType("stream_task");
+        second.getInputData().put("key", new Object());
+        Task third = new Task();
+        third.setTaskId("t3");
+        third.setTaskType("stream_task");
+        when(executionService.poll(anyString(), anyString(), any(), anyInt(), anyInt()))
+                .thenReturn(Arrays.asList(first, second, third))
+                .thenReturn(Collections.emptyList());
+
+        requests.onNext(TaskServicePb.TaskStreamRequest.newBuilder()
+                .setSubscribe(TaskServicePb.TaskStreamRequest.Subscribe.newBuilder()
+                        .setTaskType("stream_task")
+                        .setWorkerId("worker")
+                        .setCredit(3))
+                .build());
+
+        TaskServicePb.TaskStreamResponse pushed = responses.poll(5, TimeUnit.SECONDS);
+        assertNotNull(pushed);
+        assertEquals("t1", pushed.getTask().getTaskId());
+        verify(queueDAO, timeout(5000)).setUnackTimeout("stream_task", Arrays.asList("t2", "t3"), 0);
+        requests.onCompleted();
+    }
+}
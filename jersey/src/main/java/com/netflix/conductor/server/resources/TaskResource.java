@@ -107,6 +107,13 @@ public class TaskResource {
 		return taskService.updateTask(taskResult);
 	}
 
+	@POST
+	@Path("/batch")
+	@ApiOperation("Update a batch of tasks, returns the ids of the tasks which could not be updated with the reason")
+	public Map<String, String> updateTasks(List<TaskResult> taskResults) {
+		return taskService.updateTasks(taskResults);
+	}
+
 	@POST
 	@Path("/{taskId}/ack")
 	@ApiOperation("Ack Task is received")
@@ -21,7 +21,9 @@ import com.netflix.conductor.common.metadata.tasks.PollData;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.core.utils.PayloadCodec;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.metrics.Monitors;
 
@@ -31,6 +33,7 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedList;
@@ -44,9 +47,12 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
     private static final String ARCHIVED_FIELD = "archived";
     private static final String RAW_JSON_FIELD = "rawJSON";
 
+    private final PayloadCodec payloadCodec;
+
     @Inject
-    public MySQLExecutionDAO(ObjectMapper objectMapper, DataSource dataSource) {
+    public MySQLExecutionDAO(ObjectMapper objectMapper, DataSource dataSource, Configuration config) {
         super(objectMapper, dataSource);
+        this.payloadCodec = new PayloadCodec(objectMapper, config, "mysql");
     }
 
     private static String dateStr(Long timeInMs) {
@@ -67,7 +73,7 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
         // @formatter:on
 
         return queryWithTransaction(GET_IN_PROGRESS_TASKS_FOR_WORKFLOW,
-                q -> q.addParameter(taskDefName).addParameter(workflowId).executeAndFetch(Task.class));
+                q -> decodeTasks(q.addParameter(taskDefName).addParameter(workflowId).executeScalarList(String.class)));
     }
 
     @Override
@@ -217,7 +223,7 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
     @Override
     public Task getTask(String taskId) {
         String GET_TASK = "SELECT json_data FROM task WHERE task_id = ?";
-        return queryWithTransaction(GET_TASK, q -> q.addParameter(taskId).executeAndFetchFirst(Task.class));
+        return queryWithTransaction(GET_TASK, q -> payloadCodec.decode(q.addParameter(taskId).executeScalar(String.class), Task.class));
     }
 
     @Override
@@ -237,7 +243,7 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
         // @formatter:on
 
         return queryWithTransaction(GET_IN_PROGRESS_TASKS_FOR_TYPE,
-                q -> q.addParameter(taskName).executeAndFetch(Task.class));
+                q -> decodeTasks(q.addParameter(taskName).executeScalarList(String.class)));
     }
 
     @Override
@@ -252,13 +258,19 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
     @Override
     public String createWorkflow(Workflow workflow) {
         workflow.setCreateTime(System.currentTimeMillis());
-        return insertOrUpdateWorkflow(workflow, false);
+        return insertOrUpdateWorkflow(workflow, false, Collections.emptyList());
     }
 
     @Override
     public String updateWorkflow(Workflow workflow) {
         workflow.setUpdateTime(System.currentTimeMillis());
-        return insertOrUpdateWorkflow(workflow, true);
+        return insertOrUpdateWorkflow(workflow, true, Collections.emptyList());
+    }
+
+    @Override
+    public String updateWorkflowAndTasks(Workflow workflow, List<Task> tasks) {
+        workflow.setUpdateTime(System.currentTimeMillis());
+        return insertOrUpdateWorkflow(workflow, true, tasks);
     }
 
     @Override
@@ -469,10 +481,16 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
                 "SELECT json_data FROM task WHERE task_id IN (%s) AND json_data IS NOT NULL",
                 Query.generateInBindings(taskIds.size()));
 
-        return query(connection, GET_TASKS_FOR_IDS, q -> q.addParameters(taskIds).executeAndFetch(Task.class));
+        return query(connection, GET_TASKS_FOR_IDS, q -> decodeTasks(q.addParameters(taskIds).executeScalarList(String.class)));
     }
 
-    private String insertOrUpdateWorkflow(Workflow workflow, boolean update) {
+    private List<Task> decodeTasks(List<String> payloads) {
+        return payloads.stream()
+                .map(payload -> payloadCodec.decode(payload, Task.class))
+                .collect(Collectors.toList());
+    }
+
+    private String insertOrUpdateWorkflow(Workflow workflow, boolean update, List<Task> tasksToUpdate) {
         Preconditions.checkNotNull(workflow, "workflow object cannot be null");
 
         boolean terminal = workflow.getStatus().isTerminal();
@@ -485,6 +503,8 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
         workflow.setTasks(Lists.newLinkedList());
 
         withTransaction(tx -> {
+            tasksToUpdate.forEach(task -> updateTask(tx, task));
+
             if (!update) {
                 addWorkflow(tx, workflow);
                 addWorkflowDefToWorkflowMapping(tx, workflow);
@@ -492,6 +512,10 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
                 updateWorkflow(tx, workflow);
             }
 
+            // the pending workflow bookkeeping of a workflow read from the store only changes with its status
+            if (update && workflow.wasPersisted() && !workflow.hasStatusChangedSincePersisted()) {
+                return;
+            }
             if (terminal) {
                 removePendingWorkflow(tx, workflow.getWorkflowName(), workflow.getWorkflowId());
             } else {
@@ -522,27 +546,30 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
             removeTaskInProgress(connection, task);
         }
 
-        addWorkflowToTaskMapping(connection, task);
+        // a task read from the store is already mapped to its workflow
+        if (!task.wasPersisted()) {
+            addWorkflowToTaskMapping(connection, task);
+        }
     }
 
     private Workflow readWorkflow(Connection connection, String workflowId) {
         String GET_WORKFLOW = "SELECT json_data FROM workflow WHERE workflow_id = ?";
 
-        return query(connection, GET_WORKFLOW, q -> q.addParameter(workflowId).executeAndFetchFirst(Workflow.class));
+        return query(connection, GET_WORKFLOW, q -> payloadCodec.decode(q.addParameter(workflowId).executeScalar(String.class), Workflow.class));
     }
 
     private void addWorkflow(Connection connection, Workflow workflow) {
         String INSERT_WORKFLOW = "INSERT INTO workflow (workflow_id, correlation_id, json_data) VALUES (?, ?, ?)";
 
         execute(connection, INSERT_WORKFLOW, q -> q.addParameter(workflow.getWorkflowId())
-                .addParameter(workflow.getCorrelationId()).addJsonParameter(workflow).executeUpdate());
+                .addParameter(workflow.getCorrelationId()).addParameter(payloadCodec.encode(workflow)).executeUpdate());
     }
 
     private void updateWorkflow(Connection connection, Workflow workflow) {
         String UPDATE_WORKFLOW = "UPDATE workflow SET json_data = ?, modified_on = CURRENT_TIMESTAMP WHERE workflow_id = ?";
 
         execute(connection, UPDATE_WORKFLOW,
-                q -> q.addJsonParameter(workflow).addParameter(workflow.getWorkflowId()).executeUpdate());
+                q -> q.addParameter(payloadCodec.encode(workflow)).addParameter(workflow.getWorkflowId()).executeUpdate());
     }
 
     private void removeWorkflow(Connection connection, String workflowId) {
@@ -569,7 +596,7 @@ public class MySQLExecutionDAO extends MySQLBaseDAO implements ExecutionDAO {
     private void insertOrUpdateTaskData(Connection connection, Task task) {
 
         String INSERT_TASK = "INSERT INTO task (task_id, json_data, modified_on) VALUES (?, ?, CURRENT_TIMESTAMP) ON DUPLICATE KEY UPDATE json_data=VALUES(json_data), modified_on=VALUES(modified_on)";
-        execute(connection, INSERT_TASK, q -> q.addParameter(task.getTaskId()).addJsonParameter(task).executeUpdate());
+        execute(connection, INSERT_TASK, q -> q.addParameter(task.getTaskId()).addParameter(payloadCodec.encode(task)).executeUpdate());
 
     }
 
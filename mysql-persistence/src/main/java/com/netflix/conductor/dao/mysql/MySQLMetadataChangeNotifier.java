@@ -0,0 +1,50 @@
+package com.netflix.conductor.dao.mysql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.metadata.MetadataChangeNotifier;
+import com.netflix.conductor.core.metadata.MetadataChangePoller;
+import com.netflix.conductor.metrics.Monitors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+/**
+ * {@link MetadataChangeNotifier} backed by a version counter in the <code>meta_version</code> table, incremented on
+ * every change and polled by every node.
+ */
+@Singleton
+public class MySQLMetadataChangeNotifier extends MySQLBaseDAO implements MetadataChangeNotifier {
+    private static final String className = MySQLMetadataChangeNotifier.class.getSimpleName();
+
+    private final MetadataChangePoller poller;
+
+    @Inject
+    public MySQLMetadataChangeNotifier(ObjectMapper om, DataSource dataSource, Configuration config) {
+        super(om, dataSource);
+        int pollIntervalMs = config.getIntProperty("workflow.metadata.change.poll.interval.ms", 1000);
+        this.poller = new MetadataChangePoller(this::getVersion, pollIntervalMs);
+    }
+
+    @Override
+    public void publish() {
+        final String INCREMENT_VERSION_QUERY = "UPDATE meta_version SET version = version + 1 WHERE id = 1";
+        try {
+            executeWithTransaction(INCREMENT_VERSION_QUERY, q -> q.executeUpdate());
+        } catch (Exception e) {
+            Monitors.error(className, "publish");
+            logger.error("Unable to publish the metadata change", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Runnable listener) {
+        poller.subscribe(listener);
+    }
+
+    private long getVersion() {
+        final String GET_VERSION_QUERY = "SELECT version FROM meta_version WHERE id = 1";
+        return queryWithTransaction(GET_VERSION_QUERY, q -> q.executeScalar(Long.class));
+    }
+}
@@ -1,9 +1,10 @@
 package com.netflix.conductor.dao.mysql;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.Uninterruptibles;
+import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.events.queue.Message;
 import com.netflix.conductor.core.execution.ApplicationException;
 import com.netflix.conductor.dao.QueueDAO;
@@ -12,22 +13,49 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * Queue backed by the <code>queue_message</code> table.
+ * <p>
+ * Messages are claimed with a single locking read (<code>FOR UPDATE SKIP LOCKED</code> when the server supports it),
+ * so concurrent pollers never compete for the same rows. A poller that finds the queue empty returns its connection
+ * to the pool and waits on a per-queue signal that is raised by pushes made on this node; pushes made on other nodes
+ * are picked up by re-checking the queue every <code>workflow.mysql.queue.poll.interval.ms</code>.
+ */
 @Singleton
 public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
     private static final Long UNACK_SCHEDULE_MS = 60_000L;
+    private static final Pattern SERVER_VERSION = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+
+    private final long pollIntervalMs;
+    private final boolean skipLockedSupported;
+    private final Map<String, QueueSignal> queueSignals = new ConcurrentHashMap<>();
 
     @Inject
-    public MySQLQueueDAO(ObjectMapper om, DataSource ds) {
+    public MySQLQueueDAO(ObjectMapper om, DataSource ds, Configuration config) {
         super(om, ds);
 
+        this.pollIntervalMs = config.getIntProperty("workflow.mysql.queue.poll.interval.ms", 500);
+        this.skipLockedSupported = getWithTransaction(tx -> {
+            try {
+                return supportsSkipLocked(tx.getMetaData().getDatabaseProductVersion());
+            } catch (SQLException e) {
+                throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, e);
+            }
+        });
+        logger.info("Claiming queue messages {} SKIP LOCKED", skipLockedSupported ? "with" : "without");
+
         Executors.newSingleThreadScheduledExecutor()
                 .scheduleAtFixedRate(this::processAllUnacks,
                         UNACK_SCHEDULE_MS, UNACK_SCHEDULE_MS, TimeUnit.MILLISECONDS);
@@ -37,37 +65,39 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
     @Override
     public void push(String queueName, String messageId, long offsetTimeInSecond) {
         withTransaction(tx -> pushMessage(tx, queueName, messageId, null, offsetTimeInSecond));
+        signal(queueName);
     }
 
     @Override
     public void push(String queueName, List<Message> messages) {
         withTransaction(tx -> messages
                 .forEach(message -> pushMessage(tx, queueName, message.getId(), message.getPayload(), 0)));
+        signal(queueName);
     }
 
     @Override
     public boolean pushIfNotExists(String queueName, String messageId, long offsetTimeInSecond) {
-        return getWithTransaction(tx -> {
+        boolean pushed = getWithTransaction(tx -> {
             if (!existsMessage(tx, queueName, messageId)) {
                 pushMessage(tx, queueName, messageId, null, offsetTimeInSecond);
                 return true;
             }
             return false;
         });
+        if (pushed) {
+            signal(queueName);
+        }
+        return pushed;
     }
 
     @Override
     public List<String> pop(String queueName, int count, int timeout) {
-        List<Message> messages = getWithTransactionWithOutErrorPropagation(tx -> popMessages(tx, queueName, count, timeout));
-        if(messages == null) return new ArrayList<>();
-        return messages.stream().map(Message::getId).collect(Collectors.toList());
+        return popMessages(queueName, count, timeout).stream().map(Message::getId).collect(Collectors.toList());
     }
 
     @Override
     public List<Message> pollMessages(String queueName, int count, int timeout) {
-        List<Message> messages = getWithTransactionWithOutErrorPropagation(tx -> popMessages(tx, queueName, count, timeout));
-        if(messages == null) return new ArrayList<>();
-        return messages;
+        return popMessages(queueName, count, timeout);
     }
 
     @Override
@@ -97,6 +127,20 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
                         .addParameter(queueName).addParameter(messageId).executeUpdate()) == 1;
     }
 
+    @Override
+    public void setUnackTimeout(String queueName, List<String> messageIds, long unackTimeout) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        long updatedOffsetTimeInSecond = unackTimeout / 1000;
+
+        final String UPDATE_UNACK_TIMEOUTS = "UPDATE queue_message SET offset_time_seconds = ?, deliver_on = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) WHERE queue_name = ? AND message_id IN (%s)";
+
+        executeWithTransaction(String.format(UPDATE_UNACK_TIMEOUTS, Query.generateInBindings(messageIds.size())),
+                q -> q.addParameter(updatedOffsetTimeInSecond).addParameter(updatedOffsetTimeInSecond)
+                        .addParameter(queueName).addParameters(messageIds).executeUpdate());
+    }
+
     @Override
     public void flush(String queueName) {
         final String FLUSH_QUEUE = "DELETE FROM queue_message WHERE queue_name = ?";
@@ -151,13 +195,19 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
 
 
         final String PROCESS_ALL_UNACKS = "UPDATE queue_message SET popped = false WHERE popped = true AND TIMESTAMPADD(SECOND,60,CURRENT_TIMESTAMP) > deliver_on";
-        executeWithTransaction(PROCESS_ALL_UNACKS, Query::executeUpdate);
+        int unacked = queryWithTransaction(PROCESS_ALL_UNACKS, Query::executeUpdate);
+        if (unacked > 0) {
+            queueSignals.values().forEach(QueueSignal::signal);
+        }
     }
 
     @Override
     public void processUnacks(String queueName) {
         final String PROCESS_UNACKS = "UPDATE queue_message SET popped = false WHERE queue_name = ? AND popped = true AND TIMESTAMPADD(SECOND,60,CURRENT_TIMESTAMP)  > deliver_on";
-        executeWithTransaction(PROCESS_UNACKS, q -> q.addParameter(queueName).executeUpdate());
+        int unacked = queryWithTransaction(PROCESS_UNACKS, q -> q.addParameter(queueName).executeUpdate());
+        if (unacked > 0) {
+            signal(queueName);
+        }
     }
 
     @Override
@@ -165,8 +215,12 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
         final String SET_OFFSET_TIME = "UPDATE queue_message SET offset_time_seconds = ?, deliver_on = TIMESTAMPADD(SECOND,?,CURRENT_TIMESTAMP) \n"
                 + "WHERE queue_name = ? AND message_id = ?";
 
-        return queryWithTransaction(SET_OFFSET_TIME, q -> q.addParameter(offsetTimeInSecond)
+        boolean updated = queryWithTransaction(SET_OFFSET_TIME, q -> q.addParameter(offsetTimeInSecond)
                 .addParameter(offsetTimeInSecond).addParameter(queueName).addParameter(messageId).executeUpdate() == 1);
+        if (updated && offsetTimeInSecond <= 0) {
+            signal(queueName);
+        }
+        return updated;
     }
 
     @Override
@@ -197,13 +251,42 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
                 q -> q.addParameter(queueName).addParameter(messageId).executeDelete());
     }
 
-    private List<Message> peekMessages(Connection connection, String queueName, int count) {
-        if (count < 1)
+    /**
+     * Claims up to {@literal count} messages, waiting up to {@literal timeout} ms for messages to become available.
+     * No connection is held while waiting.
+     */
+    private List<Message> popMessages(String queueName, int count, int timeout) {
+        if (count < 1) {
             return Collections.emptyList();
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        QueueSignal queueSignal = queueSignals.computeIfAbsent(queueName, name -> new QueueSignal());
+        while (true) {
+            long version = queueSignal.version();
+            List<Message> messages = getWithTransactionWithOutErrorPropagation(tx -> claimMessages(tx, queueName, count));
+            if (messages != null && !messages.isEmpty()) {
+                return messages;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return new ArrayList<>();
+            }
+            try {
+                queueSignal.await(version, Math.min(remaining, pollIntervalMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ArrayList<>();
+            }
+        }
+    }
 
-        final String PEEK_MESSAGES = "SELECT message_id, payload FROM queue_message use index(combo_queue_message) WHERE queue_name = ? AND popped = false AND deliver_on <= TIMESTAMPADD(MICROSECOND, 1000, CURRENT_TIMESTAMP) ORDER BY deliver_on, created_on LIMIT ?";
+    private List<Message> claimMessages(Connection connection, String queueName, int count) {
+        final String CLAIM_MESSAGES = "SELECT message_id, payload FROM queue_message use index(combo_queue_message) WHERE queue_name = ? AND popped = false AND deliver_on <= TIMESTAMPADD(MICROSECOND, 1000, CURRENT_TIMESTAMP) ORDER BY deliver_on, created_on LIMIT ? FOR UPDATE"
+                + (skipLockedSupported ? " SKIP LOCKED" : "");
 
-        List<Message> messages = query(connection, PEEK_MESSAGES, p -> p.addParameter(queueName)
+        List<Message> messages = query(connection, CLAIM_MESSAGES, p -> p.addParameter(queueName)
                 .addParameter(count).executeAndFetch(rs -> {
                     List<Message> results = new ArrayList<>();
                     while (rs.next()) {
@@ -215,37 +298,71 @@ public class MySQLQueueDAO extends MySQLBaseDAO implements QueueDAO {
                     return results;
                 }));
 
-        return messages;
-    }
-
-    private List<Message> popMessages(Connection connection, String queueName, int count, int timeout) {
-        long start = System.currentTimeMillis();
-        List<Message> messages = peekMessages(connection, queueName, count);
-
-        while (messages.size() < count && ((System.currentTimeMillis() - start) < timeout)) {
-            Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
-            messages = peekMessages(connection, queueName, count);
-        }
-
         if (messages.isEmpty()) {
             return messages;
         }
 
-        final String POP_MESSAGES = "UPDATE queue_message SET popped = true WHERE queue_name = ? AND message_id IN (%s) AND popped = false";
+        // the rows are locked by this transaction, so every one of them is popped
+        final String POP_MESSAGES = "UPDATE queue_message SET popped = true WHERE queue_name = ? AND message_id IN (%s)";
 
         final List<String> Ids = messages.stream().map(Message::getId).collect(Collectors.toList());
         final String query = String.format(POP_MESSAGES, Query.generateInBindings(messages.size()));
+        execute(connection, query, q -> q.addParameter(queueName).addParameters(Ids).executeUpdate());
+        return messages;
+    }
 
-        int result = query(connection, query, q -> q.addParameter(queueName).addParameters(Ids).executeUpdate());
+    private void signal(String queueName) {
+        QueueSignal queueSignal = queueSignals.get(queueName);
+        if (queueSignal != null) {
+            queueSignal.signal();
+        }
+    }
 
-        if (result != messages.size()) {
-            String message = String.format("Could not pop all messages for given ids: %s (%d messages were popped)",
-                    Ids, result);
-            throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, message);
+    /**
+     * @return true for MySQL 8.0.1+ and MariaDB 10.6+, the first versions that support <code>SKIP LOCKED</code>.
+     */
+    @VisibleForTesting
+    static boolean supportsSkipLocked(String productVersion) {
+        boolean mariaDB = productVersion.contains("MariaDB");
+        // MariaDB reports itself as "5.5.5-<version>-MariaDB" to MySQL clients
+        Matcher matcher = SERVER_VERSION.matcher(mariaDB ? productVersion.replaceFirst("^5\\.5\\.5-", "") : productVersion);
+        if (!matcher.find()) {
+            return false;
         }
-        return messages;
+        int major = Integer.parseInt(matcher.group(1));
+        int minor = Integer.parseInt(matcher.group(2));
+        int patch = Integer.parseInt(matcher.group(3));
+        if (mariaDB) {
+            return major > 10 || (major == 10 && minor >= 6);
+        }
+        return major > 8 || (major == 8 && (minor > 0 || patch >= 1));
     }
 
+    /**
+     * Wakes up the pollers of a queue. Pollers read the version before checking the queue and only wait while it is
+     * unchanged, so a push made between the check and the wait is not missed.
+     */
+    private static class QueueSignal {
+        private long version;
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void signal() {
+            version++;
+            notifyAll();
+        }
+
+        synchronized void await(long seenVersion, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            long remaining = timeoutMs;
+            while (version == seenVersion && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
 
     private void createQueueIfNotExists(Connection connection, String queueName) {
         logger.trace("Creating new queue '{}'", queueName);
@@ -1,9 +1,11 @@
 package com.netflix.conductor.dao.mysql;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.metadata.CachingMetadataDAO;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
@@ -42,11 +44,20 @@ public class MySQLWorkflowModule extends AbstractModule {
 
     @Override
     protected void configure() {
-        bind(MetadataDAO.class).to(MySQLMetadataDAO.class);
         bind(ExecutionDAO.class).to(MySQLExecutionDAO.class);
         bind(QueueDAO.class).to(MySQLQueueDAO.class);
     }
 
+    @Provides
+    @Singleton
+    public MetadataDAO getMetadataDAO(MySQLMetadataDAO metadataDAO, MySQLMetadataChangeNotifier changeNotifier,
+                                      ObjectMapper objectMapper, Configuration config) {
+        if (!config.getBooleanProperty("workflow.metadata.cache.enabled", true)) {
+            return metadataDAO;
+        }
+        return new CachingMetadataDAO(metadataDAO, changeNotifier, objectMapper);
+    }
+
     private void flywayMigrate(Configuration config, DataSource dataSource) {
         boolean enabled = getBool(config.getProperty("flyway.enabled", "true"), true);
         if(!enabled) {
@@ -1,12 +1,18 @@
 package com.netflix.conductor.mysql;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.metadata.CachingMetadataDAO;
 
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
 import com.netflix.conductor.dao.mysql.MySQLExecutionDAO;
+import com.netflix.conductor.dao.mysql.MySQLMetadataChangeNotifier;
 import com.netflix.conductor.dao.mysql.MySQLMetadataDAO;
 import com.netflix.conductor.dao.mysql.MySQLQueueDAO;
 
@@ -21,9 +27,18 @@ public class MySQLWorkflowModule extends AbstractModule {
     protected void configure() {
         bind(MySQLConfiguration.class).to(SystemPropertiesMySQLConfiguration.class);
         bind(DataSource.class).toProvider(MySQLDataSourceProvider.class).in(Scopes.SINGLETON);
-        bind(MetadataDAO.class).to(MySQLMetadataDAO.class);
         bind(ExecutionDAO.class).to(MySQLExecutionDAO.class);
         bind(QueueDAO.class).to(MySQLQueueDAO.class);
     }
 
+    @Provides
+    @Singleton
+    public MetadataDAO getMetadataDAO(MySQLMetadataDAO metadataDAO, MySQLMetadataChangeNotifier changeNotifier,
+                                      ObjectMapper objectMapper, Configuration config) {
+        if (!config.getBooleanProperty("workflow.metadata.cache.enabled", true)) {
+            return metadataDAO;
+        }
+        return new CachingMetadataDAO(metadataDAO, changeNotifier, objectMapper);
+    }
+
 }
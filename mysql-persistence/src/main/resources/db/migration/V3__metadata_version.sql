@@ -0,0 +1,7 @@
+CREATE TABLE meta_version (
+  id int(11) unsigned NOT NULL,
+  version bigint NOT NULL DEFAULT 0,
+  PRIMARY KEY (id)
+);
+
+INSERT INTO meta_version (id, version) VALUES (1, 0);
@@ -41,7 +41,8 @@ public class MySQLExecutionDAOTest extends ExecutionDAOTest {
         testMySQL = new MySQLDAOTestUtil(name.getMethodName());
         executionDAO = new MySQLExecutionDAO(
                 testMySQL.getObjectMapper(),
-                testMySQL.getDataSource()
+                testMySQL.getDataSource(),
+                testMySQL.getTestConfiguration()
         );
         testMySQL.resetAllData();
     }
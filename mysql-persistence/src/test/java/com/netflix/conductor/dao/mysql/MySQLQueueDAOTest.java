@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
@@ -41,7 +43,7 @@ public class MySQLQueueDAOTest {
 	@Before
 	public void setup() throws Exception {
         testUtil = new MySQLDAOTestUtil(name.getMethodName());
-		dao = new MySQLQueueDAO(testUtil.getObjectMapper(), testUtil.getDataSource());
+		dao = new MySQLQueueDAO(testUtil.getObjectMapper(), testUtil.getDataSource(), testUtil.getTestConfiguration());
 	}
 
 	@After
@@ -306,4 +308,27 @@ public class MySQLQueueDAOTest {
 		assertNotNull(size);
 		assertEquals(size.longValue(), count - 1);
 	}
+
+	@Test
+	public void pollWaitsForPushedMessages() throws Exception {
+		String queueName = "TestQueue";
+		CompletableFuture<List<Message>> poll = CompletableFuture.supplyAsync(() -> dao.pollMessages(queueName, 1, 10_000));
+
+		Thread.sleep(200);
+		assertFalse("Poll returned before a message was pushed", poll.isDone());
+
+		dao.push(queueName, "msg1", 0);
+		List<Message> polled = poll.get(5, TimeUnit.SECONDS);
+		assertEquals(1, polled.size());
+		assertEquals("msg1", polled.get(0).getId());
+	}
+
+	@Test
+	public void supportsSkipLocked() {
+		assertTrue(MySQLQueueDAO.supportsSkipLocked("8.0.16"));
+		assertFalse(MySQLQueueDAO.supportsSkipLocked("8.0.0-dmr"));
+		assertFalse(MySQLQueueDAO.supportsSkipLocked("5.7.26-log"));
+		assertTrue(MySQLQueueDAO.supportsSkipLocked("5.5.5-10.6.4-MariaDB"));
+		assertFalse(MySQLQueueDAO.supportsSkipLocked("5.5.5-10.2.11-MariaDB"));
+	}
 }
@@ -12,13 +12,25 @@
  */
 package com.netflix.conductor.dao;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.metadata.CachingMetadataDAO;
+import com.netflix.conductor.core.utils.LocalLockProvider;
+import com.netflix.conductor.core.utils.LockProvider;
 import com.netflix.conductor.dao.dynomite.RedisExecutionDAO;
+import com.netflix.conductor.dao.dynomite.RedisLockProvider;
+import com.netflix.conductor.dao.dynomite.RedisMetadataChangeNotifier;
 import com.netflix.conductor.dao.dynomite.RedisMetadataDAO;
 import com.netflix.conductor.dao.dynomite.queue.DynoQueueDAO;
 import com.netflix.conductor.dyno.DynoProxy;
 import com.netflix.conductor.dyno.RedisQueuesProvider;
 import com.netflix.dyno.queues.redis.RedisQueues;
+
+import javax.inject.Provider;
+
 /**
  * @author Viren
  */
@@ -26,11 +38,34 @@ public class RedisWorkflowModule extends AbstractModule {
 
     @Override
     protected void configure() {
-        bind(MetadataDAO.class).to(RedisMetadataDAO.class);
         bind(ExecutionDAO.class).to(RedisExecutionDAO.class);
         bind(QueueDAO.class).to(DynoQueueDAO.class);
 
         bind(RedisQueues.class).toProvider(RedisQueuesProvider.class).asEagerSingleton();
         bind(DynoProxy.class).asEagerSingleton();
     }
+
+    @Provides
+    @Singleton
+    public MetadataDAO getMetadataDAO(RedisMetadataDAO metadataDAO, RedisMetadataChangeNotifier changeNotifier,
+                                      ObjectMapper objectMapper, Configuration config) {
+        if (!config.getBooleanProperty("workflow.metadata.cache.enabled", true)) {
+            return metadataDAO;
+        }
+        return new CachingMetadataDAO(metadataDAO, changeNotifier, objectMapper);
+    }
+
+    /**
+     * The Redis locks are released with a script, the locks are local to the node if scripting is not supported,
+     * e.g. by the in-memory redis.
+     */
+    @Provides
+    @Singleton
+    public LockProvider getLockProvider(DynoProxy dynoClient, Provider<RedisLockProvider> redisLockProvider,
+                                        Configuration config) {
+        if (!dynoClient.supportsScripting()) {
+            return new LocalLockProvider(config);
+        }
+        return redisLockProvider.get();
+    }
 }
@@ -29,6 +29,7 @@ import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.ApplicationException;
 import com.netflix.conductor.core.execution.ApplicationException.Code;
+import com.netflix.conductor.core.utils.PayloadCodec;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dyno.DynoProxy;
 import com.netflix.conductor.metrics.Monitors;
@@ -39,10 +40,15 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -74,9 +80,87 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 
 	private final static String EVENT_EXECUTION = "EVENT_EXECUTION";
 
+	/**
+	 * Sliding window rate limit. Drops the entries older than the window and admits the task, recording it in the
+	 * window, only if the window holds fewer entries than the limit. Returns 1 if the task is rate limited.
+	 * <p>
+	 * KEYS[1]: bucket, ARGV: now, window start, limit, member, window in seconds
+	 */
+	private static final String RATE_LIMIT_SCRIPT =
+			"redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[2]) " +
+			"if redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[3]) then " +
+			"  redis.call('ZADD', KEYS[1], ARGV[1], ARGV[4]) " +
+			"  redis.call('EXPIRE', KEYS[1], ARGV[5]) " +
+			"  return 0 " +
+			"end " +
+			"return 1";
+
+	/**
+	 * Concurrency limit. Rejects the task if the number of tasks in progress reached the limit, otherwise adds the
+	 * task to the limit bucket, keeping its position if it is already there, and admits it if it is among the first
+	 * limit tasks of the bucket. When it is not, the tasks of the bucket which are no longer in progress are removed.
+	 * Returns 0 if the task is admitted, 1 if it is limited by the tasks in progress, 2 if it is limited by the bucket.
+	 * <p>
+	 * KEYS[1]: limit bucket, KEYS[2]: tasks in progress, ARGV: score, taskId, limit
+	 */
+	private static final String CONCURRENCY_LIMIT_SCRIPT =
+			"local limit = tonumber(ARGV[3]) " +
+			"if redis.call('SCARD', KEYS[2]) >= limit then " +
+			"  return 1 " +
+			"end " +
+			"redis.call('ZADD', KEYS[1], 'NX', ARGV[1], ARGV[2]) " +
+			"if redis.call('ZRANK', KEYS[1], ARGV[2]) < limit then " +
+			"  return 0 " +
+			"end " +
+			"for _, id in ipairs(redis.call('ZRANGE', KEYS[1], 0, limit - 1)) do " +
+			"  if redis.call('SISMEMBER', KEYS[2], id) == 0 then " +
+			"    redis.call('ZREM', KEYS[1], id) " +
+			"  end " +
+			"end " +
+			"return 2";
+
+	/**
+	 * Concurrency limit of a batch of tasks of the same definition: evaluates {@link #CONCURRENCY_LIMIT_SCRIPT} for
+	 * each task in turn, in one round trip. Returns the decisions, in the order of the tasks.
+	 * <p>
+	 * KEYS[1]: limit bucket, KEYS[2]: tasks in progress, ARGV: score, limit, taskIds
+	 */
+	private static final String BATCH_CONCURRENCY_LIMIT_SCRIPT =
+			"local limit = tonumber(ARGV[2]) " +
+			"local inProgress = redis.call('SCARD', KEYS[2]) " +
+			"local decisions = {} " +
+			"for i = 3, #ARGV do " +
+			"  local decision = 2 " +
+			"  if inProgress >= limit then " +
+			"    decision = 1 " +
+			"  else " +
+			"    redis.call('ZADD', KEYS[1], 'NX', ARGV[1], ARGV[i]) " +
+			"    if redis.call('ZRANK', KEYS[1], ARGV[i]) < limit then " +
+			"      decision = 0 " +
+			"    else " +
+			"      for _, id in ipairs(redis.call('ZRANGE', KEYS[1], 0, limit - 1)) do " +
+			"        if redis.call('SISMEMBER', KEYS[2], id) == 0 then " +
+			"          redis.call('ZREM', KEYS[1], id) " +
+			"        end " +
+			"      end " +
+			"    end " +
+			"  end " +
+			"  decisions[#decisions + 1] = decision " +
+			"end " +
+			"return decisions";
+
+	private static final long ADMITTED = 0;
+	private static final long LIMITED_BY_IN_PROGRESS_COUNT = 1;
+	private static final long LIMITED_BY_LIMIT_BUCKET = 2;
+
+	private final PayloadCodec payloadCodec;
+
+	private volatile boolean scriptingSupported = true;
+
 	@Inject
 	public RedisExecutionDAO(DynoProxy dynoClient, ObjectMapper objectMapper, Configuration config) {
 		super(dynoClient, objectMapper, config);
+		this.payloadCodec = new PayloadCodec(objectMapper, config, "redis");
 	}
 
 	@Override
@@ -121,6 +205,7 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 	public List<Task> createTasks(List<Task> tasks) {
 
 		List<Task> tasksCreated = new LinkedList<>();
+		Map<String, List<String>> inProgressTaskIds = new HashMap<>();
 
 		for (Task task : tasks) {
 		    validate(task);
@@ -135,33 +220,80 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 			}
 
 			task.setScheduledTime(System.currentTimeMillis());
-
-			correlateTaskToWorkflowInDS(task.getTaskId(), task.getWorkflowInstanceId());
-			logger.debug("Scheduled task added to WORKFLOW_TO_TASKS workflowId: {}, taskId: {}, taskType: {} during createTasks",
-                    task.getWorkflowInstanceId(), task.getTaskId(), task.getTaskType());
-
-			String inProgressTaskKey = nsKey(IN_PROGRESS_TASKS, task.getTaskDefName());
-			dynoClient.sadd(inProgressTaskKey, task.getTaskId());
-			logger.debug("Scheduled task added to IN_PROGRESS_TASKS with inProgressTaskKey: {}, workflowId: {}, taskId: {}, taskType: {} during createTasks",
-                    inProgressTaskKey, task.getWorkflowInstanceId(), task.getTaskId(), task.getTaskType());
-
-			updateTask(task);
+			inProgressTaskIds.computeIfAbsent(task.getTaskDefName(), taskDefName -> new ArrayList<>()).add(task.getTaskId());
 			tasksCreated.add(task);
 		}
 
+		inProgressTaskIds.forEach((taskDefName, taskIds) -> {
+			String inProgressTaskKey = nsKey(IN_PROGRESS_TASKS, taskDefName);
+			dynoClient.sadd(inProgressTaskKey, taskIds);
+			logger.debug("Scheduled tasks added to IN_PROGRESS_TASKS with inProgressTaskKey: {}, taskIds: {} during createTasks",
+					inProgressTaskKey, taskIds);
+		});
+
+		// the tasks are correlated to their workflows as part of the update
+		updateTasks(tasksCreated);
 		return tasksCreated;
 
 	}
 
+	/**
+	 * Stores the given tasks using a constant number of round trips for the task payloads and the
+	 * workflow and in progress bookkeeping, irrespective of the number of tasks.
+	 *
+	 * @param tasks the tasks to be stored
+	 */
 	@Override
 	public void updateTasks(List<Task> tasks) {
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		Map<String, String> payloads = new LinkedHashMap<>();
+		Map<String, List<String>> terminalTaskIds = new HashMap<>();
+		Map<String, List<String>> workflowTaskIds = new HashMap<>();
+
 		for (Task task : tasks) {
-			updateTask(task);
+			String payload = prepareTaskUpdate(task);
+			payloads.put(nsKey(TASK, task.getTaskId()), payload);
+			if (task.getStatus() != null && task.getStatus().isTerminal()) {
+				terminalTaskIds.computeIfAbsent(task.getTaskDefName(), taskDefName -> new ArrayList<>()).add(task.getTaskId());
+			}
+			// a task read from the store is already mapped to its workflow
+			if (!task.wasPersisted()) {
+				workflowTaskIds.computeIfAbsent(task.getWorkflowInstanceId(), workflowId -> new ArrayList<>()).add(task.getTaskId());
+			}
 		}
+
+		dynoClient.mset(payloads);
+		logger.debug("Workflow task payloads saved to TASK with taskKeys: {} during updateTasks", payloads.keySet());
+
+		terminalTaskIds.forEach((taskDefName, taskIds) -> {
+			dynoClient.srem(nsKey(IN_PROGRESS_TASKS, taskDefName), taskIds);
+			logger.debug("Workflow Tasks removed from IN_PROGRESS_TASKS with inProgressTaskKey: {}, taskIds: {} during updateTasks",
+					nsKey(IN_PROGRESS_TASKS, taskDefName), taskIds);
+		});
+
+		workflowTaskIds.forEach((workflowId, taskIds) -> {
+			String workflowToTaskKey = nsKey(WORKFLOW_TO_TASKS, workflowId);
+			dynoClient.sadd(workflowToTaskKey, taskIds);
+			logger.debug("Tasks mapped in WORKFLOW_TO_TASKS with workflowToTaskKey: {}, workflowId: {}, taskIds: {}",
+					workflowToTaskKey, workflowId, taskIds);
+		});
 	}
 
 	@Override
 	public void updateTask(Task task) {
+		updateTasks(Collections.singletonList(task));
+	}
+
+	/**
+	 * Updates the timestamps and the concurrent execution limit bookkeeping of the task.
+	 *
+	 * @param task the task being updated
+	 * @return the serialized payload of the task to be stored
+	 */
+	private String prepareTaskUpdate(Task task) {
 		task.setUpdateTime(System.currentTimeMillis());
 		if (task.getStatus() != null && task.getStatus().isTerminal() && task.getEndTime() == 0) {
 			task.setEndTime(System.currentTimeMillis());
@@ -186,25 +318,13 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 			}
 		}
 
-		String payload = toJson(task);
+		String payload = payloadCodec.encode(task);
 		recordRedisDaoPayloadSize("updateTask", payload.length(), taskDefinition
 				.map(TaskDef::getName)
 				.orElse("n/a"), task.getWorkflowType());
 
 		recordRedisDaoRequests("updateTask", task.getTaskType(), task.getWorkflowType());
-		dynoClient.set(nsKey(TASK, task.getTaskId()), payload);
-		logger.debug("Workflow task payload saved to TASK with taskKey: {}, workflowId: {}, taskId: {}, taskType: {} during updateTask",
-				nsKey(TASK, task.getTaskId()), task.getWorkflowInstanceId(), task.getTaskId(), task.getTaskType());
-		if (task.getStatus() != null && task.getStatus().isTerminal()) {
-			dynoClient.srem(nsKey(IN_PROGRESS_TASKS, task.getTaskDefName()), task.getTaskId());
-			logger.debug("Workflow Task removed from TASKS_IN_PROGRESS_STATUS with tasksInProgressKey: {}, workflowId: {}, taskId: {}, taskType: {}, taskStatus: {} during updateTask",
-					nsKey(IN_PROGRESS_TASKS, task.getTaskDefName()), task.getWorkflowInstanceId(), task.getTaskId(), task.getTaskType(), task.getStatus().name());
-		}
-
-        Set<String> taskIds = dynoClient.smembers(nsKey(WORKFLOW_TO_TASKS, task.getWorkflowInstanceId()));
-		if (!taskIds.contains(task.getTaskId())) {
-		    correlateTaskToWorkflowInDS(task.getTaskId(), task.getWorkflowInstanceId());
-        }
+		return payload;
 	}
 
 	/**
@@ -219,6 +339,8 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 	 *     this is achieved by using {@link DynoProxy#zcount(String, double, double)} </li>
 	 *     <li>Once the count is calculated then a evaluation is made to determine if it is within the bounds of {@link Task#getRateLimitPerFrequency()}, if so the count is increased and an expiry TTL is added to the entry</li>
 	 * </ul>
+	 * The steps are executed atomically in a single round trip by {@link #RATE_LIMIT_SCRIPT}, or one command at a time when
+	 * the client does not support scripting.
 	 *
 	 * @param task: which needs to be evaluated whether it is rateLimited or not
 	 * @return true: If the {@link Task} is rateLimited
@@ -232,32 +354,64 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 			logger.debug("Rate limit not applied to the Task: {}  either rateLimitPerFrequency: {} or rateLimitFrequencyInSeconds: {} is 0 or less",
 					task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
 			return false;
+		}
+
+		logger.debug("Evaluating rate limiting for Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {}",
+				task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
+		long start = System.nanoTime();
+		long currentTimeEpochMillis = System.currentTimeMillis();
+		long currentTimeEpochMinusRateLimitBucket = currentTimeEpochMillis - (rateLimitFrequencyInSeconds * 1000);
+		String key = nsKey(TASK_RATE_LIMIT_BUCKET, task.getTaskDefName());
+		String member = currentTimeEpochMillis + ":" + task.getTaskId();
+
+		boolean rateLimited;
+		if (scriptingSupported) {
+			try {
+				Object reply = dynoClient.eval(RATE_LIMIT_SCRIPT, Collections.singletonList(key),
+						Arrays.asList(String.valueOf(currentTimeEpochMillis), String.valueOf(currentTimeEpochMinusRateLimitBucket),
+								String.valueOf(rateLimitPerFrequency), member, String.valueOf(rateLimitFrequencyInSeconds)));
+				rateLimited = ((Long) reply) == 1L;
+			} catch (UnsupportedOperationException e) {
+				scriptingDisabled(e);
+				rateLimited = exceedsRateLimitPerFrequency(key, member, currentTimeEpochMillis, currentTimeEpochMinusRateLimitBucket,
+						rateLimitPerFrequency, rateLimitFrequencyInSeconds);
+			}
 		} else {
-			logger.debug("Evaluating rate limiting for Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {}",
+			rateLimited = exceedsRateLimitPerFrequency(key, member, currentTimeEpochMillis, currentTimeEpochMinusRateLimitBucket,
+					rateLimitPerFrequency, rateLimitFrequencyInSeconds);
+		}
+		recordRedisDaoRequests("checkTaskRateLimitPerFrequency", task.getTaskType(), task.getWorkflowType());
+		Monitors.recordTaskLimiterLatency(task.getTaskDefName(), "rate", System.nanoTime() - start);
+
+		if (rateLimited) {
+			logger.info("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} is out of bounds of rate limit",
+					task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
+			Monitors.recordTaskRateLimited(task.getTaskDefName(), rateLimitPerFrequency);
+		} else {
+			logger.debug("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} within the rate limit",
 					task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
-			long currentTimeEpochMillis = System.currentTimeMillis();
-			long currentTimeEpochMinusRateLimitBucket = currentTimeEpochMillis - (rateLimitFrequencyInSeconds * 1000);
-			String key = nsKey(TASK_RATE_LIMIT_BUCKET, task.getTaskDefName());
-			dynoClient.zremrangeByScore(key, "-inf", String.valueOf(currentTimeEpochMinusRateLimitBucket));
-			int currentBucketCount = Math.toIntExact(
-					dynoClient.zcount(key,
-							currentTimeEpochMinusRateLimitBucket,
-							currentTimeEpochMillis));
-			if (currentBucketCount < rateLimitPerFrequency) {
-				dynoClient.zadd(key, currentTimeEpochMillis, String.valueOf(currentTimeEpochMillis));
-				dynoClient.expire(key, rateLimitFrequencyInSeconds);
-				logger.info("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} within the rate limit with current count {}",
-						task, rateLimitPerFrequency, rateLimitFrequencyInSeconds, ++currentBucketCount);
-				Monitors.recordTaskRateLimited(task.getTaskDefName(), rateLimitPerFrequency);
-				return false;
-			} else {
-				logger.info("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} is out of bounds of rate limit with current count {}",
-						task, rateLimitPerFrequency, rateLimitFrequencyInSeconds, currentBucketCount);
-				return true;
-			}
 		}
+		return rateLimited;
 	}
 
+	/**
+	 * Evaluates the rate limit with one command per step, for the clients which do not support scripting.
+	 */
+	private boolean exceedsRateLimitPerFrequency(String key, String member, long currentTimeEpochMillis,
+												 long currentTimeEpochMinusRateLimitBucket, int rateLimitPerFrequency,
+												 int rateLimitFrequencyInSeconds) {
+		dynoClient.zremrangeByScore(key, "-inf", String.valueOf(currentTimeEpochMinusRateLimitBucket));
+		int currentBucketCount = Math.toIntExact(
+				dynoClient.zcount(key,
+						currentTimeEpochMinusRateLimitBucket,
+						currentTimeEpochMillis));
+		if (currentBucketCount < rateLimitPerFrequency) {
+			dynoClient.zadd(key, currentTimeEpochMillis, member);
+			dynoClient.expire(key, rateLimitFrequencyInSeconds);
+			return false;
+		}
+		return true;
+	}
 
 	@Override
 	public boolean exceedsInProgressLimit(Task task) {
@@ -270,31 +424,164 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 			return false;
 		}
 
-		long current = getInProgressTaskCount(task.getTaskDefName());
-		if(current >= limit) {
-			logger.info("Task execution count limited. task - {}:{}, limit: {}, current: {}", task.getTaskId(), task.getTaskDefName(), limit, current);
+		long start = System.nanoTime();
+		String rateLimitKey = nsKey(TASK_LIMIT_BUCKET, task.getTaskDefName());
+		String inProgressKey = nsKey(TASKS_IN_PROGRESS_STATUS, task.getTaskDefName());
+		double score = System.currentTimeMillis();
+		String taskId = task.getTaskId();
+
+		long decision;
+		if (scriptingSupported && dynoClient.supportsMultiKeyScripts()) {
+			try {
+				decision = (Long) dynoClient.eval(CONCURRENCY_LIMIT_SCRIPT, Arrays.asList(rateLimitKey, inProgressKey),
+						Arrays.asList(String.valueOf(score), taskId, String.valueOf(limit)));
+			} catch (UnsupportedOperationException e) {
+				scriptingDisabled(e);
+				decision = exceedsInProgressLimit(rateLimitKey, inProgressKey, score, taskId, limit);
+			}
+		} else {
+			decision = exceedsInProgressLimit(rateLimitKey, inProgressKey, score, taskId, limit);
+		}
+		recordRedisDaoRequests("checkTaskRateLimiting", task.getTaskType(), task.getWorkflowType());
+		Monitors.recordTaskLimiterLatency(task.getTaskDefName(), "concurrency", System.nanoTime() - start);
+		return isLimited(task, decision, limit);
+	}
+
+	/**
+	 * Evaluates the concurrency limits of the tasks with one script per task definition, see
+	 * {@link #BATCH_CONCURRENCY_LIMIT_SCRIPT}, or with one command per step and per task definition when scripts are
+	 * not supported.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Set<String> exceedsInProgressLimit(List<Task> tasks) {
+		Map<String, List<Task>> tasksByDefinition = new LinkedHashMap<>();
+		for (Task task : tasks) {
+			Optional<TaskDef> taskDefinition = task.getTaskDefinition();
+			if (taskDefinition.isPresent() && taskDefinition.get().concurrencyLimit() > 0) {
+				tasksByDefinition.computeIfAbsent(task.getTaskDefName(), name -> new ArrayList<>()).add(task);
+			}
+		}
+
+		Set<String> limitedTaskIds = new HashSet<>();
+		for (Map.Entry<String, List<Task>> entry : tasksByDefinition.entrySet()) {
+			String taskDefName = entry.getKey();
+			List<Task> definitionTasks = entry.getValue();
+			if (definitionTasks.size() == 1) {
+				if (exceedsInProgressLimit(definitionTasks.get(0))) {
+					limitedTaskIds.add(definitionTasks.get(0).getTaskId());
+				}
+				continue;
+			}
+
+			Task first = definitionTasks.get(0);
+			int limit = first.getTaskDefinition().get().concurrencyLimit();
+			long start = System.nanoTime();
+			String rateLimitKey = nsKey(TASK_LIMIT_BUCKET, taskDefName);
+			String inProgressKey = nsKey(TASKS_IN_PROGRESS_STATUS, taskDefName);
+			long score = System.currentTimeMillis();
+			List<String> taskIds = definitionTasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+
+			List<Long> decisions;
+			if (scriptingSupported && dynoClient.supportsMultiKeyScripts()) {
+				List<String> args = new ArrayList<>(taskIds.size() + 2);
+				args.add(String.valueOf(score));
+				args.add(String.valueOf(limit));
+				args.addAll(taskIds);
+				try {
+					decisions = (List<Long>) dynoClient.eval(BATCH_CONCURRENCY_LIMIT_SCRIPT, Arrays.asList(rateLimitKey, inProgressKey), args);
+				} catch (UnsupportedOperationException e) {
+					scriptingDisabled(e);
+					decisions = exceedsInProgressLimit(rateLimitKey, inProgressKey, score, taskIds, limit);
+				}
+			} else {
+				decisions = exceedsInProgressLimit(rateLimitKey, inProgressKey, score, taskIds, limit);
+			}
+			recordRedisDaoRequests("checkTaskRateLimiting", first.getTaskType(), first.getWorkflowType());
+			Monitors.recordTaskLimiterLatency(taskDefName, "concurrency", System.nanoTime() - start);
+
+			for (int i = 0; i < definitionTasks.size(); i++) {
+				Task task = definitionTasks.get(i);
+				if (isLimited(task, decisions.get(i), limit)) {
+					limitedTaskIds.add(task.getTaskId());
+				}
+			}
+		}
+		return limitedTaskIds;
+	}
+
+	/**
+	 * Logs and records the decision of the concurrency limit.
+	 *
+	 * @return true if the task is limited
+	 */
+	private boolean isLimited(Task task, long decision, int limit) {
+		if (decision == LIMITED_BY_IN_PROGRESS_COUNT) {
+			logger.info("Task execution count limited. task - {}:{}, limit: {}", task.getTaskId(), task.getTaskDefName(), limit);
 			Monitors.recordTaskConcurrentExecutionLimited(task.getTaskDefName(), limit);
 			return true;
 		}
+		if (decision == LIMITED_BY_LIMIT_BUCKET) {
+			logger.info("Task execution count limited. task - {}:{}, limit: {}", task.getTaskId(), task.getTaskDefName(), limit);
+			Monitors.recordTaskRateLimited(task.getTaskDefName(), limit);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Evaluates the concurrency limit with one command per step, for the clients which cannot run the script.
+	 *
+	 * @return the decision, as returned by {@link #CONCURRENCY_LIMIT_SCRIPT}
+	 */
+	private long exceedsInProgressLimit(String rateLimitKey, String inProgressKey, double score, String taskId, int limit) {
+		if (dynoClient.scard(inProgressKey) >= limit) {
+			return LIMITED_BY_IN_PROGRESS_COUNT;
+		}
 
-		String rateLimitKey = nsKey(TASK_LIMIT_BUCKET, task.getTaskDefName());
-		double score = System.currentTimeMillis();
-		String taskId = task.getTaskId();
 		dynoClient.zaddnx(rateLimitKey, score, taskId);
-		recordRedisDaoRequests("checkTaskRateLimiting", task.getTaskType(), task.getWorkflowType());
+		Set<String> ids = dynoClient.zrangeByScore(rateLimitKey, 0, score + 1, limit);
+		if (ids.contains(taskId)) {
+			return ADMITTED;
+		}
 
+		//Cleanup any items that are still present in the rate limit bucket but not in progress anymore!
+		Set<String> inProgress = dynoClient.smembers(inProgressKey);
+		ids.stream()
+				.filter(id -> !inProgress.contains(id))
+				.forEach(id -> dynoClient.zrem(rateLimitKey, id));
+		return LIMITED_BY_LIMIT_BUCKET;
+	}
+
+	/**
+	 * Evaluates the concurrency limit of tasks of the same definition with one command per step, for the clients which
+	 * cannot run the script. The bucket is cleaned up once for the batch, so that the tasks which were limited only by
+	 * stale entries of the bucket are admitted at the next poll.
+	 *
+	 * @return the decisions, in the order of the tasks
+	 */
+	private List<Long> exceedsInProgressLimit(String rateLimitKey, String inProgressKey, double score, List<String> taskIds, int limit) {
+		if (dynoClient.scard(inProgressKey) >= limit) {
+			return Collections.nCopies(taskIds.size(), LIMITED_BY_IN_PROGRESS_COUNT);
+		}
+
+		taskIds.forEach(taskId -> dynoClient.zaddnx(rateLimitKey, score, taskId));
 		Set<String> ids = dynoClient.zrangeByScore(rateLimitKey, 0, score + 1, limit);
-		boolean rateLimited = !ids.contains(taskId);
-		if(rateLimited) {
-			logger.info("Task execution count limited. task - {}:{}, limit: {}, current: {}", task.getTaskId(), task.getTaskDefName(), limit, current);
-			String inProgressKey = nsKey(TASKS_IN_PROGRESS_STATUS, task.getTaskDefName());
-			//Cleanup any items that are still present in the rate limit bucket but not in progress anymore!
+		List<Long> decisions = taskIds.stream()
+				.map(taskId -> ids.contains(taskId) ? ADMITTED : LIMITED_BY_LIMIT_BUCKET)
+				.collect(Collectors.toList());
+		if (decisions.contains(LIMITED_BY_LIMIT_BUCKET)) {
+			Set<String> inProgress = dynoClient.smembers(inProgressKey);
 			ids.stream()
-					.filter(id -> !dynoClient.sismember(inProgressKey, id))
-					.forEach(id2 -> dynoClient.zrem(rateLimitKey, id2));
-			Monitors.recordTaskRateLimited(task.getTaskDefName(), limit);
+					.filter(id -> !inProgress.contains(id))
+					.forEach(id -> dynoClient.zrem(rateLimitKey, id));
 		}
-		return rateLimited;
+		return decisions;
+	}
+
+	private void scriptingDisabled(UnsupportedOperationException e) {
+		logger.warn("Redis scripting not supported, the task limits are evaluated without scripts: {}", e.getMessage());
+		scriptingSupported = false;
 	}
 
 	@Override
@@ -321,9 +608,9 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
         Preconditions.checkNotNull(taskId, "taskId cannot be null");
         return Optional.ofNullable(dynoClient.get(nsKey(TASK, taskId)))
                 .map(json -> {
-                    Task task = readValue(json, Task.class);
+                    Task task = payloadCodec.decode(json, Task.class);
                     recordRedisDaoRequests("getTask", task.getTaskType(), task.getWorkflowType());
-                    recordRedisDaoPayloadSize("getTask", toJson(task).length(), task.getTaskType(), task.getWorkflowType());
+                    recordRedisDaoPayloadSize("getTask", json.length(), task.getTaskType(), task.getWorkflowType());
                     return task;
                 })
                 .orElse(null);
@@ -331,12 +618,13 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 
 	@Override
 	public List<Task> getTasks(List<String> taskIds) {
-		return taskIds.stream()
+		List<String> taskKeys = taskIds.stream()
 				.map(taskId -> nsKey(TASK, taskId))
-				.map(dynoClient::get)
+				.collect(Collectors.toList());
+		return dynoClient.mget(taskKeys).stream()
 				.filter(Objects::nonNull)
 				.map(jsonString -> {
-					Task task = readValue(jsonString, Task.class);
+					Task task = payloadCodec.decode(jsonString, Task.class);
 					recordRedisDaoRequests("getTask", task.getTaskType(), task.getWorkflowType());
 					recordRedisDaoPayloadSize("getTask", jsonString.length(), task.getTaskType(), task.getWorkflowType());
 					return task;
@@ -412,7 +700,7 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 		Workflow workflow = null;
 
 		if(json != null) {
-			workflow = readValue(json, Workflow.class);
+			workflow = payloadCodec.decode(json, Workflow.class);
 			recordRedisDaoRequests("getWorkflow", "n/a", workflow.getWorkflowName());
 			recordRedisDaoPayloadSize("getWorkflow", json.length(),"n/a", workflow.getWorkflowName());
 			if (includeTasks) {
@@ -500,7 +788,7 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 		List<Task> tasks = workflow.getTasks();
 		workflow.setTasks(new LinkedList<>());
 
-		String payload = toJson(workflow);
+		String payload = payloadCodec.encode(workflow);
 		// Store the workflow object
 		dynoClient.set(nsKey(WORKFLOW, workflow.getWorkflowId()), payload);
 		recordRedisDaoRequests("storeWorkflow", "n/a", workflow.getWorkflowName());
@@ -514,11 +802,13 @@ public class RedisExecutionDAO extends BaseDynoDAO implements ExecutionDAO {
 				dynoClient.sadd(nsKey(CORR_ID_TO_WORKFLOWS, workflow.getCorrelationId()), workflow.getWorkflowId());
 			}
 		}
-		// Add or remove from the pending workflows
-		if (workflow.getStatus().isTerminal()) {
-			dynoClient.srem(nsKey(PENDING_WORKFLOWS, workflow.getWorkflowName()), workflow.getWorkflowId());
-		} else {
-			dynoClient.sadd(nsKey(PENDING_WORKFLOWS, workflow.getWorkflowName()), workflow.getWorkflowId());
+		// Add or remove from the pending workflows, which only changes with the status of a workflow read from the store
+		if (!update || !workflow.wasPersisted() || workflow.hasStatusChangedSincePersisted()) {
+			if (workflow.getStatus().isTerminal()) {
+				dynoClient.srem(nsKey(PENDING_WORKFLOWS, workflow.getWorkflowName()), workflow.getWorkflowId());
+			} else {
+				dynoClient.sadd(nsKey(PENDING_WORKFLOWS, workflow.getWorkflowName()), workflow.getWorkflowId());
+			}
 		}
 
 		workflow.setTasks(tasks);
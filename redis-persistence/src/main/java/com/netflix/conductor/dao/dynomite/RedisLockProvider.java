@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.dao.dynomite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.utils.LockException;
+import com.netflix.conductor.core.utils.LockProvider;
+import com.netflix.conductor.dyno.DynoProxy;
+import com.netflix.conductor.metrics.Monitors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LockProvider} backed by Redis, shared by all the nodes of the cluster.
+ * <p>
+ * A lock is a key set with <code>SET NX PX</code>, so that a lock held by a node that dies is released once its lease
+ * expires. The value of the key is a random token, which identifies the holder: the lock is released
+ * with a script deleting the key only if it still holds the token, so that a holder whose lease has expired does not
+ * release the lock of the next holder. The lease is not enforced on the writes of the holder, which should complete
+ * well within <code>workflow.locking.lease.ms</code>.
+ * <p>
+ * Requires Redis scripting, see {@link DynoProxy#supportsScripting()}.
+ */
+@Singleton
+public class RedisLockProvider extends BaseDynoDAO implements LockProvider {
+
+    private static final String PROVIDER_NAME = "redis";
+
+    private static final String LOCK = "LOCK";
+
+    private static final long MAX_RETRY_INTERVAL_MS = 100;
+
+    // KEYS[1]: the lock, ARGV[1]: the token of the holder
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final long leaseTimeMs;
+
+    @Inject
+    public RedisLockProvider(DynoProxy dynoClient, ObjectMapper objectMapper, Configuration config) {
+        super(dynoClient, objectMapper, config);
+        this.leaseTimeMs = config.getLongProperty("workflow.locking.lease.ms", 60000);
+    }
+
+    @Override
+    public RedisLock lock(String path, long timeOut, TimeUnit unit) throws LockException {
+        String key = nsKey(LOCK, path);
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeOut);
+        long retryInterval = 5;
+
+        recordRedisDaoRequests("lock");
+        boolean acquired = dynoClient.setnx(key, token, leaseTimeMs);
+        if (!acquired) {
+            Monitors.recordLockContention(PROVIDER_NAME);
+        }
+        while (!acquired) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new LockException("Unable to acquire lock: " + path + " within " + unit.toMillis(timeOut) + " ms");
+            }
+            Uninterruptibles.sleepUninterruptibly(Math.min(retryInterval, remaining), TimeUnit.MILLISECONDS);
+            retryInterval = Math.min(retryInterval * 2, MAX_RETRY_INTERVAL_MS);
+            acquired = dynoClient.setnx(key, token, leaseTimeMs);
+        }
+        return new RedisLock(key, token);
+    }
+
+    /**
+     * Handle to a lock acquired from Redis.
+     */
+    public class RedisLock implements AutoCloseable {
+
+        private final String key;
+        private final String token;
+
+        private RedisLock(String key, String token) {
+            this.key = key;
+            this.token = token;
+        }
+
+        /**
+         * @return the token identifying this holder of the lock
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Releases the lock, unless its lease has expired and it has been acquired by another holder.
+         */
+        @Override
+        public void close() {
+            recordRedisDaoRequests("unlock");
+            Object released = dynoClient.eval(RELEASE_SCRIPT, Collections.singletonList(key), Collections.singletonList(token));
+            if (!Long.valueOf(1).equals(released)) {
+                logger.warn("Lock {} with token {} expired before it was released", key, token);
+            }
+        }
+    }
+}
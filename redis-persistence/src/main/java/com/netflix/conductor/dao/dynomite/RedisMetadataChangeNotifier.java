@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.dao.dynomite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.metadata.MetadataChangeNotifier;
+import com.netflix.conductor.core.metadata.MetadataChangePoller;
+import com.netflix.conductor.dyno.DynoProxy;
+import com.netflix.conductor.metrics.Monitors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * {@link MetadataChangeNotifier} backed by a version counter in Redis, incremented on every change and polled by
+ * every node.
+ */
+@Singleton
+public class RedisMetadataChangeNotifier extends BaseDynoDAO implements MetadataChangeNotifier {
+
+    private static final String className = RedisMetadataChangeNotifier.class.getSimpleName();
+
+    private static final String METADATA_VERSION = "METADATA_VERSION";
+
+    private final MetadataChangePoller poller;
+
+    @Inject
+    public RedisMetadataChangeNotifier(DynoProxy dynoClient, ObjectMapper objectMapper, Configuration config) {
+        super(dynoClient, objectMapper, config);
+        int pollIntervalMs = config.getIntProperty("workflow.metadata.change.poll.interval.ms", 1000);
+        this.poller = new MetadataChangePoller(this::getVersion, pollIntervalMs);
+    }
+
+    @Override
+    public void publish() {
+        try {
+            dynoClient.incr(nsKey(METADATA_VERSION));
+            recordRedisDaoRequests("publishMetadataChange");
+        } catch (Exception e) {
+            Monitors.error(className, "publish");
+            logger.error("Unable to publish the metadata change", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Runnable listener) {
+        poller.subscribe(listener);
+    }
+
+    private long getVersion() {
+        String version = dynoClient.get(nsKey(METADATA_VERSION));
+        return version == null ? 0 : Long.parseLong(version);
+    }
+}
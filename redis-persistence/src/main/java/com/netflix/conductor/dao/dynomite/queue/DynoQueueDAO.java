@@ -14,6 +14,7 @@ package com.netflix.conductor.dao.dynomite.queue;
 
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.dyno.DynomiteConfiguration;
 import com.netflix.discovery.DiscoveryClient;
 import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.contrib.EurekaHostsSupplier;
@@ -27,11 +28,13 @@ import com.netflix.dyno.queues.shard.DynoShardSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.params.sortedset.ZAddParams;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -53,11 +56,17 @@ public class DynoQueueDAO implements QueueDAO {
 
     private String domain;
 
+    private String prefix;
+
     private Configuration config;
 
     @Inject
-    public DynoQueueDAO(RedisQueues queues) {
+    public DynoQueueDAO(RedisQueues queues, JedisCommands dynoClient, ShardSupplier ss, DynomiteConfiguration config) {
         this.queues = queues;
+        this.dynoClient = dynoClient;
+        this.ss = ss;
+        this.config = config;
+        this.prefix = config.getQueuePrefix();
     }
 
     @Deprecated
@@ -113,7 +122,7 @@ public class DynoQueueDAO implements QueueDAO {
 
         String rootNamespace = config.getProperty("workflow.namespace.queue.prefix", null);
         String stack = config.getStack();
-        String prefix = rootNamespace + "." + stack;
+        prefix = rootNamespace + "." + stack;
         if (domain != null) {
             prefix = prefix + "." + domain;
         }
@@ -185,6 +194,30 @@ public class DynoQueueDAO implements QueueDAO {
         return queues.get(queueName).setUnackTimeout(messageId, timeout);
     }
 
+    /**
+     * Updates the messages with one ZADD per shard instead of the lookup and update per message and shard done by
+     * {@link DynoQueue#setUnackTimeout(String, long)}. The XX flag leaves out the messages which are not in the
+     * unack set of a shard, so that they are only updated in the shard they were popped from.
+     */
+    @Override
+    public void setUnackTimeout(String queueName, List<String> messageIds, long unackTimeout) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        double score = Long.valueOf(System.currentTimeMillis() + unackTimeout).doubleValue();
+        Map<String, Double> scoreMembers = new HashMap<>();
+        messageIds.forEach(messageId -> scoreMembers.put(messageId, score));
+        ZAddParams params = ZAddParams.zAddParams().xx();
+        ss.getQueueShards().forEach(shard -> dynoClient.zadd(getUnackKey(queueName, shard), scoreMembers, params));
+    }
+
+    /**
+     * Same key as the one the unacked messages of a shard are kept in by {@link RedisDynoQueue}.
+     */
+    private String getUnackKey(String queueName, String shard) {
+        return prefix + ".UNACK." + queueName + "." + shard;
+    }
+
     @Override
     public void flush(String queueName) {
         DynoQueue queue = queues.get(queueName);
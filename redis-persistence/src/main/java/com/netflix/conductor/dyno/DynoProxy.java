@@ -22,6 +22,9 @@ import com.netflix.dyno.jedis.DynoJedisClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -33,10 +36,14 @@ import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
 
+import redis.clients.jedis.JedisClusterScriptingCommands;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.MultiKeyCommands;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.ScriptingCommands;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 
 /**
@@ -48,6 +55,12 @@ public class DynoProxy {
 
     private static Logger logger = LoggerFactory.getLogger(DynoProxy.class);
 
+    /**
+     * Maximum number of keys sent to the server in a single multi-key command.
+     * Larger requests are split into chunks of this size.
+     */
+    private static final int MULTI_KEY_BATCH_SIZE = 100;
+
     protected DiscoveryClient dc;
 
     protected JedisCommands dynoClient;
@@ -96,6 +109,65 @@ public class DynoProxy {
         return dynoClient.get(key);
     }
 
+    /**
+     * Fetches the values of all the given keys using as few round trips as possible.
+     * When the underlying client supports multi-key commands, the keys are fetched with MGET in chunks of
+     * {@link #MULTI_KEY_BATCH_SIZE}, otherwise each key is fetched individually.
+     *
+     * @param keys the keys to fetch
+     * @return the values in the same order as the keys, with <code>null</code> for keys that do not exist
+     */
+    public List<String> mget(List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        if (keys.isEmpty()) {
+            return values;
+        }
+        if (dynoClient instanceof MultiKeyCommands) {
+            MultiKeyCommands multiKeyClient = (MultiKeyCommands) dynoClient;
+            for (int from = 0; from < keys.size(); from += MULTI_KEY_BATCH_SIZE) {
+                List<String> chunk = keys.subList(from, Math.min(from + MULTI_KEY_BATCH_SIZE, keys.size()));
+                logger.trace("mget {} keys", chunk.size());
+                values.addAll(multiKeyClient.mget(chunk.toArray(new String[0])));
+            }
+        } else {
+            for (String key : keys) {
+                values.add(dynoClient.get(key));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets all the given key/value pairs using as few round trips as possible.
+     * When the underlying client supports multi-key commands, the pairs are written with MSET in chunks of
+     * {@link #MULTI_KEY_BATCH_SIZE}, otherwise each key is written individually.
+     *
+     * @param keyValues the key/value pairs to store
+     */
+    public void mset(Map<String, String> keyValues) {
+        if (keyValues.isEmpty()) {
+            return;
+        }
+        if (dynoClient instanceof MultiKeyCommands && keyValues.size() > 1) {
+            MultiKeyCommands multiKeyClient = (MultiKeyCommands) dynoClient;
+            List<String> chunk = new ArrayList<>(MULTI_KEY_BATCH_SIZE * 2);
+            for (Entry<String, String> entry : keyValues.entrySet()) {
+                chunk.add(entry.getKey());
+                chunk.add(entry.getValue());
+                if (chunk.size() == MULTI_KEY_BATCH_SIZE * 2) {
+                    multiKeyClient.mset(chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                logger.trace("mset {} keys", chunk.size() / 2);
+                multiKeyClient.mset(chunk.toArray(new String[0]));
+            }
+        } else {
+            keyValues.forEach(dynoClient::set);
+        }
+    }
+
     public Long zcard(String key) {
         return dynoClient.zcard(key);
     }
@@ -122,6 +194,58 @@ public class DynoProxy {
         return added;
     }
 
+    /**
+     * Sets the key only if it does not exist, with an expiry.
+     *
+     * @return true if the key was set, false if it already existed
+     */
+    public boolean setnx(String key, String value, long expiryMillis) {
+        return "OK".equals(dynoClient.set(key, value, "NX", "PX", expiryMillis));
+    }
+
+    public Long incr(String key) {
+        return dynoClient.incr(key);
+    }
+
+    /**
+     * Evaluates a Lua script on the server. All the keys must be stored on the same node, which is only guaranteed for
+     * a single key unless {@link #supportsMultiKeyScripts()}.
+     *
+     * @return the reply of the script: a Long for an integer reply, a List for an array reply
+     * @throws UnsupportedOperationException if the underlying client does not support scripting
+     */
+    public Object eval(String script, List<String> keys, List<String> args) {
+        if (dynoClient instanceof ScriptingCommands) {
+            return ((ScriptingCommands) dynoClient).eval(script, keys, args);
+        }
+        if (dynoClient instanceof JedisClusterScriptingCommands) {
+            return ((JedisClusterScriptingCommands) dynoClient).eval(script, keys, args);
+        }
+        throw new UnsupportedOperationException("Scripting is not supported by " + dynoClient.getClass().getName());
+    }
+
+    /**
+     * Checks whether the client and the server support scripting, by evaluating a script which does nothing.
+     *
+     * @return false if the client does not support scripting or the server rejects scripts
+     */
+    public boolean supportsScripting() {
+        try {
+            eval("return 1", Collections.singletonList("conductor_scripting_check"), Collections.emptyList());
+            return true;
+        } catch (UnsupportedOperationException | JedisDataException e) {
+            logger.info("Redis scripting is not supported: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the keys of a script may be stored on different nodes, i.e. the client is not sharded
+     */
+    public boolean supportsMultiKeyScripts() {
+        return dynoClient instanceof ScriptingCommands && !(dynoClient instanceof DynoJedisClient);
+    }
+
     public Long zadd(String key, double score, String member) {
         Long retVal = dynoClient.zadd(key, score, member);
         return retVal;
@@ -229,12 +353,34 @@ public class DynoProxy {
         return retVal;
     }
 
+    /**
+     * Adds all the given members to the set in a single round trip.
+     */
+    public Long sadd(String key, Collection<String> members) {
+        if (members.isEmpty()) {
+            return 0L;
+        }
+        logger.trace("sadd {} {} members", key, members.size());
+        return dynoClient.sadd(key, members.toArray(new String[0]));
+    }
+
     public Long srem(String key, String member) {
         logger.trace("srem {} {}", key, member);
         Long retVal = dynoClient.srem(key, member);
         return retVal;
     }
 
+    /**
+     * Removes all the given members from the set in a single round trip.
+     */
+    public Long srem(String key, Collection<String> members) {
+        if (members.isEmpty()) {
+            return 0L;
+        }
+        logger.trace("srem {} {} members", key, members.size());
+        return dynoClient.srem(key, members.toArray(new String[0]));
+    }
+
     public boolean sismember(String key, String member) {
         return dynoClient.sismember(key, member);
     }
@@ -140,4 +140,22 @@ public class DynoQueueDAOTest {
 		
 	}
 
+	@Test
+	public void testSetUnackTimeoutOfMultipleMessages() {
+		String queueName = "TestUnackQueue";
+		for(int i = 0; i < 3; i++) {
+			dao.push(queueName, "msg" + i, 0);
+		}
+		List<String> popped = dao.pop(queueName, 3, 100);
+		assertEquals(3, popped.size());
+
+		// messages which are not unacked are left out
+		dao.setUnackTimeout(queueName, Arrays.asList("msg0", "msg1", "unknown"), 0);
+		dao.processUnacks(queueName);
+
+		assertEquals(2, dao.getSize(queueName));
+		long unackedSize = dao.queuesDetailVerbose().get(queueName).get("a").get("uacked");
+		assertEquals(1, unackedSize);
+	}
+
 }
@@ -16,6 +16,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
 import com.netflix.conductor.common.utils.JsonMapperProvider;
 import com.netflix.conductor.config.TestConfiguration;
 import com.netflix.conductor.core.config.Configuration;
@@ -29,13 +30,24 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 import redis.clients.jedis.JedisCommands;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Viren
@@ -86,6 +98,37 @@ public class RedisExecutionDAOTest extends ExecutionDAOTest {
         assertEquals(taskId, tasks.get(0).getTaskId());
     }
 
+	@Test
+	public void testCreateAndUpdateTasksInBatch() {
+		String workflowId = "workflowId";
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			Task task = new Task();
+			task.setTaskId("taskId" + i);
+			task.setWorkflowInstanceId(workflowId);
+			task.setReferenceTaskName("ref_name" + i);
+			task.setTaskDefName("task1");
+			task.setTaskType("task1");
+			task.setStatus(Status.SCHEDULED);
+			tasks.add(task);
+		}
+		List<Task> created = executionDAO.createTasks(tasks);
+		assertEquals(150, created.size());
+		assertEquals(150, executionDAO.getTasksForWorkflow(workflowId).size());
+		assertEquals(150, executionDAO.getPendingTasksForTaskType("task1").size());
+
+		tasks.subList(0, 100).forEach(task -> task.setStatus(Status.COMPLETED));
+		executionDAO.updateTasks(tasks);
+
+		List<Task> pending = executionDAO.getPendingTasksForTaskType("task1");
+		assertEquals(50, pending.size());
+		pending.forEach(task -> assertEquals(Status.SCHEDULED, task.getStatus()));
+		List<Task> fetched = executionDAO.getTasks(Arrays.asList("taskId0", "missing", "taskId149"));
+		assertEquals(2, fetched.size());
+		assertEquals(Status.COMPLETED, fetched.get(0).getStatus());
+		assertEquals(Status.SCHEDULED, fetched.get(1).getStatus());
+	}
+
 	@Test
 	public void testExceedsRateLimitWhenNoRateLimitSet() {
 		Task task =new Task();
@@ -107,6 +150,76 @@ public class RedisExecutionDAOTest extends ExecutionDAOTest {
 		assertTrue(executionDAO.exceedsRateLimitPerFrequency(task));
 	}
 
+	@Test
+	public void testLimitsEvaluatedWithScripts() {
+		DynoProxy dynoClient = mock(DynoProxy.class);
+		when(dynoClient.supportsMultiKeyScripts()).thenReturn(true);
+		RedisExecutionDAO scriptedExecutionDAO = new RedisExecutionDAO(dynoClient, objectMapper, new TestConfiguration());
+
+		Task task = new Task();
+		task.setTaskId("taskId");
+		task.setTaskDefName("task1");
+		task.setRateLimitFrequencyInSeconds(60);
+		task.setRateLimitPerFrequency(1);
+		TaskDef taskDef = new TaskDef("task1");
+		taskDef.setConcurrentExecLimit(1);
+		WorkflowTask workflowTask = new WorkflowTask();
+		workflowTask.setTaskDefinition(taskDef);
+		task.setWorkflowTask(workflowTask);
+
+		when(dynoClient.eval(anyString(), anyList(), anyList())).thenReturn(0L);
+		assertFalse(scriptedExecutionDAO.exceedsRateLimitPerFrequency(task));
+		assertFalse(scriptedExecutionDAO.exceedsInProgressLimit(task));
+
+		when(dynoClient.eval(anyString(), anyList(), anyList())).thenReturn(1L);
+		assertTrue(scriptedExecutionDAO.exceedsRateLimitPerFrequency(task));
+		assertTrue(scriptedExecutionDAO.exceedsInProgressLimit(task));
+
+		when(dynoClient.eval(anyString(), anyList(), anyList())).thenReturn(2L);
+		assertTrue(scriptedExecutionDAO.exceedsInProgressLimit(task));
+
+		// one round trip per evaluation
+		verify(dynoClient, times(5)).eval(anyString(), anyList(), anyList());
+		verify(dynoClient, never()).zaddnx(anyString(), anyDouble(), anyString());
+		verify(dynoClient, never()).zcount(anyString(), anyDouble(), anyDouble());
+	}
+
+	@Test
+	public void testBatchConcurrencyLimitEvaluatedWithOneScriptPerDefinition() {
+		DynoProxy dynoClient = mock(DynoProxy.class);
+		when(dynoClient.supportsMultiKeyScripts()).thenReturn(true);
+		RedisExecutionDAO scriptedExecutionDAO = new RedisExecutionDAO(dynoClient, objectMapper, new TestConfiguration());
+
+		List<Task> tasks = Arrays.asList(createLimitedTask("taskId1", "task1", 1), createLimitedTask("taskId2", "task1", 1),
+				createLimitedTask("taskId3", "task2", 0));
+		when(dynoClient.eval(anyString(), anyList(), anyList())).thenReturn(Arrays.asList(0L, 2L));
+
+		assertEquals(Collections.singleton("taskId2"), scriptedExecutionDAO.exceedsInProgressLimit(tasks));
+		// the task without a limit is not evaluated
+		verify(dynoClient, times(1)).eval(anyString(), anyList(), anyList());
+	}
+
+	@Test
+	public void testBatchConcurrencyLimitWithoutScripts() {
+		List<Task> tasks = Arrays.asList(createLimitedTask("taskId1", "task1", 2), createLimitedTask("taskId2", "task1", 2),
+				createLimitedTask("taskId3", "task1", 2));
+
+		Set<String> limitedTaskIds = executionDAO.exceedsInProgressLimit(tasks);
+		assertEquals(Collections.singleton("taskId3"), limitedTaskIds);
+	}
+
+	private Task createLimitedTask(String taskId, String taskDefName, int limit) {
+		Task task = new Task();
+		task.setTaskId(taskId);
+		task.setTaskDefName(taskDefName);
+		TaskDef taskDef = new TaskDef(taskDefName);
+		taskDef.setConcurrentExecLimit(limit);
+		WorkflowTask workflowTask = new WorkflowTask();
+		workflowTask.setTaskDefinition(taskDef);
+		task.setWorkflowTask(workflowTask);
+		return task;
+	}
+
     @Override
     protected ExecutionDAO getExecutionDAO() {
         return executionDAO;
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.netflix.conductor.dao.dynomite;
+
+import com.netflix.conductor.common.utils.JsonMapperProvider;
+import com.netflix.conductor.config.TestConfiguration;
+import com.netflix.conductor.core.utils.LockException;
+import com.netflix.conductor.dao.redis.JedisMock;
+import com.netflix.conductor.dyno.DynoProxy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisLockProviderTest {
+
+    private ScriptingJedisMock jedis;
+    private RedisLockProvider lockProvider;
+
+    @Before
+    public void init() {
+        jedis = new ScriptingJedisMock();
+        lockProvider = new RedisLockProvider(new DynoProxy(jedis), new JsonMapperProvider().get(), new TestConfiguration());
+    }
+
+    @Test(expected = LockException.class)
+    public void testLockIsExclusive() throws Exception {
+        lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS);
+        lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        String token;
+        try (RedisLockProvider.RedisLock lock = lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS)) {
+            token = lock.getToken();
+            lockProvider.lock("otherWorkflowId", 10, TimeUnit.MILLISECONDS).close();
+        }
+        try (RedisLockProvider.RedisLock lock = lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS)) {
+            assertNotEquals(token, lock.getToken());
+        }
+    }
+
+    @Test
+    public void testExpiredLockDoesNotReleaseNextHolder() throws Exception {
+        RedisLockProvider.RedisLock expired = lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS);
+        // the lease expires
+        jedis.del(jedis.lockKey);
+        RedisLockProvider.RedisLock next = lockProvider.lock("workflowId", 10, TimeUnit.MILLISECONDS);
+
+        expired.close();
+        assertTrue(jedis.exists(jedis.lockKey));
+        next.close();
+        assertFalse(jedis.exists(jedis.lockKey));
+    }
+
+    /**
+     * Runs the release script of the locks, which the in-memory redis cannot evaluate.
+     */
+    private static class ScriptingJedisMock extends JedisMock {
+
+        private String lockKey;
+
+        @Override
+        public String set(String key, String value, String nxxx, String expx, long time) {
+            lockKey = key;
+            return super.set(key, value, nxxx, expx, time);
+        }
+
+        @Override
+        public Object eval(String script, List<String> keys, List<String> args) {
+            if (args.get(0).equals(get(keys.get(0)))) {
+                return del(keys.get(0));
+            }
+            return 0L;
+        }
+    }
+}
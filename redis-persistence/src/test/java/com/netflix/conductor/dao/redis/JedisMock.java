@@ -780,6 +780,15 @@ public class JedisMock extends Jedis {
         }
     }
 
+    @Override
+    public Long zadd(final String key, final Map<String, Double> scoreMembers, final ZAddParams params) {
+        long added = 0;
+        for (Map.Entry<String, Double> scoreMember : scoreMembers.entrySet()) {
+            added += zadd(key, scoreMember.getValue(), scoreMember.getKey(), params);
+        }
+        return added;
+    }
+
     @Override public Set<String> zrange(final String key, final long start, final long end) {
         try {
             return ZsetPair.members(redis.zrange(key, start, end));
@@ -1373,13 +1382,8 @@ public class JedisMock extends Jedis {
     }
 
     public Object eval(String script, int keyCount, String... params) {
-        client.setTimeoutInfinite();
-        try {
-            client.eval(script, keyCount, params);
-            return getEvalResult();
-        } finally {
-            client.rollbackTimeout();
-        }
+        // the in-memory redis cannot run Lua scripts
+        throw new UnsupportedOperationException("eval is not supported by the in-memory redis");
     }
 
     public void subscribe(final JedisPubSub jedisPubSub, final String... channels) {